@@ -0,0 +1,70 @@
+package com.zedia.mensageiro.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compara dois resultados JMH em JSON ({@code -rf json}) e imprime a variação de cada benchmark.
+ * Sai com código 1 se algum ficou mais lento que o limite (padrão 10%), para uso em CI.
+ * <pre>
+ * java -cp target/benchmarks.jar com.zedia.mensageiro.benchmark.BenchmarkCompare antes.json depois.json [limite%]
+ * </pre>
+ * Só compara modos de tempo ({@code avgt}, {@code sample}, {@code ss}), onde maior é pior.
+ */
+public class BenchmarkCompare {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("uso: BenchmarkCompare <base.json> <novo.json> [limite%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, Score> base = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        boolean regressed = false;
+        System.out.printf("%-70s %12s %12s %9s%n", "Benchmark", "base", "novo", "variação");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = base.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-70s %12s %12.3f %9s%n", entry.getKey(), "-", after.value, "novo");
+                continue;
+            }
+            double change = (after.value - before.value) / before.value * 100;
+            boolean slower = after.timeBased && change > threshold;
+            regressed |= slower;
+            System.out.printf("%-70s %12.3f %12.3f %+8.1f%% %s%s%n", entry.getKey(), before.value, after.value,
+                    change, after.unit, slower ? "  << regressão" : "");
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    private static Map<String, Score> read(File file) throws Exception {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText()
+                    .replace("com.zedia.mensageiro.benchmark.", ""));
+            JsonNode params = run.get("params");
+            if (params != null) {
+                for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> param = it.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            String mode = run.get("mode").asText();
+            JsonNode metric = run.get("primaryMetric");
+            scores.put(key.toString(), new Score(metric.get("score").asDouble(), metric.get("scoreUnit").asText(),
+                    !mode.equals("thrpt")));
+        }
+        return scores;
+    }
+
+    private record Score(double value, String unit, boolean timeBased) {
+    }
+}
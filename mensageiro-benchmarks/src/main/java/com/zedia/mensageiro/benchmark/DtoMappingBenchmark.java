@@ -0,0 +1,87 @@
+package com.zedia.mensageiro.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zedia.mensageiro.dto.Dtos.EmailHistoryPage;
+import com.zedia.mensageiro.dto.Dtos.EmailLogResponse;
+import com.zedia.mensageiro.dto.Dtos.EmailLogSummaryResponse;
+import com.zedia.mensageiro.dto.Dtos.TemplateResponse;
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.Template;
+import com.zedia.mensageiro.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeamento entidade → DTO e serialização JSON de uma página do histórico, com o mesmo
+ * {@link ObjectMapper} que o Spring Boot monta (datas ISO-8601, sem timestamps).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private ObjectMapper mapper;
+    private Template template;
+    private EmailLog log;
+
+    @Setup
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        User owner = User.builder().id(1L).name("João Silva").email("joao@empresa.com").role(User.Role.USER).build();
+        LocalDateTime now = LocalDateTime.now();
+        template = Template.builder().id(1L).name("Boas-vindas").category(Template.TemplateCategory.OUTROS)
+                .subject("Bem-vindo, {{nome}}").body("Olá {{nome}}, sua conta foi criada.".repeat(20))
+                .owner(owner).createdAt(now).updatedAt(now).build();
+        log = EmailLog.builder().id(1L).sender(owner).template(template)
+                .subject("Bem-vindo, Maria").body("Olá Maria, sua conta foi criada.".repeat(20))
+                .status(EmailLog.EmailStatus.SENT).sentAt(now).build();
+        log.addRecipients(List.of("maria@empresa.com", "ana@empresa.com"));
+    }
+
+    @State(Scope.Benchmark)
+    public static class HistoryPage {
+
+        @Param({"20", "100"})
+        private int pageSize;
+
+        private EmailHistoryPage page;
+
+        @Setup
+        public void setUp() {
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            List<EmailLogSummaryResponse> items = new ArrayList<>(pageSize);
+            for (int i = 0; i < pageSize; i++) {
+                items.add(EmailLogSummaryResponse.builder()
+                        .id((long) i).subject("Bem-vindo, Maria " + i)
+                        .recipients(List.of("maria" + i + "@empresa.com", "ana" + i + "@empresa.com"))
+                        .status("SENT").sentAt(now.minusMinutes(i)).templateName("Boas-vindas").build());
+            }
+            page = EmailHistoryPage.builder().items(items).nextCursor("MjAyNi0xMC0xOFQxMDowMDowMHwxMjM").build();
+        }
+    }
+
+    @Benchmark
+    public TemplateResponse templateResponse() {
+        return TemplateResponse.from(template);
+    }
+
+    @Benchmark
+    public EmailLogResponse emailLogResponse() {
+        return EmailLogResponse.from(log);
+    }
+
+    @Benchmark
+    public byte[] historyPageJson(HistoryPage history) throws Exception {
+        return mapper.writeValueAsBytes(history.page);
+    }
+}
@@ -0,0 +1,73 @@
+package com.zedia.mensageiro.benchmark;
+
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por requisição autenticada da validação do JWT. {@code legacyFilter} reproduz o que o
+ * JwtAuthFilter fazia antes: recriar a chave e fazer o parse do mesmo token três vezes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "mensageiro-super-secret-key-that-is-long-enough-for-hs512-algorithm";
+
+    private JwtUtil cached;
+    private JwtUtil uncached;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtUtil(SECRET, 86_400_000, 10_000);
+        uncached = new JwtUtil(SECRET, 86_400_000, 0);
+        user = User.builder().id(1L).email("joao@empresa.com").role(User.Role.USER).build();
+        token = cached.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyFilter() {
+        String email = legacyParse().getSubject();
+        boolean valid = email.equals(legacyParse().getSubject());
+        return valid && !legacyParse().getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public Claims validateUncached() {
+        return uncached.validate(token);
+    }
+
+    @Benchmark
+    public Claims validateCached() {
+        return cached.validate(token);
+    }
+
+    @Benchmark
+    public String extractEmailCached() {
+        return cached.extractEmail(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken(user);
+    }
+
+    private Claims legacyParse() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,96 @@
+package com.zedia.mensageiro.benchmark;
+
+import com.zedia.mensageiro.MensageiroApplication;
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.Template;
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.repository.TemplateRepository;
+import com.zedia.mensageiro.repository.UserRepository;
+import com.zedia.mensageiro.service.EmailLogWriter;
+import com.zedia.mensageiro.service.EmailOutbox;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gravação de logs de envio (log + 3 destinatários + linha da outbox) com a aplicação de verdade sobre o H2
+ * em memória do perfil {@code loadtest}. O resultado é em logs por segundo:
+ * <ul>
+ *   <li>{@code enqueue}: 16 threads gravando um log cada, como envios síncronos simultâneos. Com
+ *       {@code maxBatch=1} cada envio faz a própria transação (o comportamento antigo); com {@code 100} o
+ *       {@link EmailLogWriter} junta os que chegam juntos numa transação e num lote JDBC.</li>
+ *   <li>{@code enqueueAll}: um bloco de 100 logs numa transação, como um pedaço de campanha.</li>
+ * </ul>
+ * O H2 em memória não tem a latência de rede de um MySQL, então a diferença aqui é um piso: contra um banco
+ * remoto cada transação e cada insert a menos pesa mais.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogWriteBenchmark {
+
+    private static final int CHUNK = 100;
+
+    @Param({"1", "100"})
+    private int maxBatch;
+
+    private ConfigurableApplicationContext context;
+    private EmailLogWriter logWriter;
+    private EmailOutbox emailOutbox;
+    private User sender;
+    private Template template;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplication application = new SpringApplication(MensageiroApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run(
+                "--app.mail.log-writer.max-batch=" + maxBatch,
+                // O relay fica parado: só a gravação é medida.
+                "--app.mail.dispatch.poll-interval-ms=3600000");
+        logWriter = context.getBean(EmailLogWriter.class);
+        emailOutbox = context.getBean(EmailOutbox.class);
+        sender = context.getBean(UserRepository.class).save(User.builder()
+                .name("Benchmark").email("benchmark@empresa.com").password("x").role(User.Role.USER).build());
+        template = context.getBean(TemplateRepository.class).save(Template.builder()
+                .name("Aviso").category(Template.TemplateCategory.OUTROS).subject("Aviso").body("Olá {{nome}}")
+                .owner(sender).build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private EmailLog newLog() {
+        EmailLog log = EmailLog.builder().sender(sender).template(template)
+                .subject("Sistema ERP indisponível").body("Olá Maria, o sistema estará fora às 22:00.")
+                .status(EmailLog.EmailStatus.QUEUED).sentAt(LocalDateTime.now()).build();
+        log.addRecipients(List.of("maria@empresa.com", "ana@empresa.com", "joao@empresa.com"));
+        return log;
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object enqueue() {
+        return logWriter.enqueue(newLog());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public Object enqueueAll() {
+        List<EmailLog> logs = new ArrayList<>(CHUNK);
+        for (int i = 0; i < CHUNK; i++) logs.add(newLog());
+        return emailOutbox.enqueueAll(logs);
+    }
+}
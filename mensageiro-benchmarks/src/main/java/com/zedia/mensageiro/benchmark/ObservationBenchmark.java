@@ -0,0 +1,55 @@
+package com.zedia.mensageiro.benchmark;
+
+import com.zedia.mensageiro.service.MailObservations;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das medições por etapa do envio. {@code direct} é a etapa sem instrumentação, {@code noop} usa o
+ * registry desligado e {@code timed} grava o timer {@code mail.send.stage} como em produção.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservationBenchmark {
+
+    private MailObservations noop;
+    private MailObservations timed;
+    private String name;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        noop = new MailObservations(ObservationRegistry.NOOP, new SimpleMeterRegistry());
+        timed = new MailObservations(registry, meterRegistry);
+        name = "Maria";
+    }
+
+    @Benchmark
+    public String direct() {
+        return render();
+    }
+
+    @Benchmark
+    public String noop() {
+        return noop.stage("render", this::render);
+    }
+
+    @Benchmark
+    public String timed() {
+        return timed.stage("render", this::render);
+    }
+
+    private String render() {
+        return "Olá " + name;
+    }
+}
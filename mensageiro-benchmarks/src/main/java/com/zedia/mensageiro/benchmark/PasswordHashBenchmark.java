@@ -0,0 +1,54 @@
+package com.zedia.mensageiro.benchmark;
+
+import com.zedia.mensageiro.security.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins por segundo por núcleo em cada custo do BCrypt ({@code app.auth.bcrypt-strength}). Cada ponto a mais
+ * no custo dobra o tempo do hash. {@code matches} é a verificação pura numa thread, ou seja, o teto de um
+ * núcleo; {@code matchesThroughHasher} passa pelo {@link PasswordHasher} com uma thread, para mostrar que o
+ * desvio para o executor não pesa perto do hash. Multiplique pelo número de núcleos (o tamanho padrão do
+ * executor) para a capacidade do nó.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    private static final String PASSWORD = "senha-do-turno-123";
+
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private PasswordHasher hasher;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hasher = new PasswordHasher(encoder, strength, 1, 16);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hasher.stop();
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean matchesThroughHasher() {
+        return hasher.matches(PASSWORD, hash).join();
+    }
+}
@@ -0,0 +1,87 @@
+package com.zedia.mensageiro.benchmark;
+
+import com.zedia.mensageiro.entity.Template;
+import com.zedia.mensageiro.service.RenderedTemplate;
+import com.zedia.mensageiro.service.TemplateRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renderização de um template por tamanho de corpo e quantidade de variáveis. {@code legacyReplace}
+ * reproduz o antigo {@code EmailService.resolveVariables}: um {@code String.replace} por variável.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderBenchmark {
+
+    @Param({"256", "4096", "65536"})
+    private int bodySize;
+
+    @Param({"2", "10", "50"})
+    private int variableCount;
+
+    private TemplateRenderer renderer;
+    private Template cached;
+    private Template uncached;
+    private Map<String, String> variables;
+
+    @Setup
+    public void setUp() {
+        variables = new LinkedHashMap<>();
+        for (int i = 0; i < variableCount; i++) {
+            variables.put("var" + i, "valor " + i);
+        }
+        String body = body();
+        renderer = new TemplateRenderer(1000);
+        cached = Template.builder().id(1L).subject("Aviso {{var0}}").body(body)
+                .updatedAt(LocalDateTime.now()).build();
+        uncached = Template.builder().subject("Aviso {{var0}}").body(body).build();
+    }
+
+    @Benchmark
+    public String legacyReplace() {
+        return legacyResolve(cached.getSubject()) + legacyResolve(cached.getBody());
+    }
+
+    @Benchmark
+    public RenderedTemplate compileAndRender() {
+        return renderer.render(uncached, variables);
+    }
+
+    @Benchmark
+    public RenderedTemplate renderCached() {
+        return renderer.render(cached, variables);
+    }
+
+    private String legacyResolve(String text) {
+        String result = text;
+        for (Map.Entry<String, String> entry : variables.entrySet()) {
+            result = result.replace("{{" + entry.getKey() + "}}", entry.getValue());
+        }
+        return result;
+    }
+
+    /** Texto corrido com as variáveis espalhadas de forma uniforme, até {@code bodySize} caracteres. */
+    private String body() {
+        StringBuilder body = new StringBuilder(bodySize + 64);
+        String filler = "Prezado cliente, informamos que o serviço segue em manutenção programada. ";
+        int slot = Math.max(1, bodySize / variableCount);
+        int next = 0;
+        while (body.length() < bodySize) {
+            body.append(filler, 0, Math.min(filler.length(), bodySize - body.length()));
+            if (body.length() >= (long) slot * (next + 1) || body.length() >= bodySize) {
+                body.append("{{var").append(next % variableCount).append("}}");
+                next++;
+            }
+        }
+        return body.toString();
+    }
+}
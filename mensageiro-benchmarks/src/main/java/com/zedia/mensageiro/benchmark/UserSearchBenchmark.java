@@ -0,0 +1,53 @@
+package com.zedia.mensageiro.benchmark;
+
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.service.UserDirectory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca do autocomplete de destinatários no {@link UserDirectory} com diretórios de 10 mil e 100 mil usuários de
+ * nomes brasileiros sintéticos: um prefixo curto e comum ({@code "ma"}), um sobrenome com acento digitado sem
+ * acento ({@code "conceicao"}) e nome + sobrenome ({@code "joao si"}), sempre com os 10 primeiros resultados.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSearchBenchmark {
+
+    private static final String[] FIRST = {"Maria", "João", "Ana", "José", "Márcia", "Antônio", "Francisca",
+            "Luís", "Juliana", "Carlos", "Patrícia", "Sérgio", "Letícia", "Raimundo", "Cláudia"};
+    private static final String[] LAST = {"Silva", "Santos", "Oliveira", "Souza", "Conceição", "Araújo", "Lima",
+            "Gonçalves", "Simões", "Magalhães", "Ribeiro", "Assunção", "Pereira", "Brandão", "Falcão"};
+
+    @Param({"10000", "100000"})
+    private int users;
+
+    @Param({"ma", "conceicao", "joao si"})
+    private String query;
+
+    private UserDirectory directory;
+
+    @Setup
+    public void setUp() {
+        directory = new UserDirectory(null, 20);
+        Random random = new Random(42);
+        for (long id = 1; id <= users; id++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            directory.add(User.builder().id(id).name(first + " " + last)
+                    .email("usuario" + id + "@empresa.com").build());
+        }
+    }
+
+    @Benchmark
+    public List<UserDirectory.Entry> search() {
+        return directory.search(query, "usuario1@empresa.com", 10);
+    }
+}
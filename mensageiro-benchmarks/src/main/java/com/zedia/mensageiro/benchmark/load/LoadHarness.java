@@ -0,0 +1,80 @@
+package com.zedia.mensageiro.benchmark.load;
+
+import com.zedia.mensageiro.MensageiroApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Teste de carga de ponta a ponta sem MySQL nem MailHog: sobe o {@link SlowSmtpServer} e a aplicação no
+ * mesmo processo, com o perfil {@code loadtest} (H2 em memória, limites de envio desligados, veja
+ * {@code application-loadtest.properties}), e roda o {@link MixedLoadTest} contra ela.
+ * <pre>
+ * java -cp target/benchmarks.jar com.zedia.mensageiro.benchmark.load.LoadHarness \
+ *      rate=100 seconds=60 smtpLatencyMs=50 smtpFailureRate=0.01 async=true
+ * </pre>
+ * Além dos parâmetros do {@link MixedLoadTest} ({@code baseUrl} é ignorado), aceita {@code smtpLatencyMs}
+ * (padrão 20), {@code smtpFailureRate} (padrão 0) e {@code async} (padrão false). Qualquer outro
+ * {@code --propriedade=valor} é repassado ao Spring, por exemplo {@code --app.mail.pool.max-size=16}.
+ * Sai com código 1 se alguma requisição medida falhou.
+ */
+public class LoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        List<String> springArgs = new ArrayList<>();
+        List<String> driverArgs = new ArrayList<>();
+        for (String arg : args) {
+            (arg.startsWith("--") ? springArgs : driverArgs).add(arg);
+        }
+        Map<String, String> options = new HashMap<>(Map.of(
+                "smtpLatencyMs", "20", "smtpFailureRate", "0", "async", "false"));
+        options.putAll(MixedLoadTest.options(driverArgs.toArray(String[]::new)));
+
+        try (SlowSmtpServer smtp = new SlowSmtpServer(0, Long.parseLong(options.get("smtpLatencyMs")),
+                Double.parseDouble(options.get("smtpFailureRate")))) {
+            Thread smtpThread = new Thread(smtp::serve, "smtp-sink");
+            smtpThread.setDaemon(true);
+            smtpThread.start();
+
+            // Como argumentos de linha de comando, para vencer os ${MAIL_PORT:...} do application.properties.
+            springArgs.add(0, "--spring.mail.port=" + smtp.getPort());
+            springArgs.add(1, "--app.mail.async=" + options.get("async"));
+            SpringApplication application = new SpringApplication(MensageiroApplication.class);
+            application.setAdditionalProfiles("loadtest");
+
+            int failed;
+            try (ConfigurableApplicationContext context = application.run(springArgs.toArray(String[]::new))) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                options.put("baseUrl", "http://localhost:" + port);
+                System.out.printf("aplicação em %s, SMTP em localhost:%d (%s ms, %.1f%% de falhas), async=%s%n",
+                        options.get("baseUrl"), smtp.getPort(), options.get("smtpLatencyMs"),
+                        Double.parseDouble(options.get("smtpFailureRate")) * 100, options.get("async"));
+
+                MixedLoadTest test = MixedLoadTest.fromOptions(options);
+                test.prepare(Integer.parseInt(options.get("senders")), Integer.parseInt(options.get("recipientPool")));
+                MixedLoadTest.Report report = test.run(Double.parseDouble(options.get("rate")),
+                        Integer.parseInt(options.get("seconds")), Integer.parseInt(options.get("warmup")));
+                report.print(System.out);
+
+                MeterRegistry meters = context.getBean(MeterRegistry.class);
+                System.out.printf("SMTP: %d aceitas, %d recusadas | envios: %.0f sent, %.0f retry, %.0f failed%n",
+                        smtp.getAccepted(), smtp.getRejected(),
+                        outcome(meters, "sent"), outcome(meters, "retry"), outcome(meters, "failed"));
+                failed = report.errors() > 0 ? 1 : 0;
+            }
+            System.exit(failed);
+        }
+    }
+
+    private static double outcome(MeterRegistry meters, String status) {
+        Counter counter = meters.find("mail.send.outcome").tag("status", status).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,294 @@
+package com.zedia.mensageiro.benchmark.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Carga mista em laço aberto: dispara {@code rate} requisições por segundo, sorteando a operação pelos pesos
+ * de {@code mix} (login, listagem de templates, envio para {@code recipients} destinatários, página do
+ * histórico e caixa de entrada de um destinatário). A latência é medida a partir do instante em que a requisição deveria ter saído, então uma
+ * aplicação lenta aparece como latência alta e não como uma vazão menor (sem omissão coordenada).
+ * <p>
+ * Na preparação, registra {@code senders} remetentes com um template cada e {@code recipientPool}
+ * destinatários; se já existirem (rodando de novo contra a mesma base), só faz login.
+ * <pre>
+ * java -cp target/benchmarks.jar com.zedia.mensageiro.benchmark.load.MixedLoadTest \
+ *      baseUrl=http://localhost:8080 rate=100 seconds=60 mix=login:5,templates:25,send:25,history:30,received:15
+ * </pre>
+ * Os parâmetros são {@code chave=valor}; veja {@link #DEFAULTS}. O {@link LoadHarness} roda este mesmo
+ * driver contra a aplicação embutida.
+ */
+public class MixedLoadTest {
+
+    static final Map<String, String> DEFAULTS = Map.of(
+            "baseUrl", "http://localhost:8080",
+            "rate", "50",
+            "seconds", "30",
+            "warmup", "5",
+            "senders", "10",
+            "recipientPool", "50",
+            "recipients", "3",
+            "mix", "login:5,templates:25,send:25,history:30,received:15");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String PASSWORD = "carga-senha-123";
+
+    private final String baseUrl;
+    private final int recipients;
+    private final Map<String, Integer> mix;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final List<Sender> senders = new ArrayList<>();
+    private final List<String> recipientPool = new ArrayList<>();
+    private final List<String> recipientTokens = new ArrayList<>();
+
+    public MixedLoadTest(String baseUrl, int recipients, Map<String, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.recipients = recipients;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        MixedLoadTest test = fromOptions(options);
+        test.prepare(Integer.parseInt(options.get("senders")), Integer.parseInt(options.get("recipientPool")));
+        test.run(Double.parseDouble(options.get("rate")), Integer.parseInt(options.get("seconds")),
+                Integer.parseInt(options.get("warmup"))).print(System.out);
+    }
+
+    static Map<String, String> options(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("parâmetro sem '=': " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    static MixedLoadTest fromOptions(Map<String, String> options) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : options.get("mix").split(",")) {
+            String[] parts = entry.split(":");
+            mix.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        for (String op : mix.keySet()) {
+            if (!List.of("login", "templates", "send", "history", "received").contains(op)) {
+                throw new IllegalArgumentException("operação desconhecida no mix: " + op);
+            }
+        }
+        return new MixedLoadTest(options.get("baseUrl"), Integer.parseInt(options.get("recipients")), mix);
+    }
+
+    public void prepare(int senderCount, int recipientCount) throws Exception {
+        for (int i = 0; i < recipientCount; i++) {
+            String email = "carga-destino-" + i + "@mensageiro.local";
+            recipientTokens.add(registerOrLogin("Destino " + i, email));
+            recipientPool.add(email);
+        }
+        for (int i = 0; i < senderCount; i++) {
+            String email = "carga-remetente-" + i + "@mensageiro.local";
+            String token = registerOrLogin("Remetente " + i, email);
+            JsonNode template = MAPPER.readTree(call("POST", "/api/templates", token, Map.of(
+                    "name", "Carga " + i,
+                    "category", "OUTROS",
+                    "subject", "Aviso para {{nome}}",
+                    "body", "Olá {{nome}}, este é um e-mail do teste de carga. Código: {{codigo}}.")).body());
+            senders.add(new Sender(email, token, template.get("id").asLong()));
+        }
+    }
+
+    /** Roda a carga por {@code warmup + seconds} segundos; só os últimos {@code seconds} entram no relatório. */
+    public Report run(double rate, int seconds, int warmup) throws InterruptedException {
+        Report report = new Report(rate, seconds);
+        ExecutorService inFlight = Executors.newCachedThreadPool();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        for (long intended = start; intended < end; intended += interval) {
+            long delay = intended - System.nanoTime();
+            if (delay > 0) LockSupport.parkNanos(delay);
+            String op = pick(total);
+            long scheduled = intended;
+            boolean measured = intended >= measureFrom;
+            inFlight.execute(() -> {
+                String outcome = execute(op);
+                if (measured) report.record(op, System.nanoTime() - scheduled, outcome);
+            });
+        }
+        inFlight.shutdown();
+        if (!inFlight.awaitTermination(2, TimeUnit.MINUTES)) inFlight.shutdownNow();
+        return report;
+    }
+
+    private String pick(int total) {
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) return entry.getKey();
+        }
+        throw new IllegalStateException();
+    }
+
+    /** Executa a operação e devolve o código HTTP, ou {@code "io"} se a conexão falhou. */
+    private String execute(String op) {
+        Sender sender = senders.get(ThreadLocalRandom.current().nextInt(senders.size()));
+        try {
+            HttpResponse<String> response = switch (op) {
+                case "login" -> call("POST", "/api/auth/login", null,
+                        Map.of("email", sender.email(), "password", PASSWORD));
+                case "templates" -> call("GET", "/api/templates", sender.token(), null);
+                case "send" -> call("POST", "/api/emails/send", sender.token(), Map.of(
+                        "templateId", sender.templateId(),
+                        "recipientEmails", sampleRecipients(),
+                        "variables", Map.of("nome", "Carga", "codigo",
+                                String.valueOf(ThreadLocalRandom.current().nextInt(1_000_000)))));
+                case "history" -> call("GET", "/api/emails/history?size=20", sender.token(), null);
+                case "received" -> call("GET", "/api/emails/received?size=20",
+                        recipientTokens.get(ThreadLocalRandom.current().nextInt(recipientTokens.size())), null);
+                default -> throw new IllegalArgumentException(op);
+            };
+            return String.valueOf(response.statusCode());
+        } catch (IOException e) {
+            return "io";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "io";
+        }
+    }
+
+    private List<String> sampleRecipients() {
+        List<String> sample = new ArrayList<>(recipients);
+        int from = ThreadLocalRandom.current().nextInt(recipientPool.size());
+        for (int i = 0; i < Math.min(recipients, recipientPool.size()); i++) {
+            sample.add(recipientPool.get((from + i) % recipientPool.size()));
+        }
+        return sample;
+    }
+
+    private String registerOrLogin(String name, String email) throws Exception {
+        HttpResponse<String> response = call("POST", "/api/auth/register", null,
+                Map.of("name", name, "email", email, "password", PASSWORD));
+        if (response.statusCode() != 200) {
+            response = call("POST", "/api/auth/login", null, Map.of("email", email, "password", PASSWORD));
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("não foi possível autenticar " + email + ": "
+                    + response.statusCode() + " " + response.body());
+        }
+        return MAPPER.readTree(response.body()).get("token").asText();
+    }
+
+    private HttpResponse<String> call(String method, String path, String token, Object body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body)));
+        if (body != null) request.header("Content-Type", "application/json");
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private record Sender(String email, String token, long templateId) {
+    }
+
+    /** Latências e resultados por operação. Respostas 2xx contam como sucesso; o resto é erro. */
+    public static class Report {
+
+        private final double targetRate;
+        private final int seconds;
+        private final Map<String, Samples> byOperation = new TreeMap<>();
+
+        Report(double targetRate, int seconds) {
+            this.targetRate = targetRate;
+            this.seconds = seconds;
+        }
+
+        synchronized void record(String op, long latencyNanos, String outcome) {
+            byOperation.computeIfAbsent(op, k -> new Samples()).add(latencyNanos, outcome);
+        }
+
+        public synchronized long errors() {
+            return byOperation.values().stream().mapToLong(Samples::errors).sum();
+        }
+
+        public synchronized void print(PrintStream out) {
+            Samples all = new Samples();
+            byOperation.values().forEach(all::addAll);
+            out.printf("taxa alvo: %.1f req/s | obtida: %.1f req/s em %ds | erros: %d%n",
+                    targetRate, all.count / (double) seconds, seconds, all.errors());
+            out.printf("%-10s %8s %8s %9s %9s %9s %9s %9s  %s%n",
+                    "operação", "req", "erros", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms", "status");
+            byOperation.forEach((op, samples) -> samples.print(out, op));
+            all.print(out, "total");
+        }
+    }
+
+    private static class Samples {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<String, Long> outcomes = new TreeMap<>();
+
+        void add(long latency, String outcome) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = latency;
+            outcomes.merge(outcome, 1L, Long::sum);
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.count; i++) {
+                if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                latencies[count++] = other.latencies[i];
+            }
+            other.outcomes.forEach((outcome, n) -> outcomes.merge(outcome, n, Long::sum));
+        }
+
+        long errors() {
+            return outcomes.entrySet().stream()
+                    .filter(e -> !e.getKey().startsWith("2"))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        void print(PrintStream out, String name) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            out.printf("%-10s %8d %8d %9.1f %9.1f %9.1f %9.1f %9.1f  %s%n", name, count, errors(),
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), count > 0 ? sorted[count - 1] / 1e6 : 0.0, outcomes);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.zedia.mensageiro.benchmark.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispara {@code POST /api/emails/send} a partir de {@code concurrency} clientes em laço fechado durante
+ * {@code seconds} segundos e imprime vazão e latência (p50/p99/máx). Rode uma vez com a aplicação em
+ * threads de plataforma e outra com {@code VIRTUAL_THREADS=true}, ambas apontando para o {@link SlowSmtpServer}.
+ * <pre>
+ * java -cp target/benchmarks.jar com.zedia.mensageiro.benchmark.load.SendLoadTest \
+ *      http://localhost:8080 joao@empresa.com senha123 1 maria@empresa.com 200 30
+ * </pre>
+ */
+public class SendLoadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.err.println("uso: SendLoadTest <baseUrl> <email> <senha> <templateId> <destinatario> [concorrencia=100] [segundos=30]");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        int concurrency = args.length > 5 ? Integer.parseInt(args[5]) : 100;
+        int seconds = args.length > 6 ? Integer.parseInt(args[6]) : 30;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String token = login(client, baseUrl, args[1], args[2]);
+        byte[] payload = MAPPER.writeValueAsBytes(Map.of(
+                "templateId", Long.parseLong(args[3]),
+                "recipientEmails", List.of(args[4]),
+                "variables", Map.of("nome", "Carga")));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/emails/send"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            results.add(clients.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 300) errors.incrementAndGet();
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> result : results) {
+            long[] part = result.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + part.length);
+            System.arraycopy(part, 0, all, offset, part.length);
+        }
+        clients.shutdown();
+        Arrays.sort(all);
+
+        System.out.printf("requisições: %d (erros: %d) em %ds com %d clientes%n", all.length, errors.get(), seconds, concurrency);
+        System.out.printf("vazão: %.1f req/s%n", all.length / (double) seconds);
+        System.out.printf("latência p50: %.1f ms | p99: %.1f ms | máx: %.1f ms%n",
+                percentile(all, 0.50), percentile(all, 0.99), all.length > 0 ? all[all.length - 1] / 1e6 : 0.0);
+    }
+
+    private static String login(HttpClient client, String baseUrl, String email, String password) throws Exception {
+        HttpRequest login = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(Map.of("email", email, "password", password))))
+                .build();
+        HttpResponse<String> response = client.send(login, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("login falhou: " + response.statusCode() + " " + response.body());
+        }
+        JsonNode body = MAPPER.readTree(response.body());
+        return body.get("token").asText();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
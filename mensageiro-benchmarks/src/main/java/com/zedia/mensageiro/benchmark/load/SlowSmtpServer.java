@@ -0,0 +1,127 @@
+package com.zedia.mensageiro.benchmark.load;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor SMTP mínimo que aceita tudo e descarta as mensagens, esperando {@code latencyMs} antes de
+ * confirmar cada DATA. Simula um relay lento para o teste de carga sem depender de um servidor externo.
+ * Com {@code failureRate > 0}, essa fração das mensagens é recusada com {@code 451} (falha temporária).
+ * <pre>
+ * java -cp target/benchmarks.jar com.zedia.mensageiro.benchmark.load.SlowSmtpServer [porta] [latencyMs] [failureRate]
+ * </pre>
+ */
+public class SlowSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final long latencyMs;
+    private final double failureRate;
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public SlowSmtpServer(int port, long latencyMs) throws IOException {
+        this(port, latencyMs, 0);
+    }
+
+    /** Com {@code port = 0} o sistema escolhe uma porta livre; veja {@link #getPort()}. */
+    public SlowSmtpServer(int port, long latencyMs, double failureRate) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        this.latencyMs = latencyMs;
+        this.failureRate = failureRate;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 2525;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        double failureRate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        SlowSmtpServer server = new SlowSmtpServer(port, latencyMs, failureRate);
+        System.out.printf("SMTP em localhost:%d com %d ms por mensagem e %.1f%% de falhas%n",
+                port, latencyMs, failureRate * 100);
+        server.serve();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("accept falhou: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost SlowSmtpServer");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // descarta o conteúdo
+                        }
+                        Thread.sleep(latencyMs);
+                        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                            rejected.incrementAndGet();
+                            reply(out, "451 4.3.0 Temporary failure");
+                        } else {
+                            accepted.incrementAndGet();
+                            reply(out, "250 OK queued");
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // cliente encerrou a conexão
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+}
@@ -9,6 +9,7 @@ import Dashboard from './pages/Dashboard';
 import Templates from './pages/Templates';
 import SendEmail from './pages/SendEmail';
 import History from './pages/History';
+import Received from './pages/Received';
 import './styles.css';
 
 export default function App() {
@@ -26,6 +27,7 @@ export default function App() {
           <Route path="/templates" element={<PrivateRoute><Templates/></PrivateRoute>}/>
           <Route path="/send" element={<PrivateRoute><SendEmail/></PrivateRoute>}/>
           <Route path="/history" element={<PrivateRoute><History/></PrivateRoute>}/>
+          <Route path="/received" element={<PrivateRoute><Received/></PrivateRoute>}/>
           <Route path="*" element={<Navigate to="/dashboard" replace/>}/>
         </Routes>
       </BrowserRouter>
@@ -7,6 +7,7 @@ const navItems = [
   { to: '/templates', label: 'Templates', icon: '⊞' },
   { to: '/send', label: 'Enviar E-mail', icon: '⊹' },
   { to: '/history', label: 'Histórico', icon: '◷' },
+  { to: '/received', label: 'Recebidos', icon: '⊡' },
 ];
 
 export default function Layout({ children }) {
@@ -13,22 +13,31 @@ const CATEGORY_LABELS = {
   OUTROS: 'Outros',
 };
 
+const STATUS_BADGES = {
+  QUEUED: ['badge-blue', 'Na fila'],
+  SENDING: ['badge-blue', 'Enviando'],
+  SENT: ['badge-green', 'Enviado'],
+  FAILED: ['badge-red', 'Falhou'],
+  DEAD_LETTER: ['badge-red', 'Esgotou tentativas'],
+};
+
 export default function Dashboard() {
   const { user } = useAuth();
   const [templates, setTemplates] = useState([]);
   const [history, setHistory] = useState([]);
+  const [emailStats, setEmailStats] = useState({ total: 0, sent: 0 });
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
-    Promise.all([templatesApi.listMine(), emailsApi.history()])
-      .then(([t, h]) => { setTemplates(t.data); setHistory(h.data); })
+    Promise.all([templatesApi.listMine(), emailsApi.history({ size: 4 }), emailsApi.stats()])
+      .then(([t, h, s]) => { setTemplates(t.data); setHistory(h.data.items); setEmailStats(s.data); })
       .finally(() => setLoading(false));
   }, []);
 
   const stats = [
     { label: 'Meus Templates', value: templates.length },
-    { label: 'E-mails Enviados', value: history.length },
-    { label: 'Taxa de Sucesso', value: history.length ? `${Math.round(history.filter(h => h.status === 'SENT').length / history.length * 100)}%` : '—', accent: true },
+    { label: 'E-mails Enviados', value: emailStats.total },
+    { label: 'Taxa de Sucesso', value: emailStats.total ? `${Math.round(emailStats.sent / emailStats.total * 100)}%` : '—', accent: true },
   ];
 
   return (
@@ -90,12 +99,12 @@ export default function Dashboard() {
                   <p style={{ color: 'var(--text-muted)', marginBottom: 16 }}>Nenhum envio registrado.</p>
                   <Link to="/send" className="btn btn-ghost btn-sm">Enviar e-mail</Link>
                 </div>
-              ) : history.slice(0, 4).map(h => (
+              ) : history.map(h => (
                 <div key={h.id} className="card" style={styles.histItem}>
                   <div style={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center' }}>
                     <div style={styles.histSubject}>{h.subject}</div>
-                    <span className={`badge ${h.status === 'SENT' ? 'badge-green' : 'badge-red'}`}>
-                      {h.status === 'SENT' ? 'Enviado' : 'Falhou'}
+                    <span className={`badge ${(STATUS_BADGES[h.status] || STATUS_BADGES.FAILED)[0]}`}>
+                      {(STATUS_BADGES[h.status] || STATUS_BADGES.FAILED)[1]}
                     </span>
                   </div>
                   <div style={styles.histMeta}>
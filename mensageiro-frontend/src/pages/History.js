@@ -2,21 +2,86 @@ import React, { useEffect, useState } from 'react';
 import { emailsApi } from '../services/api';
 import Layout from '../components/Layout';
 
+const STATUS_BADGES = {
+  QUEUED: ['badge-blue', '◷ Na fila'],
+  SENDING: ['badge-blue', '↻ Enviando'],
+  SENT: ['badge-green', '✓ Enviado'],
+  FAILED: ['badge-red', '✕ Falhou'],
+  DEAD_LETTER: ['badge-red', '✕ Esgotou tentativas'],
+};
+
 export default function History() {
   const [history, setHistory] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [expanded, setExpanded] = useState(null);
+  const [bodies, setBodies] = useState({});
+  const [exporting, setExporting] = useState(false);
+
+  useEffect(() => {
+    emailsApi.history()
+      .then(r => { setHistory(r.data.items); setNextCursor(r.data.nextCursor); })
+      .finally(() => setLoading(false));
+  }, []);
 
   useEffect(() => {
-    emailsApi.history().then(r => setHistory(r.data)).finally(() => setLoading(false));
+    const controller = new AbortController();
+    let retry;
+    const connect = () => emailsApi.events((name, event) => {
+      if (name !== 'status') return;
+      setHistory(h => h.map(item => item.id === event.emailLogId
+        ? { ...item, status: event.status, sentAt: event.status === 'SENT' ? event.at : item.sentAt }
+        : item));
+    }, controller.signal)
+      // O servidor fecha a conexão de quem fica para trás; reconecta sem pressa.
+      .catch(() => {})
+      .finally(() => { if (!controller.signal.aborted) retry = setTimeout(connect, 5000); });
+    connect();
+    return () => { controller.abort(); clearTimeout(retry); };
   }, []);
 
+  const loadMore = () => {
+    setLoadingMore(true);
+    emailsApi.history({ cursor: nextCursor })
+      .then(r => { setHistory(h => [...h, ...r.data.items]); setNextCursor(r.data.nextCursor); })
+      .finally(() => setLoadingMore(false));
+  };
+
+  const exportCsv = () => {
+    setExporting(true);
+    emailsApi.exportHistory({ format: 'csv' })
+      .then(r => {
+        const url = URL.createObjectURL(r.data);
+        const link = document.createElement('a');
+        link.href = url;
+        link.download = `envios-${new Date().toISOString().slice(0, 10)}.csv`;
+        link.click();
+        URL.revokeObjectURL(url);
+      })
+      .finally(() => setExporting(false));
+  };
+
+  const toggle = (id) => {
+    setExpanded(expanded === id ? null : id);
+    if (expanded !== id && bodies[id] === undefined) {
+      emailsApi.getById(id).then(r => setBodies(b => ({ ...b, [id]: r.data.body ?? '(corpo removido pela política de retenção)' })));
+    }
+  };
+
   return (
     <Layout>
       <div className="fade-in">
         <div style={styles.header}>
-          <h1 style={styles.title}>Histórico de Envios</h1>
-          <p style={styles.sub}>{history.length} e-mail(s) enviado(s)</p>
+          <div>
+            <h1 style={styles.title}>Histórico de Envios</h1>
+            <p style={styles.sub}>{history.length}{nextCursor ? '+' : ''} e-mail(s) enviado(s)</p>
+          </div>
+          {history.length > 0 && (
+            <button className="btn btn-ghost btn-sm" onClick={exportCsv} disabled={exporting}>
+              {exporting ? <span className="spinner"/> : 'Exportar CSV'}
+            </button>
+          )}
         </div>
 
         {loading ? (
@@ -31,10 +96,10 @@ export default function History() {
           <div style={styles.list}>
             {history.map(h => (
               <div key={h.id} className="card" style={styles.item}>
-                <div style={styles.itemHeader} onClick={() => setExpanded(expanded === h.id ? null : h.id)}>
+                <div style={styles.itemHeader} onClick={() => toggle(h.id)}>
                   <div style={styles.itemLeft}>
-                    <span className={`badge ${h.status === 'SENT' ? 'badge-green' : 'badge-red'}`}>
-                      {h.status === 'SENT' ? '✓ Enviado' : '✕ Falhou'}
+                    <span className={`badge ${(STATUS_BADGES[h.status] || STATUS_BADGES.FAILED)[0]}`}>
+                      {(STATUS_BADGES[h.status] || STATUS_BADGES.FAILED)[1]}
                     </span>
                     <div style={styles.itemSubject}>{h.subject}</div>
                   </div>
@@ -44,6 +109,9 @@ export default function History() {
                     )}
                     <div style={styles.itemDate}>
                       {h.sentAt ? new Date(h.sentAt).toLocaleString('pt-BR', { dateStyle: 'short', timeStyle: 'short' }) : '—'}
+                      {h.scheduledAt && h.status === 'QUEUED' && (
+                        <> · agendado para {new Date(h.scheduledAt).toLocaleString('pt-BR', { dateStyle: 'short', timeStyle: 'short' })}</>
+                      )}
                     </div>
                     <span style={styles.chevron}>{expanded === h.id ? '▲' : '▼'}</span>
                   </div>
@@ -58,12 +126,19 @@ export default function History() {
                     </div>
                     <div style={styles.detailRow}>
                       <span style={styles.detailLabel}>Corpo</span>
-                      <pre style={styles.body}>{h.body}</pre>
+                      {bodies[h.id] === undefined
+                        ? <span className="spinner"/>
+                        : <pre style={styles.body}>{bodies[h.id]}</pre>}
                     </div>
                   </div>
                 )}
               </div>
             ))}
+            {nextCursor && (
+              <button className="btn btn-ghost btn-sm" style={styles.more} onClick={loadMore} disabled={loadingMore}>
+                {loadingMore ? <span className="spinner"/> : 'Carregar mais'}
+              </button>
+            )}
           </div>
         )}
       </div>
@@ -72,13 +147,14 @@ export default function History() {
 }
 
 const styles = {
-  header: { marginBottom: 32 },
+  header: { marginBottom: 32, display: 'flex', justifyContent: 'space-between', alignItems: 'flex-start', gap: 16 },
   title: { fontSize: 28, letterSpacing: '-0.02em', marginBottom: 4 },
   sub: { color: 'var(--text-muted)', fontSize: 14 },
   center: { display: 'flex', justifyContent: 'center', padding: 60 },
   empty: { textAlign: 'center', padding: 60 },
   emptyIcon: { fontSize: 48, marginBottom: 16, opacity: 0.3 },
   list: { display: 'flex', flexDirection: 'column', gap: 10 },
+  more: { alignSelf: 'center', marginTop: 8 },
   item: { padding: 0, overflow: 'hidden' },
   itemHeader: { display: 'flex', justifyContent: 'space-between', alignItems: 'center', padding: '16px 20px', cursor: 'pointer', gap: 16 },
   itemLeft: { display: 'flex', alignItems: 'center', gap: 14, flex: 1, overflow: 'hidden' },
@@ -0,0 +1,119 @@
+import React, { useEffect, useState } from 'react';
+import { emailsApi } from '../services/api';
+import Layout from '../components/Layout';
+
+export default function Received() {
+  const [emails, setEmails] = useState([]);
+  const [nextBefore, setNextBefore] = useState(null);
+  const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [expanded, setExpanded] = useState(null);
+  const [bodies, setBodies] = useState({});
+
+  useEffect(() => {
+    emailsApi.received()
+      .then(r => { setEmails(r.data.items); setNextBefore(r.data.nextBefore); })
+      .finally(() => setLoading(false));
+  }, []);
+
+  const loadMore = () => {
+    setLoadingMore(true);
+    emailsApi.received({ before: nextBefore })
+      .then(r => { setEmails(e => [...e, ...r.data.items]); setNextBefore(r.data.nextBefore); })
+      .finally(() => setLoadingMore(false));
+  };
+
+  const toggle = (id) => {
+    setExpanded(expanded === id ? null : id);
+    if (expanded !== id && bodies[id] === undefined) {
+      emailsApi.getReceivedById(id).then(r => setBodies(b => ({ ...b, [id]: r.data.body ?? '(corpo removido pela política de retenção)' })));
+    }
+  };
+
+  return (
+    <Layout>
+      <div className="fade-in">
+        <div style={styles.header}>
+          <h1 style={styles.title}>E-mails Recebidos</h1>
+          <p style={styles.sub}>{emails.length}{nextBefore ? '+' : ''} e-mail(s) recebido(s)</p>
+        </div>
+
+        {loading ? (
+          <div style={styles.center}><span className="spinner"/></div>
+        ) : emails.length === 0 ? (
+          <div className="card" style={styles.empty}>
+            <div style={styles.emptyIcon}>⊡</div>
+            <h3 style={{ marginBottom: 8 }}>Nenhum e-mail recebido</h3>
+            <p style={{ color: 'var(--text-muted)' }}>Os e-mails enviados para você aparecerão aqui.</p>
+          </div>
+        ) : (
+          <div style={styles.list}>
+            {emails.map(e => (
+              <div key={e.id} className="card" style={styles.item}>
+                <div style={styles.itemHeader} onClick={() => toggle(e.id)}>
+                  <div style={styles.itemLeft}>
+                    <div style={styles.itemSender}>{e.senderName}</div>
+                    <div style={styles.itemSubject}>{e.subject}</div>
+                  </div>
+                  <div style={styles.itemRight}>
+                    {e.templateName && (
+                      <span style={styles.templateTag}>{e.templateName}</span>
+                    )}
+                    <div style={styles.itemDate}>
+                      {e.sentAt ? new Date(e.sentAt).toLocaleString('pt-BR', { dateStyle: 'short', timeStyle: 'short' }) : '—'}
+                    </div>
+                    <span style={styles.chevron}>{expanded === e.id ? '▲' : '▼'}</span>
+                  </div>
+                </div>
+                {expanded === e.id && (
+                  <div style={styles.itemDetails}>
+                    <div style={styles.detailRow}>
+                      <span style={styles.detailLabel}>De</span>
+                      <span style={styles.sender}>{e.senderName} &lt;{e.senderEmail}&gt;</span>
+                    </div>
+                    <div style={styles.detailRow}>
+                      <span style={styles.detailLabel}>Corpo</span>
+                      {bodies[e.id] === undefined
+                        ? <span className="spinner"/>
+                        : <pre style={styles.body}>{bodies[e.id]}</pre>}
+                    </div>
+                  </div>
+                )}
+              </div>
+            ))}
+            {nextBefore && (
+              <button className="btn btn-ghost btn-sm" style={styles.more} onClick={loadMore} disabled={loadingMore}>
+                {loadingMore ? <span className="spinner"/> : 'Carregar mais'}
+              </button>
+            )}
+          </div>
+        )}
+      </div>
+    </Layout>
+  );
+}
+
+const styles = {
+  header: { marginBottom: 32 },
+  title: { fontSize: 28, letterSpacing: '-0.02em', marginBottom: 4 },
+  sub: { color: 'var(--text-muted)', fontSize: 14 },
+  center: { display: 'flex', justifyContent: 'center', padding: 60 },
+  empty: { textAlign: 'center', padding: 60 },
+  emptyIcon: { fontSize: 48, marginBottom: 16, opacity: 0.3 },
+  list: { display: 'flex', flexDirection: 'column', gap: 10 },
+  more: { alignSelf: 'center', marginTop: 8 },
+  item: { padding: 0, overflow: 'hidden' },
+  itemHeader: { display: 'flex', justifyContent: 'space-between', alignItems: 'center', padding: '16px 20px', cursor: 'pointer', gap: 16 },
+  itemLeft: { display: 'flex', alignItems: 'center', gap: 14, flex: 1, overflow: 'hidden' },
+  itemSender: { fontSize: 13, color: 'var(--text-muted)', flexShrink: 0, minWidth: 120 },
+  itemSubject: { fontWeight: 600, fontSize: 14, overflow: 'hidden', textOverflow: 'ellipsis', whiteSpace: 'nowrap' },
+  itemRight: { display: 'flex', alignItems: 'center', gap: 14, flexShrink: 0 },
+  templateTag: { fontSize: 12, color: 'var(--text-muted)', background: 'var(--bg)', padding: '2px 10px', borderRadius: 20, border: '1px solid var(--border)' },
+  itemDate: { color: 'var(--text-muted)', fontSize: 13 },
+  chevron: { color: 'var(--text-dim)', fontSize: 10 },
+  itemDetails: { padding: '16px 20px', borderTop: '1px solid var(--border)', background: 'var(--bg)' },
+  detailRow: { marginBottom: 16 },
+  detailLabel: { display: 'block', fontSize: 11, fontWeight: 700, color: 'var(--text-muted)', textTransform: 'uppercase', letterSpacing: '0.06em', marginBottom: 8 },
+  sender: { fontSize: 14 },
+  body: { whiteSpace: 'pre-wrap', fontSize: 14, color: 'var(--text-muted)', fontFamily: 'var(--font-body)', lineHeight: 1.7, background: 'var(--bg-card)', padding: 16, borderRadius: 8, border: '1px solid var(--border)' },
+};
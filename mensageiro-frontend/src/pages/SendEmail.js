@@ -17,17 +17,26 @@ export default function SendEmail() {
   const navigate = useNavigate();
   const [templates, setTemplates] = useState([]);
   const [users, setUsers] = useState([]);
+  const [query, setQuery] = useState('');
   const [selectedTemplate, setSelectedTemplate] = useState(null);
   const [selectedRecipients, setSelectedRecipients] = useState([]);
   const [variables, setVariables] = useState({});
+  const [sendAt, setSendAt] = useState('');
   const [sending, setSending] = useState(false);
   const [step, setStep] = useState(1);
 
   useEffect(() => {
-    Promise.all([templatesApi.listAll(), usersApi.list()])
-      .then(([t, u]) => { setTemplates(t.data); setUsers(u.data); });
+    templatesApi.listAll().then(t => setTemplates(t.data));
   }, []);
 
+  useEffect(() => {
+    if (!query.trim()) { setUsers([]); return; }
+    const timer = setTimeout(() => {
+      usersApi.search(query).then(u => setUsers(u.data));
+    }, 200);
+    return () => clearTimeout(timer);
+  }, [query]);
+
   const resolveVars = (text) => {
     let result = text;
     Object.entries(variables).forEach(([k, v]) => {
@@ -65,8 +74,10 @@ export default function SendEmail() {
         templateId: selectedTemplate.id,
         recipientEmails: selectedRecipients,
         variables,
+        // datetime-local não tem fuso: converte o horário local do navegador para UTC antes de enviar.
+        sendAt: sendAt ? new Date(sendAt).toISOString() : undefined,
       });
-      toast.success('E-mail enviado com sucesso!');
+      toast.success(sendAt ? 'E-mail agendado com sucesso!' : 'E-mail enviado com sucesso!');
       navigate('/history');
     } catch (err) {
       toast.error(err.response?.data?.error || 'Erro ao enviar e-mail');
@@ -147,6 +158,8 @@ export default function SendEmail() {
             <div>
               <h3 style={styles.stepTitle}>Selecione os destinatários</h3>
               <p style={styles.stepSub}>Apenas usuários cadastrados no sistema</p>
+              <input value={query} onChange={e => setQuery(e.target.value)}
+                placeholder="Buscar por nome ou e-mail" style={{ marginBottom: 12 }} />
               <div style={styles.userList}>
                 {users.map(u => (
                   <div key={u.email} className="card" style={styles.userItem}
@@ -165,7 +178,9 @@ export default function SendEmail() {
                 ))}
               </div>
               {selectedRecipients.length > 0 && (
-                <p style={styles.selectedCount}>{selectedRecipients.length} destinatário(s) selecionado(s)</p>
+                <p style={styles.selectedCount}>
+                  {selectedRecipients.length} destinatário(s) selecionado(s): {selectedRecipients.join(', ')}
+                </p>
               )}
               <div style={styles.navBtns}>
                 <button className="btn btn-ghost" onClick={() => setStep(2)}>← Voltar</button>
@@ -190,6 +205,11 @@ export default function SendEmail() {
                   <span style={styles.reviewLabel}>Assunto</span>
                   <span style={{ fontWeight: 600 }}>{resolveVars(selectedTemplate.subject)}</span>
                 </div>
+                <div style={styles.reviewRow}>
+                  <span style={styles.reviewLabel}>Agendar envio</span>
+                  <input type="datetime-local" value={sendAt} onChange={e => setSendAt(e.target.value)}
+                    style={{ maxWidth: 240 }} />
+                </div>
               </div>
               <div className="card" style={{ background: 'var(--bg)' }}>
                 <div style={styles.reviewLabel}>CORPO DO E-MAIL</div>
@@ -198,7 +218,7 @@ export default function SendEmail() {
               <div style={styles.navBtns}>
                 <button className="btn btn-ghost" onClick={() => setStep(3)}>← Voltar</button>
                 <button className="btn btn-primary" onClick={handleSend} disabled={sending} style={{ minWidth: 160 }}>
-                  {sending ? <><span className="spinner"/> Enviando...</> : '⊹ Disparar e-mail'}
+                  {sending ? <><span className="spinner"/> Enviando...</> : sendAt ? '⊹ Agendar e-mail' : '⊹ Disparar e-mail'}
                 </button>
               </div>
             </div>
@@ -30,7 +30,8 @@ export const authApi = {
 
 export const usersApi = {
   me: () => api.get('/api/users/me'),
-  list: () => api.get('/api/users'),
+  list: (params) => api.get('/api/users', { params }),
+  search: (q, limit = 10) => api.get('/api/users/search', { params: { q, limit } }),
 };
 
 export const templatesApi = {
@@ -44,7 +45,41 @@ export const templatesApi = {
 
 export const emailsApi = {
   send: (data) => api.post('/api/emails/send', data),
-  history: () => api.get('/api/emails/history'),
+  history: (params) => api.get('/api/emails/history', { params }),
+  getById: (id) => api.get(`/api/emails/${id}`),
+  stats: () => api.get('/api/emails/stats'),
+  received: (params) => api.get('/api/emails/received', { params }),
+  getReceivedById: (id) => api.get(`/api/emails/received/${id}`),
+  exportHistory: (params) => api.get('/api/emails/export', { params, responseType: 'blob' }),
+  events: (onEvent, signal) => streamEvents('/api/emails/events', onEvent, signal),
 };
 
+// EventSource não manda o cabeçalho Authorization; lê o text/event-stream com fetch.
+async function streamEvents(path, onEvent, signal) {
+  const res = await fetch(api.defaults.baseURL + path, {
+    headers: { Authorization: `Bearer ${localStorage.getItem('token')}`, Accept: 'text/event-stream' },
+    signal,
+  });
+  if (!res.ok || !res.body) throw new Error(`Falha ao abrir eventos: ${res.status}`);
+  const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+  let buffer = '';
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) return;
+    buffer += value;
+    let end;
+    while ((end = buffer.indexOf('\n\n')) >= 0) {
+      const block = buffer.slice(0, end);
+      buffer = buffer.slice(end + 2);
+      let name = 'message';
+      const data = [];
+      for (const line of block.split('\n')) {
+        if (line.startsWith('event:')) name = line.slice(6).trim();
+        else if (line.startsWith('data:')) data.push(line.slice(5));
+      }
+      if (data.length) onEvent(name, JSON.parse(data.join('\n')));
+    }
+  }
+}
+
 export default api;
\ No newline at end of file
@@ -2,8 +2,10 @@ package com.zedia.mensageiro;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
 
-@SpringBootApplication
+// O login confere a senha no AuthService; sem isso o Boot criaria um usuário em memória com senha gerada.
+@SpringBootApplication(exclude = UserDetailsServiceAutoConfiguration.class)
 public class MensageiroApplication {
     public static void main(String[] args) {
         SpringApplication.run(MensageiroApplication.class, args);
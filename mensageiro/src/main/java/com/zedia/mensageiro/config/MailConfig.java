@@ -0,0 +1,86 @@
+package com.zedia.mensageiro.config;
+
+import com.zedia.mensageiro.mail.PooledJavaMailSender;
+import com.zedia.mensageiro.mail.SmtpTransportPool;
+import com.zedia.mensageiro.service.SendRateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    @Bean
+    public PooledJavaMailSender mailSender(MailProperties properties,
+                                           @Value("${app.mail.pool.max-size:8}") int maxSize,
+                                           @Value("${app.mail.pool.max-messages-per-connection:100}") int maxMessages,
+                                           @Value("${app.mail.pool.idle-timeout:30s}") Duration idleTimeout,
+                                           @Value("${app.mail.pool.validate-after-idle:2s}") Duration validateAfterIdle,
+                                           @Value("${app.mail.pool.borrow-timeout:10s}") Duration borrowTimeout,
+                                           Environment environment) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(maxSize, maxMessages, idleTimeout, validateAfterIdle, borrowTimeout);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // Uma thread de plataforma por conexão do pool: acima disso o envio esperaria no borrow de qualquer forma.
+            sender.setTransportExecutor(Executors.newFixedThreadPool(maxSize, new CustomizableThreadFactory("smtp-io-")));
+        }
+        sender.setHost(properties.getHost());
+        if (properties.getPort() != null) {
+            sender.setPort(properties.getPort());
+        }
+        sender.setUsername(properties.getUsername());
+        sender.setPassword(properties.getPassword());
+        sender.setProtocol(properties.getProtocol());
+        if (properties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+        }
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(properties.getProperties());
+        sender.setJavaMailProperties(javaMailProperties);
+        return sender;
+    }
+
+    @Bean
+    public MeterBinder smtpPoolMetrics(PooledJavaMailSender mailSender) {
+        SmtpTransportPool pool = mailSender.getPool();
+        return registry -> {
+            Gauge.builder("mail.smtp.pool.active", pool, SmtpTransportPool::getActive).register(registry);
+            Gauge.builder("mail.smtp.pool.idle", pool, SmtpTransportPool::getIdle).register(registry);
+            Gauge.builder("mail.smtp.pool.max", pool, SmtpTransportPool::getMaxSize).register(registry);
+            FunctionCounter.builder("mail.smtp.pool.created", pool, SmtpTransportPool::getCreated).register(registry);
+            FunctionCounter.builder("mail.smtp.pool.destroyed", pool, SmtpTransportPool::getDestroyed).register(registry);
+            FunctionCounter.builder("mail.smtp.pool.borrowed", pool, SmtpTransportPool::getBorrowed).register(registry);
+            FunctionCounter.builder("mail.smtp.pool.validation.failures", pool, SmtpTransportPool::getValidationFailures)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder sendRateLimitMetrics(SendRateLimiter limiter) {
+        return registry -> {
+            FunctionCounter.builder("mail.ratelimit.rejected", limiter, SendRateLimiter::getRejectedByUser)
+                    .tag("scope", "user").register(registry);
+            FunctionCounter.builder("mail.ratelimit.rejected", limiter, SendRateLimiter::getRejectedByCategory)
+                    .tag("scope", "category").register(registry);
+            FunctionCounter.builder("mail.ratelimit.deferred", limiter, SendRateLimiter::getDeferredToRelay)
+                    .register(registry);
+            FunctionCounter.builder("mail.ratelimit.paced", limiter, SendRateLimiter::getPacedSeconds)
+                    .baseUnit("seconds").register(registry);
+            FunctionCounter.builder("mail.ratelimit.campaign.delay", limiter, SendRateLimiter::getCampaignDelaySeconds)
+                    .baseUnit("seconds").register(registry);
+            Gauge.builder("mail.ratelimit.global.available", limiter, SendRateLimiter::relayAvailable).register(registry);
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.zedia.mensageiro.controller;
+
+import com.zedia.mensageiro.dto.Dtos.*;
+import com.zedia.mensageiro.service.DeadLetterService;
+import com.zedia.mensageiro.service.EmailExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin/emails")
+@RequiredArgsConstructor
+@Tag(name = "Admin", description = "Envios com falha e dead-letter (perfil ADMIN)")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminEmailController {
+
+    private final DeadLetterService deadLetterService;
+    private final EmailExportService emailExportService;
+
+    @GetMapping("/failed")
+    @Operation(summary = "Listar envios em DEAD_LETTER (padrão) ou FAILED, do mais recente ao mais antigo")
+    public ResponseEntity<FailedEmailPage> list(@RequestParam(required = false) String status,
+                                                @RequestParam(required = false) Long before,
+                                                @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(deadLetterService.list(status, before, size));
+    }
+
+    @PostMapping("/{id}/replay")
+    @Operation(summary = "Reenviar um envio em DEAD_LETTER ou FAILED")
+    public ResponseEntity<Void> replay(@PathVariable Long id) {
+        deadLetterService.replay(id);
+        return ResponseEntity.accepted().build();
+    }
+
+    @PostMapping("/dead-letter/replay")
+    @Operation(summary = "Reenviar todos os envios em DEAD_LETTER")
+    public ResponseEntity<ReplayResponse> replayAll() {
+        return ResponseEntity.accepted().body(new ReplayResponse(deadLetterService.replayAllDeadLetters()));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Exportar o histórico de envios de todos os usuários (ou de um, por senderId) em CSV ou JSON Lines")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip,
+                                                        @RequestParam(required = false) Long senderId,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        EmailExportService.Format parsed = EmailExportService.Format.parse(format);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, parsed.contentType(gzip))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(parsed.filename("envios-todos-" + LocalDate.now(), gzip)).build().toString())
+                .body(out -> emailExportService.export(senderId, from, to, parsed, gzip, out));
+    }
+}
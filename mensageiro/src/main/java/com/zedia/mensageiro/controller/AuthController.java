@@ -7,6 +7,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -28,4 +29,11 @@ public class AuthController {
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
         return ResponseEntity.ok(authService.login(request));
     }
-}
\ No newline at end of file
+
+    @PostMapping("/logout")
+    @Operation(summary = "Revogar os tokens do usuário autenticado")
+    public ResponseEntity<Void> logout(Authentication auth) {
+        authService.logout(auth);
+        return ResponseEntity.noContent().build();
+    }
+}
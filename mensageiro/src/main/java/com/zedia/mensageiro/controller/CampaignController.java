@@ -0,0 +1,46 @@
+package com.zedia.mensageiro.controller;
+
+import com.zedia.mensageiro.dto.Dtos.*;
+import com.zedia.mensageiro.service.CampaignService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/campaigns")
+@RequiredArgsConstructor
+@Tag(name = "Campaigns", description = "Envio em massa com personalização por destinatário")
+@SecurityRequirement(name = "bearerAuth")
+public class CampaignController {
+
+    private final CampaignService campaignService;
+
+    @PostMapping
+    @Operation(summary = "Criar campanha com variáveis por destinatário")
+    public ResponseEntity<CampaignResponse> create(@Valid @RequestBody CampaignRequest request, Authentication auth) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(campaignService.create(request, auth));
+    }
+
+    @PostMapping(value = "/upload", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Criar campanha a partir de CSV ou JSON Lines")
+    public ResponseEntity<CampaignResponse> upload(@RequestParam Long templateId,
+                                                   @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                   InputStream body, Authentication auth) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(campaignService.upload(templateId, contentType, body, auth));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Progresso da campanha")
+    public ResponseEntity<CampaignResponse> get(@PathVariable Long id, Authentication auth) {
+        return ResponseEntity.ok(campaignService.getProgress(id, auth));
+    }
+}
@@ -1,17 +1,28 @@
 package com.zedia.mensageiro.controller;
 
 import com.zedia.mensageiro.dto.Dtos.*;
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.service.CurrentUserService;
+import com.zedia.mensageiro.service.EmailEventStream;
+import com.zedia.mensageiro.service.EmailExportService;
 import com.zedia.mensageiro.service.EmailService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/emails")
@@ -21,16 +32,75 @@ import java.util.List;
 public class EmailController {
 
     private final EmailService emailService;
+    private final EmailEventStream emailEventStream;
+    private final EmailExportService emailExportService;
+    private final CurrentUserService currentUserService;
 
     @PostMapping("/send")
     @Operation(summary = "Enviar e-mail usando template")
     public ResponseEntity<EmailLogResponse> send(@Valid @RequestBody SendEmailRequest request, Authentication auth) {
-        return ResponseEntity.ok(emailService.sendEmail(request, auth));
+        EmailLogResponse response = emailService.sendEmail(request, auth);
+        HttpStatus status = EmailLog.EmailStatus.QUEUED.name().equals(response.getStatus()) ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(response);
+    }
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Eventos ao vivo dos envios do usuário (Server-Sent Events): status e progresso de campanha")
+    public SseEmitter events(Authentication auth) {
+        return emailEventStream.subscribe(currentUserService.get(auth).getId());
     }
 
     @GetMapping("/history")
-    @Operation(summary = "Histórico de e-mails enviados")
-    public ResponseEntity<List<EmailLogResponse>> history(Authentication auth) {
-        return ResponseEntity.ok(emailService.getHistory(auth));
+    @Operation(summary = "Histórico de e-mails enviados, paginado por cursor")
+    public ResponseEntity<EmailHistoryPage> history(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size,
+                                                    @RequestParam(required = false) String status,
+                                                    @RequestParam(required = false) Long templateId,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                    Authentication auth) {
+        return ResponseEntity.ok(emailService.getHistory(auth, cursor, size, status, templateId, from, to));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Exportar o histórico completo de envios em CSV ou JSON Lines, opcionalmente com gzip")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        Authentication auth) {
+        EmailExportService.Format parsed = EmailExportService.Format.parse(format);
+        Long senderId = currentUserService.get(auth).getId();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, parsed.contentType(gzip))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(parsed.filename("envios-" + LocalDate.now(), gzip)).build().toString())
+                .body(out -> emailExportService.export(senderId, from, to, parsed, gzip, out));
+    }
+
+    @GetMapping("/received")
+    @Operation(summary = "E-mails recebidos pelo usuário, do mais recente para o mais antigo")
+    public ResponseEntity<ReceivedEmailPage> received(@RequestParam(required = false) Long before,
+                                                      @RequestParam(defaultValue = "20") int size,
+                                                      Authentication auth) {
+        return ResponseEntity.ok(emailService.getReceived(auth, before, size));
+    }
+
+    @GetMapping("/received/{id}")
+    @Operation(summary = "Detalhe de um e-mail recebido")
+    public ResponseEntity<EmailLogResponse> getReceivedById(@PathVariable Long id, Authentication auth) {
+        return ResponseEntity.ok(emailService.getReceivedById(id, auth));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Totais de envio por status")
+    public ResponseEntity<EmailStatsResponse> stats(Authentication auth) {
+        return ResponseEntity.ok(emailService.getStats(auth));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Detalhe de um e-mail enviado")
+    public ResponseEntity<EmailLogResponse> getById(@PathVariable Long id, Authentication auth) {
+        return ResponseEntity.ok(emailService.getById(id, auth));
     }
-}
\ No newline at end of file
+}
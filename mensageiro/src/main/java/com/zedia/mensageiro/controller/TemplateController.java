@@ -1,12 +1,15 @@
 package com.zedia.mensageiro.controller;
 
 import com.zedia.mensageiro.dto.Dtos.*;
+import com.zedia.mensageiro.entity.Template;
+import com.zedia.mensageiro.service.TemplateCatalog;
 import com.zedia.mensageiro.service.TemplateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -31,13 +34,13 @@ public class TemplateController {
     @GetMapping("/mine")
     @Operation(summary = "Listar meus templates")
     public ResponseEntity<List<TemplateResponse>> listMine(Authentication auth) {
-        return ResponseEntity.ok(templateService.listMine(auth));
+        return withETag(templateService.listMine(auth));
     }
 
     @GetMapping
     @Operation(summary = "Listar todos os templates")
-    public ResponseEntity<List<TemplateResponse>> listAll() {
-        return ResponseEntity.ok(templateService.listAll());
+    public ResponseEntity<List<TemplateResponse>> listAll(@RequestParam(required = false) Template.TemplateCategory category) {
+        return withETag(templateService.listAll(category));
     }
 
     @GetMapping("/{id}")
@@ -58,4 +61,12 @@ public class TemplateController {
         templateService.delete(id, auth);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    // Com o ETag na resposta, o Spring devolve 304 sem serializar a lista quando o If-None-Match bate.
+    private ResponseEntity<List<TemplateResponse>> withETag(TemplateCatalog.View view) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(view.etag())
+                .body(view.templates());
+    }
+}
@@ -1,17 +1,20 @@
 package com.zedia.mensageiro.controller;
 
 import com.zedia.mensageiro.dto.Dtos.*;
+import com.zedia.mensageiro.entity.User;
 import com.zedia.mensageiro.repository.UserRepository;
+import com.zedia.mensageiro.service.CurrentUserService;
+import com.zedia.mensageiro.service.UserDirectory;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/users")
@@ -20,21 +23,40 @@ import java.util.stream.Collectors;
 @SecurityRequirement(name = "bearerAuth")
 public class UserController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final UserDirectory userDirectory;
 
     @GetMapping("/me")
     @Operation(summary = "Perfil do usuário autenticado")
     public ResponseEntity<UserResponse> me(Authentication auth) {
-        return userRepository.findByEmail(auth.getName())
-                .map(u -> ResponseEntity.ok(UserResponse.from(u)))
-                .orElse(ResponseEntity.notFound().build());
+        return ResponseEntity.ok(UserResponse.from(currentUserService.get(auth)));
     }
 
     @GetMapping
-    @Operation(summary = "Listar todos os usuários")
-    public ResponseEntity<List<UserResponse>> list(Authentication auth) {
-        List<UserResponse> users = userRepository.findAllByEmailNot(auth.getName())
-                .stream().map(UserResponse::from).collect(Collectors.toList());
-        return ResponseEntity.ok(users);
+    @Operation(summary = "Listar os usuários, paginado por id")
+    public ResponseEntity<UserPage> list(Authentication auth,
+                                         @RequestParam(defaultValue = "50") int size,
+                                         @RequestParam(required = false) Long after) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<User> rows = userRepository.findPageAfter(auth.getName(), after, PageRequest.ofSize(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<User> page = hasMore ? rows.subList(0, pageSize) : rows;
+        return ResponseEntity.ok(UserPage.builder()
+                .items(page.stream().map(UserResponse::from).toList())
+                .nextAfter(hasMore ? page.get(page.size() - 1).getId() : null)
+                .build());
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Buscar destinatários por início do nome ou do e-mail, sem acento")
+    public ResponseEntity<List<UserSuggestionResponse>> search(Authentication auth,
+                                                               @RequestParam String q,
+                                                               @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userDirectory.search(q, auth.getName(), limit).stream()
+                .map(e -> new UserSuggestionResponse(e.id(), e.name(), e.email()))
+                .toList());
     }
-}
\ No newline at end of file
+}
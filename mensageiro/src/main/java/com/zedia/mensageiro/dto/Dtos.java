@@ -1,17 +1,31 @@
 package com.zedia.mensageiro.dto;
 
+import com.zedia.mensageiro.entity.EmailLog;
 import com.zedia.mensageiro.entity.Template;
 import com.zedia.mensageiro.entity.User;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 
 public class Dtos {
 
+    /**
+     * Horários gravados sem fuso estão no fuso do servidor (o padrão da JVM). Na resposta vão em UTC, com o offset,
+     * para o navegador converter para o fuso do usuário em vez de ler como horário local.
+     */
+    public static OffsetDateTime utc(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toOffsetDateTime() : null;
+    }
+
     @Getter @Setter
     public static class RegisterRequest {
         @NotBlank String name;
@@ -39,15 +53,28 @@ public class Dtos {
         String name;
         String email;
         String role;
-        LocalDateTime createdAt;
+        OffsetDateTime createdAt;
 
         public static UserResponse from(User u) {
             return UserResponse.builder()
                     .id(u.getId()).name(u.getName()).email(u.getEmail())
-                    .role(u.getRole().name()).createdAt(u.getCreatedAt()).build();
+                    .role(u.getRole().name()).createdAt(utc(u.getCreatedAt())).build();
         }
     }
 
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class UserPage {
+        List<UserResponse> items;
+        Long nextAfter;
+    }
+
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class UserSuggestionResponse {
+        Long id;
+        String name;
+        String email;
+    }
+
     @Getter @Setter
     public static class TemplateRequest {
         @NotBlank String name;
@@ -65,15 +92,15 @@ public class Dtos {
         String body;
         String ownerName;
         String ownerEmail;
-        LocalDateTime createdAt;
-        LocalDateTime updatedAt;
+        OffsetDateTime createdAt;
+        OffsetDateTime updatedAt;
 
         public static TemplateResponse from(Template t) {
             return TemplateResponse.builder()
                     .id(t.getId()).name(t.getName()).category(t.getCategory().name())
                     .subject(t.getSubject()).body(t.getBody())
                     .ownerName(t.getOwner().getName()).ownerEmail(t.getOwner().getEmail())
-                    .createdAt(t.getCreatedAt()).updatedAt(t.getUpdatedAt()).build();
+                    .createdAt(utc(t.getCreatedAt())).updatedAt(utc(t.getUpdatedAt())).build();
         }
     }
 
@@ -82,6 +109,11 @@ public class Dtos {
         @NotNull Long templateId;
         @NotNull List<String> recipientEmails;
         Map<String, String> variables;
+        /**
+         * Opcional: grava o envio agora e só entrega a partir desse horário. Precisa do fuso (ISO-8601 com
+         * {@code Z} ou offset): um horário sem fuso seria lido no fuso do servidor, não no do usuário.
+         */
+        OffsetDateTime sendAt;
     }
 
     @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
@@ -91,8 +123,110 @@ public class Dtos {
         String body;
         List<String> recipients;
         String status;
-        LocalDateTime sentAt;
+        OffsetDateTime sentAt;
+        OffsetDateTime scheduledAt;
+        String senderName;
+        String templateName;
+
+        public static EmailLogResponse from(EmailLog log) {
+            return EmailLogResponse.builder()
+                    .id(log.getId()).subject(log.getSubject()).body(log.getBody())
+                    .recipients(log.getRecipientEmails()).status(log.getStatus().name()).sentAt(utc(log.getSentAt()))
+                    .scheduledAt(utc(log.getScheduledAt()))
+                    .senderName(log.getSender().getName())
+                    .templateName(log.getTemplate() != null ? log.getTemplate().getName() : null).build();
+        }
+    }
+
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class EmailLogSummaryResponse {
+        Long id;
+        String subject;
+        List<String> recipients;
+        String status;
+        OffsetDateTime sentAt;
+        OffsetDateTime scheduledAt;
+        String templateName;
+        String errorMessage;
+    }
+
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class EmailHistoryPage {
+        List<EmailLogSummaryResponse> items;
+        String nextCursor;
+    }
+
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class ReceivedEmailResponse {
+        Long id;
+        String subject;
         String senderName;
+        String senderEmail;
+        String templateName;
+        OffsetDateTime sentAt;
+    }
+
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class ReceivedEmailPage {
+        List<ReceivedEmailResponse> items;
+        Long nextBefore;
+    }
+
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class EmailStatsResponse {
+        long total;
+        long queued;
+        long sending;
+        long sent;
+        long failed;
+        long deadLetter;
+    }
+
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class FailedEmailResponse {
+        Long id;
+        String subject;
+        String senderEmail;
+        String status;
+        int attempts;
+        OffsetDateTime sentAt;
+        String errorMessage;
+    }
+
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class FailedEmailPage {
+        List<FailedEmailResponse> items;
+        Long nextBefore;
+    }
+
+    @Getter @Setter @AllArgsConstructor @NoArgsConstructor
+    public static class ReplayResponse {
+        int replayed;
+    }
+
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor
+    public static class CampaignRecipient {
+        @Email @NotBlank String email;
+        Map<String, String> variables;
+    }
+
+    @Getter @Setter
+    public static class CampaignRequest {
+        @NotNull Long templateId;
+        Map<String, String> variables;
+        @NotEmpty List<@Valid CampaignRecipient> recipients;
+    }
+
+    @Getter @Setter @Builder @AllArgsConstructor @NoArgsConstructor
+    public static class CampaignResponse {
+        Long id;
         String templateName;
+        int totalRecipients;
+        long queued;
+        long sending;
+        long sent;
+        long failed;
+        long deadLetter;
+        OffsetDateTime createdAt;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package com.zedia.mensageiro.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Corpo renderizado de e-mail, comprimido com gzip e endereçado pelo SHA-256 do texto: envios com o mesmo corpo
+ * (um aviso para toda a empresa, uma campanha sem variáveis por destinatário) apontam para a mesma linha.
+ * <p>
+ * A gravação é um upsert nativo ({@code EmailBodyRepository.upsertAll}), não um {@code persist}: se dois nós
+ * gravam o mesmo corpo ao mesmo tempo, o segundo não falha, só atualiza o {@code last_used_at}, e a linha que
+ * fica é idêntica.
+ * <p>
+ * Nenhuma linha aponta para cá com chave estrangeira: o {@code EmailBodyStore} apaga os corpos que nenhum log e
+ * nenhum arquivo referenciam mais e que não foram usados há {@code app.retention.body-grace}.
+ */
+@Entity
+@Table(name = "email_bodies")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class EmailBody {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Lob
+    @Column(nullable = false, length = 16_777_215)
+    private byte[] content;
+
+    /** Tamanho do corpo sem compressão, em caracteres. */
+    @Column(nullable = false)
+    private int size;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Última gravação de um log com este corpo. A coleta só apaga corpos parados há algum tempo, então um envio
+     * que achou o hash e ainda não fez commit não perde o corpo. {@code null} nas linhas de antes da coluna.
+     */
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+}
@@ -2,16 +2,31 @@ package com.zedia.mensageiro.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * Um envio. O id vem de sequência com alocação em blocos de 50 (no MySQL, uma tabela {@code email_logs_seq}
+ * lida uma vez por bloco): com {@code IDENTITY} o Hibernate precisa do insert para saber o id e desliga o
+ * agrupamento de inserts em lote, então cada log, destinatário e linha da outbox seria uma ida ao banco.
+ */
 @Entity
-@Table(name = "email_logs")
+@Table(name = "email_logs", indexes = {
+        @Index(name = "idx_email_logs_sender_sent", columnList = "sender_id, sent_at, id"),
+        @Index(name = "idx_email_logs_status", columnList = "status, id"),
+        @Index(name = "idx_email_logs_sent_at", columnList = "sent_at, id"),
+        @Index(name = "idx_email_logs_body_hash", columnList = "body_hash")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class EmailLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_logs_seq")
+    @SequenceGenerator(name = "email_logs_seq", sequenceName = "email_logs_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -22,28 +37,80 @@ public class EmailLog {
     @JoinColumn(name = "template_id")
     private Template template;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "campaign_id")
+    private Campaign campaign;
+
     @Column(nullable = false)
     private String subject;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
+    /**
+     * Corpo renderizado, só em memória: é gravado em {@link EmailBody} e o log guarda o {@link #bodyHash}. Nos
+     * logs lidos do banco fica vazio até alguém resolver o corpo pelo {@code EmailBodyStore}.
+     */
+    @Transient
     private String body;
 
-    @ElementCollection
-    @CollectionTable(name = "email_recipients", joinColumns = @JoinColumn(name = "email_log_id"))
-    @Column(name = "recipient_email")
-    private List<String> recipients;
+    @Column(name = "body_hash", length = 64)
+    private String bodyHash;
+
+    /**
+     * Corpo gravado no próprio log, de antes dos corpos compartilhados. {@code null} nos logs novos e depois que
+     * a retenção move o corpo para {@link EmailLogArchive}.
+     */
+    @Column(name = "body", columnDefinition = "TEXT")
+    private String inlineBody;
+
+    @OneToMany(mappedBy = "emailLog", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    @Builder.Default
+    private List<EmailRecipient> recipients = new ArrayList<>();
 
     @Enumerated(EnumType.STRING)
-    @Column(nullable = false)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
     private EmailStatus status;
 
     @Column(name = "sent_at")
     private LocalDateTime sentAt;
 
+    /** Envio agendado: a linha da outbox só fica disponível para o relay a partir daqui. */
+    @Column(name = "scheduled_at")
+    private LocalDateTime scheduledAt;
+
     @Column(name = "error_message")
     private String errorMessage;
 
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    /** Adiciona um destinatário por endereço, com o status atual do log. */
+    public void addRecipients(Collection<String> emails) {
+        for (String email : emails) {
+            recipients.add(EmailRecipient.builder().emailLog(this).email(email).status(status).build());
+        }
+    }
+
+    public List<String> getRecipientEmails() {
+        return recipients.stream().map(EmailRecipient::getEmail).toList();
+    }
+
+    /**
+     * Destinatários ainda na fila: todos no primeiro envio, só os que falharam por motivo temporário numa nova
+     * tentativa, e todos que não receberam depois de um reenvio manual.
+     */
+    public List<String> getPendingRecipientEmails() {
+        return recipients.stream()
+                .filter(r -> r.getStatus() != EmailStatus.SENT && r.getStatus() != EmailStatus.FAILED
+                        && r.getStatus() != EmailStatus.DEAD_LETTER)
+                .map(EmailRecipient::getEmail)
+                .toList();
+    }
+
     public enum EmailStatus {
-        SENT, FAILED
+        QUEUED, SENDING, SENT, FAILED, DEAD_LETTER
     }
 }
\ No newline at end of file
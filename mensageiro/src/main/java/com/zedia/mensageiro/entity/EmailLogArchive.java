@@ -0,0 +1,50 @@
+package com.zedia.mensageiro.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Corpo de um envio antigo, comprimido com gzip, fora de {@code email_logs}. A chave leva o mês do envio
+ * ({@code yyyyMM}) para a tabela poder ser particionada por mês no MySQL: sem chaves estrangeiras e com a
+ * coluna de partição na chave primária, apagar um mês inteiro vira {@code DROP PARTITION}.
+ * <p>
+ * Envios com corpo compartilhado não copiam o corpo: a linha guarda só o {@link #bodyHash}, e o corpo continua
+ * em {@code email_bodies} enquanto alguma linha apontar para ele.
+ */
+@Entity
+@Table(name = "email_log_archive", indexes = {
+        @Index(name = "idx_email_log_archive_month", columnList = "archive_month"),
+        @Index(name = "idx_email_log_archive_body_hash", columnList = "body_hash")
+})
+@IdClass(EmailLogArchive.Key.class)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class EmailLogArchive {
+
+    @Id
+    @Column(name = "email_log_id")
+    private Long emailLogId;
+
+    @Id
+    @Column(name = "archive_month")
+    private int archiveMonth;
+
+    /** Corpo comprimido dos envios de antes dos corpos compartilhados; {@code null} quando há {@link #bodyHash}. */
+    @Lob
+    @Column(length = 16_777_215)
+    private byte[] body;
+
+    @Column(name = "body_hash", length = 64)
+    private String bodyHash;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long emailLogId;
+        private int archiveMonth;
+    }
+}
@@ -0,0 +1,36 @@
+package com.zedia.mensageiro.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Um destinatário de um envio, com o próprio status de entrega. O id vem de sequência com alocação em
+ * blocos (e não de {@code IDENTITY}), para o Hibernate agrupar os inserts dos destinatários em lote.
+ */
+@Entity
+@Table(name = "email_log_recipients", indexes = {
+        @Index(name = "idx_email_log_recipients_email", columnList = "recipient_email, email_log_id"),
+        @Index(name = "idx_email_log_recipients_log", columnList = "email_log_id")
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class EmailRecipient {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_log_recipients_seq")
+    @SequenceGenerator(name = "email_log_recipients_seq", sequenceName = "email_log_recipients_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "email_log_id", nullable = false)
+    private EmailLog emailLog;
+
+    @Column(name = "recipient_email", nullable = false)
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private EmailLog.EmailStatus status;
+}
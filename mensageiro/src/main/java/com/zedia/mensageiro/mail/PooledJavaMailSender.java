@@ -0,0 +1,153 @@
+package com.zedia.mensageiro.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * {@link JavaMailSenderImpl} que reaproveita conexões SMTP de um {@link SmtpTransportPool} em vez de
+ * abrir, autenticar e encerrar uma conexão a cada {@code send}.
+ * <p>
+ * Com um {@linkplain #setTransportExecutor executor de transporte}, o diálogo SMTP roda nas threads dele e
+ * a thread chamadora só espera o resultado. O {@code SMTPTransport} do Angus Mail faz I/O dentro de métodos
+ * {@code synchronized}, o que prende a carrier de uma virtual thread durante todo o envio no JDK 21.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private final SmtpTransportPool pool;
+    private ExecutorService transportExecutor;
+
+    public PooledJavaMailSender(int maxSize, int maxMessagesPerConnection, Duration idleTimeout,
+                                Duration validateAfterIdle, Duration borrowTimeout) {
+        this.pool = new SmtpTransportPool(this::connectTransport, maxSize, maxMessagesPerConnection,
+                idleTimeout, validateAfterIdle, borrowTimeout);
+    }
+
+    public SmtpTransportPool getPool() {
+        return pool;
+    }
+
+    public void setTransportExecutor(ExecutorService transportExecutor) {
+        this.transportExecutor = transportExecutor;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        if (transportExecutor == null) {
+            sendPooled(mimeMessages, originalMessages);
+            return;
+        }
+        Future<?> future = transportExecutor.submit(() -> sendPooled(mimeMessages, originalMessages));
+        try {
+            future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof MailException mailException) {
+                throw mailException;
+            }
+            throw new MailSendException("Mail send failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while sending mail", ex);
+        }
+    }
+
+    /**
+     * Envia o lote por uma conexão do pool. Uma recusa de destinatário ({@link SendFailedException}, como um
+     * {@code 550}) é falha só daquela mensagem e a conexão segue em uso. Um erro de I/O ou de protocolo descarta
+     * a conexão e as mensagens restantes seguem por outra; se nem essa abrir, todas as restantes falham.
+     */
+    private void sendPooled(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        SmtpTransportPool.PooledTransport transport = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessage;
+                Address[] addresses;
+                try {
+                    addresses = prepare(mimeMessage);
+                } catch (MessagingException ex) {
+                    failedMessages.put(original, ex);
+                    continue;
+                }
+                if (transport == null) {
+                    try {
+                        transport = pool.borrow();
+                    } catch (AuthenticationFailedException ex) {
+                        throw new MailAuthenticationException(ex);
+                    } catch (Exception ex) {
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        throw new MailSendException("Mail server connection failed", ex, failedMessages);
+                    }
+                }
+                try {
+                    transport.getTransport().sendMessage(mimeMessage, addresses);
+                    transport.messageSent();
+                } catch (SendFailedException ex) {
+                    failedMessages.put(original, ex);
+                    if (!transport.getTransport().isConnected()) {
+                        pool.release(transport, true);
+                        transport = null;
+                    }
+                } catch (Exception ex) {
+                    failedMessages.put(original, ex);
+                    pool.release(transport, true);
+                    transport = null;
+                }
+            }
+        } finally {
+            if (transport != null) {
+                pool.release(transport, false);
+            }
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    private static Address[] prepare(MimeMessage mimeMessage) throws MessagingException {
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            mimeMessage.setHeader("Message-ID", messageId);
+        }
+        Address[] addresses = mimeMessage.getAllRecipients();
+        return addresses != null ? addresses : new Address[0];
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.pool.evict-interval-ms:10000}")
+    public void evictIdleConnections() {
+        pool.evictIdle();
+    }
+
+    @Override
+    public void destroy() {
+        if (transportExecutor != null) {
+            transportExecutor.shutdown();
+        }
+        pool.close();
+    }
+}
@@ -0,0 +1,192 @@
+package com.zedia.mensageiro.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool limitado de conexões SMTP já autenticadas. Conexões ociosas são reaproveitadas em ordem LIFO,
+ * validadas com NOOP quando ficaram paradas por mais que {@code validateAfterIdle} e descartadas depois
+ * de {@code maxMessagesPerConnection} mensagens ou de {@code idleTimeout} sem uso.
+ */
+public class SmtpTransportPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    @FunctionalInterface
+    public interface Connector {
+        Transport connect() throws MessagingException;
+    }
+
+    private final Connector connector;
+    private final int maxSize;
+    private final int maxMessagesPerConnection;
+    private final long idleTimeoutNanos;
+    private final long validateAfterIdleNanos;
+    private final long borrowTimeoutNanos;
+
+    private final Semaphore permits;
+    private final Deque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+
+    public SmtpTransportPool(Connector connector, int maxSize, int maxMessagesPerConnection,
+                             Duration idleTimeout, Duration validateAfterIdle, Duration borrowTimeout) {
+        this.connector = connector;
+        this.maxSize = maxSize;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.validateAfterIdleNanos = validateAfterIdle.toNanos();
+        this.borrowTimeoutNanos = borrowTimeout.toNanos();
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public PooledTransport borrow() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new MessagingException("Timed out waiting for a pooled SMTP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted waiting for a pooled SMTP connection", e);
+        }
+        try {
+            PooledTransport transport;
+            while ((transport = idle.pollFirst()) != null) {
+                if (isUsable(transport)) {
+                    borrowed.incrementAndGet();
+                    return transport;
+                }
+                destroy(transport);
+            }
+            transport = new PooledTransport(connector.connect());
+            created.incrementAndGet();
+            borrowed.incrementAndGet();
+            return transport;
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devolve a conexão ao pool. Conexões que falharam durante o envio voltam com {@code broken = true} e
+     * são fechadas, já que o estado da sessão SMTP não é mais confiável.
+     */
+    public void release(PooledTransport transport, boolean broken) {
+        try {
+            if (broken || transport.getMessagesSent() >= maxMessagesPerConnection) {
+                destroy(transport);
+            } else {
+                transport.touch();
+                idle.offerFirst(transport);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (PooledTransport transport : idle) {
+            if (now - transport.getLastUsedNanos() > idleTimeoutNanos && idle.remove(transport)) {
+                destroy(transport);
+            }
+        }
+    }
+
+    public void close() {
+        PooledTransport transport;
+        while ((transport = idle.pollFirst()) != null) {
+            destroy(transport);
+        }
+    }
+
+    private boolean isUsable(PooledTransport transport) {
+        long idleFor = System.nanoTime() - transport.getLastUsedNanos();
+        if (idleFor > idleTimeoutNanos) return false;
+        if (idleFor < validateAfterIdleNanos) return true;
+        // SMTPTransport.isConnected() envia um NOOP ao servidor
+        if (transport.getTransport().isConnected()) return true;
+        validationFailures.incrementAndGet();
+        return false;
+    }
+
+    private void destroy(PooledTransport transport) {
+        destroyed.incrementAndGet();
+        try {
+            transport.getTransport().close();
+        } catch (MessagingException e) {
+            logger.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActive() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public long getCreated() {
+        return created.get();
+    }
+
+    public long getDestroyed() {
+        return destroyed.get();
+    }
+
+    public long getBorrowed() {
+        return borrowed.get();
+    }
+
+    public long getValidationFailures() {
+        return validationFailures.get();
+    }
+
+    public static class PooledTransport {
+        private final Transport transport;
+        private volatile long lastUsedNanos = System.nanoTime();
+        private int messagesSent;
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        public Transport getTransport() {
+            return transport;
+        }
+
+        public int getMessagesSent() {
+            return messagesSent;
+        }
+
+        public void messageSent() {
+            messagesSent++;
+        }
+
+        long getLastUsedNanos() {
+            return lastUsedNanos;
+        }
+
+        void touch() {
+            lastUsedNanos = System.nanoTime();
+        }
+    }
+}
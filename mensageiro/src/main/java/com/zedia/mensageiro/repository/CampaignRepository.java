@@ -0,0 +1,7 @@
+package com.zedia.mensageiro.repository;
+
+import com.zedia.mensageiro.entity.Campaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CampaignRepository extends JpaRepository<Campaign, Long> {
+}
@@ -0,0 +1,45 @@
+package com.zedia.mensageiro.repository;
+
+import com.zedia.mensageiro.entity.EmailBody;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface EmailBodyRepository extends JpaRepository<EmailBody, String>, EmailBodyRepositoryCustom {
+
+    @Query("select b.hash from EmailBody b where b.hash in :hashes")
+    Set<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    /** Devolve quantos corpos ainda existiam: um a menos que {@code hashes} é um corpo que a coleta apagou. */
+    @Transactional
+    @Modifying
+    @Query("update EmailBody b set b.lastUsedAt = :now where b.hash in :hashes")
+    int touch(@Param("hashes") Collection<String> hashes, @Param("now") LocalDateTime now);
+
+    /** Corpos parados desde antes de {@code unusedSince} que nenhum log e nenhum arquivo referenciam. */
+    @Query("""
+            select b.hash from EmailBody b
+            where coalesce(b.lastUsedAt, b.createdAt) < :unusedSince
+              and not exists (select l.id from EmailLog l where l.bodyHash = b.hash)
+              and not exists (select a.emailLogId from EmailLogArchive a where a.bodyHash = b.hash)""")
+    List<String> findUnreferenced(@Param("unusedSince") LocalDateTime unusedSince, Pageable pageable);
+
+    /** Apaga os corpos de {@code hashes} conferindo de novo, no próprio delete, que continuam sem referência. */
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from EmailBody b
+            where b.hash in :hashes
+              and coalesce(b.lastUsedAt, b.createdAt) < :unusedSince
+              and not exists (select l.id from EmailLog l where l.bodyHash = b.hash)
+              and not exists (select a.emailLogId from EmailLogArchive a where a.bodyHash = b.hash)""")
+    int deleteUnreferenced(@Param("hashes") Collection<String> hashes, @Param("unusedSince") LocalDateTime unusedSince);
+}
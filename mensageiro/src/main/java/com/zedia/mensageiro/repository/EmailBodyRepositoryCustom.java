@@ -0,0 +1,14 @@
+package com.zedia.mensageiro.repository;
+
+import com.zedia.mensageiro.entity.EmailBody;
+
+import java.util.Collection;
+
+public interface EmailBodyRepositoryCustom {
+
+    /**
+     * Grava os corpos num lote JDBC. Um hash que já existe (outro nó gravou antes, ou a linha voltou depois de
+     * uma coleta) não falha: só tem o {@code last_used_at} atualizado.
+     */
+    void upsertAll(Collection<EmailBody> bodies);
+}
@@ -0,0 +1,40 @@
+package com.zedia.mensageiro.repository;
+
+import com.zedia.mensageiro.entity.EmailBody;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Collection;
+
+/**
+ * Upsert nativo com parâmetros nomeados: não depende da ordem em que o Hibernate ligaria os parâmetros de um
+ * {@code @SQLInsert}. Roda pelo JDBC na conexão da transação JPA, então entra no mesmo commit que os logs.
+ */
+@RequiredArgsConstructor
+public class EmailBodyRepositoryImpl implements EmailBodyRepositoryCustom {
+
+    static final String UPSERT = """
+            insert into email_bodies (hash, content, size, created_at, last_used_at)
+            values (:hash, :content, :size, :createdAt, :lastUsedAt)
+            on duplicate key update last_used_at = :lastUsedAt""";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public void upsertAll(Collection<EmailBody> bodies) {
+        if (bodies.isEmpty()) return;
+        jdbc.batchUpdate(UPSERT, bodies.stream().map(EmailBodyRepositoryImpl::parameters)
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    static SqlParameterSource parameters(EmailBody body) {
+        return new MapSqlParameterSource()
+                .addValue("hash", body.getHash())
+                .addValue("content", body.getContent())
+                .addValue("size", body.getSize())
+                .addValue("createdAt", body.getCreatedAt())
+                .addValue("lastUsedAt", body.getLastUsedAt());
+    }
+}
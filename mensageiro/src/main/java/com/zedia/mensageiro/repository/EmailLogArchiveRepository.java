@@ -0,0 +1,26 @@
+package com.zedia.mensageiro.repository;
+
+import com.zedia.mensageiro.entity.EmailLogArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface EmailLogArchiveRepository extends JpaRepository<EmailLogArchive, EmailLogArchive.Key> {
+
+    Optional<EmailLogArchive> findByEmailLogId(Long emailLogId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EmailLogArchive a where a.emailLogId = :emailLogId")
+    int deleteByEmailLogId(@Param("emailLogId") Long emailLogId);
+
+    /** Política de retenção: apaga os corpos arquivados dos meses anteriores a {@code month} ({@code yyyyMM}). */
+    @Transactional
+    @Modifying
+    @Query("delete from EmailLogArchive a where a.archiveMonth < :month")
+    int deleteMonthsBefore(@Param("month") int month);
+}
@@ -1,10 +1,192 @@
 package com.zedia.mensageiro.repository;
 
 import com.zedia.mensageiro.entity.EmailLog;
-import com.zedia.mensageiro.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface EmailLogRepository extends JpaRepository<EmailLog, Long> {
-    List<EmailLog> findBySenderOrderBySentAtDesc(User sender);
-}
\ No newline at end of file
+    @Query("""
+            select l.id as id, l.subject as subject, l.status as status, l.sentAt as sentAt,
+                   l.scheduledAt as scheduledAt, l.errorMessage as errorMessage, t.name as templateName
+            from EmailLog l left join l.template t
+            where l.sender.id = :senderId
+              and (:status is null or l.status = :status)
+              and (:templateId is null or t.id = :templateId)
+              and (:from is null or l.sentAt >= :from)
+              and (:to is null or l.sentAt < :to)
+              and (:cursorSentAt is null or l.sentAt < :cursorSentAt
+                   or (l.sentAt = :cursorSentAt and l.id < :cursorId))
+            order by l.sentAt desc, l.id desc""")
+    List<EmailLogSummary> findHistoryPage(@Param("senderId") Long senderId,
+                                          @Param("status") EmailLog.EmailStatus status,
+                                          @Param("templateId") Long templateId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          @Param("cursorSentAt") LocalDateTime cursorSentAt,
+                                          @Param("cursorId") Long cursorId,
+                                          Pageable pageable);
+
+    @Query("select r.emailLog.id as emailLogId, r.email as email from EmailRecipient r where r.emailLog.id in :ids order by r.id")
+    List<RecipientRow> findRecipientsByEmailLogIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select l.status as status, count(l) as total from EmailLog l where l.sender.id = :senderId group by l.status")
+    List<StatusCount> countBySenderGroupByStatus(@Param("senderId") Long senderId);
+
+    @EntityGraph(attributePaths = {"sender", "template", "recipients"})
+    Optional<EmailLog> findByIdAndSenderId(Long id, Long senderId);
+
+    /** Detalhe de um envio para um destinatário que o recebeu. */
+    @EntityGraph(attributePaths = {"sender", "template", "recipients"})
+    @Query("""
+            select l from EmailLog l
+            where l.id = :id and exists (
+                select 1 from EmailRecipient r
+                where r.emailLog = l and r.email = :email
+                  and r.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.SENT)""")
+    Optional<EmailLog> findReceived(@Param("id") Long id, @Param("email") String email);
+
+    @Query("select l.status as status, count(l) as total from EmailLog l where l.campaign.id = :campaignId group by l.status")
+    List<StatusCount> countByCampaignGroupByStatus(@Param("campaignId") Long campaignId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailLog l
+            set l.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.SENDING
+            where l.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.QUEUED
+              and l.id in (select o.emailLog.id from OutboxMessage o where o.claimToken = :token)""")
+    int markSendingByClaimToken(@Param("token") String token);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailLog l
+            set l.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.SENT, l.errorMessage = null,
+                l.attempts = l.attempts + 1, l.nextAttemptAt = null
+            where l.id in :ids""")
+    int markSent(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailLog l
+            set l.status = :status, l.errorMessage = :errorMessage,
+                l.attempts = l.attempts + 1, l.nextAttemptAt = null
+            where l.id = :id""")
+    int complete(@Param("id") Long id, @Param("status") EmailLog.EmailStatus status,
+                 @Param("errorMessage") String errorMessage);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailLog l
+            set l.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.QUEUED, l.errorMessage = :errorMessage,
+                l.attempts = l.attempts + 1, l.nextAttemptAt = :nextAttemptAt
+            where l.id = :id""")
+    int reschedule(@Param("id") Long id, @Param("errorMessage") String errorMessage,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    /** Volta para a fila um envio que já foi tentado e terminou em FAILED ou DEAD_LETTER. */
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailLog l
+            set l.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.QUEUED, l.errorMessage = null,
+                l.attempts = 0, l.nextAttemptAt = null
+            where l.id = :id and l.attempts > 0
+              and l.status in (com.zedia.mensageiro.entity.EmailLog$EmailStatus.FAILED,
+                               com.zedia.mensageiro.entity.EmailLog$EmailStatus.DEAD_LETTER)""")
+    int requeue(@Param("id") Long id);
+
+    @Query("""
+            select l.id as id, l.subject as subject, l.status as status, l.sentAt as sentAt,
+                   l.errorMessage as errorMessage, l.attempts as attempts, s.email as senderEmail
+            from EmailLog l join l.sender s
+            where l.status = :status and (:beforeId is null or l.id < :beforeId)
+            order by l.id desc""")
+    List<FailedEmail> findByStatusBefore(@Param("status") EmailLog.EmailStatus status,
+                                         @Param("beforeId") Long beforeId, Pageable pageable);
+
+    /**
+     * Envios concluídos em {@code [from, to)} que ainda têm corpo no próprio log, gravado nele ou compartilhado
+     * ({@code body_hash}), do mais antigo para o mais novo, pelo índice de {@code sent_at}.
+     */
+    @Query("""
+            select l.id as id, l.sentAt as sentAt, l.inlineBody as body, l.bodyHash as bodyHash
+            from EmailLog l
+            where l.sentAt >= :from and l.sentAt < :to and (l.inlineBody is not null or l.bodyHash is not null)
+              and l.status in (com.zedia.mensageiro.entity.EmailLog$EmailStatus.SENT,
+                               com.zedia.mensageiro.entity.EmailLog$EmailStatus.FAILED,
+                               com.zedia.mensageiro.entity.EmailLog$EmailStatus.DEAD_LETTER)
+            order by l.sentAt, l.id""")
+    List<ArchivableBody> findArchivable(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                        Pageable pageable);
+
+    /** Tira o corpo dos envios já arquivados, se continuam concluídos (um reenvio no meio do caminho fica com o corpo). */
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailLog l set l.inlineBody = null, l.bodyHash = null
+            where l.id in :ids
+              and l.status in (com.zedia.mensageiro.entity.EmailLog$EmailStatus.SENT,
+                               com.zedia.mensageiro.entity.EmailLog$EmailStatus.FAILED,
+                               com.zedia.mensageiro.entity.EmailLog$EmailStatus.DEAD_LETTER)""")
+    int clearBodies(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update EmailLog l set l.inlineBody = :body where l.id = :id")
+    int restoreBody(@Param("id") Long id, @Param("body") String body);
+
+    @Transactional
+    @Modifying
+    @Query("update EmailLog l set l.bodyHash = :hash where l.id = :id")
+    int restoreBodyHash(@Param("id") Long id, @Param("hash") String hash);
+
+    interface EmailLogSummary {
+        Long getId();
+        String getSubject();
+        EmailLog.EmailStatus getStatus();
+        LocalDateTime getSentAt();
+        LocalDateTime getScheduledAt();
+        String getErrorMessage();
+        String getTemplateName();
+    }
+
+    interface FailedEmail {
+        Long getId();
+        String getSubject();
+        EmailLog.EmailStatus getStatus();
+        LocalDateTime getSentAt();
+        String getErrorMessage();
+        int getAttempts();
+        String getSenderEmail();
+    }
+
+    interface RecipientRow {
+        Long getEmailLogId();
+        String getEmail();
+    }
+
+    interface StatusCount {
+        EmailLog.EmailStatus getStatus();
+        long getTotal();
+    }
+
+    interface ArchivableBody {
+        Long getId();
+        LocalDateTime getSentAt();
+        String getBody();
+        String getBodyHash();
+    }
+}
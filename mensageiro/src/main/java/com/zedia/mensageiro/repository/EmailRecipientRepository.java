@@ -0,0 +1,74 @@
+package com.zedia.mensageiro.repository;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.EmailRecipient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailRecipientRepository extends JpaRepository<EmailRecipient, Long> {
+
+    /** Caixa de entrada: percorre o índice (recipient_email, email_log_id) do mais recente para trás. */
+    @Query("""
+            select l.id as id, l.subject as subject, s.name as senderName, s.email as senderEmail,
+                   t.name as templateName, l.sentAt as sentAt
+            from EmailRecipient r join r.emailLog l join l.sender s left join l.template t
+            where r.email = :email
+              and r.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.SENT
+              and (:beforeId is null or r.emailLog.id < :beforeId)
+            order by r.emailLog.id desc""")
+    List<ReceivedEmail> findReceived(@Param("email") String email, @Param("beforeId") Long beforeId,
+                                     Pageable pageable);
+
+    /** Quem do bloco já tem envio na campanha: destinatários repetidos no arquivo só recebem uma vez. */
+    @Query("select r.email from EmailRecipient r where r.emailLog.campaign.id = :campaignId and r.email in :emails")
+    List<String> findEmailsInCampaign(@Param("campaignId") Long campaignId, @Param("emails") Collection<String> emails);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailRecipient r set r.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.SENT
+            where r.emailLog.id in :logIds
+              and r.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.QUEUED""")
+    int markSent(@Param("logIds") Collection<Long> logIds);
+
+    /** Para um envio que volta para a fila: só quem recebeu nesta tentativa sai dela. */
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailRecipient r set r.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.SENT
+            where r.emailLog.id = :logId and r.email in :emails
+              and r.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.QUEUED""")
+    int markSent(@Param("logId") Long logId, @Param("emails") Collection<String> emails);
+
+    @Transactional
+    @Modifying
+    @Query("update EmailRecipient r set r.status = :status where r.emailLog.id = :logId and r.email in :emails")
+    int markFailed(@Param("logId") Long logId, @Param("emails") Collection<String> emails,
+                   @Param("status") EmailLog.EmailStatus status);
+
+    /** Volta para a fila quem ainda não recebeu, para o reenvio ir só para esses. */
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailRecipient r set r.status = com.zedia.mensageiro.entity.EmailLog$EmailStatus.QUEUED
+            where r.emailLog.id = :logId
+              and r.status <> com.zedia.mensageiro.entity.EmailLog$EmailStatus.SENT""")
+    int requeue(@Param("logId") Long logId);
+
+    interface ReceivedEmail {
+        Long getId();
+        String getSubject();
+        String getSenderName();
+        String getSenderEmail();
+        String getTemplateName();
+        LocalDateTime getSentAt();
+    }
+}
@@ -0,0 +1,37 @@
+package com.zedia.mensageiro.repository;
+
+import com.zedia.mensageiro.entity.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    @Query("select o.id from OutboxMessage o where o.availableAt <= :now order by o.availableAt, o.id")
+    List<Long> findClaimableIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update OutboxMessage o
+            set o.claimToken = :token, o.availableAt = :leaseUntil
+            where o.id in :ids and o.availableAt <= :now""")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage o set o.claimToken = null, o.availableAt = :availableAt where o.id = :id")
+    int reschedule(@Param("id") Long id, @Param("availableAt") LocalDateTime availableAt);
+
+    @EntityGraph(attributePaths = {"emailLog", "emailLog.recipients"})
+    List<OutboxMessage> findByClaimToken(String claimToken);
+}
@@ -2,11 +2,25 @@ package com.zedia.mensageiro.repository;
 
 import com.zedia.mensageiro.entity.Template;
 import com.zedia.mensageiro.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
+import java.util.Optional;
 
 public interface TemplateRepository extends JpaRepository<Template, Long> {
     List<Template> findByOwner(User owner);
     List<Template> findByOwnerOrderByCreatedAtDesc(User owner);
     List<Template> findByCategory(Template.TemplateCategory category);
-}
\ No newline at end of file
+
+    @EntityGraph(attributePaths = "owner")
+    List<Template> findAllByOrderByCreatedAtDesc();
+
+    @EntityGraph(attributePaths = "owner")
+    List<Template> findByOwnerIdOrderByCreatedAtDesc(Long ownerId);
+
+    @EntityGraph(attributePaths = "owner")
+    List<Template> findByCategoryOrderByCreatedAtDesc(Template.TemplateCategory category);
+
+    @EntityGraph(attributePaths = "owner")
+    Optional<Template> findWithOwnerById(Long id);
+}
@@ -1,12 +1,64 @@
 package com.zedia.mensageiro.repository;
 
 import com.zedia.mensageiro.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    int EMAIL_LOOKUP_CHUNK = 1000;
+
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
-    List<User> findAllByEmailNot(String email);
-}
\ No newline at end of file
+
+    /** Página da listagem de usuários, por id crescente, a partir de {@code after} (exclusivo). */
+    @Query("select u from User u where u.email <> :email and (:after is null or u.id > :after) order by u.id")
+    List<User> findPageAfter(@Param("email") String excludeEmail, @Param("after") Long after, Pageable pageable);
+
+    /** Carga em blocos do {@code UserDirectory}, só com o que o índice usa. */
+    @Query("select u.id as id, u.name as name, u.email as email from User u where u.id > :after order by u.id")
+    List<DirectoryEntry> findDirectoryAfter(@Param("after") long after, Pageable pageable);
+
+    /** Troca o hash só se ele ainda for {@code current}, para não desfazer uma troca de senha concorrente. */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id and u.password = :current")
+    int updatePassword(@Param("id") Long id, @Param("current") String current, @Param("password") String password);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findEmailsIn(@Param("emails") Collection<String> emails);
+
+    /**
+     * Retorna, na ordem recebida, os e-mails que não pertencem a nenhum usuário. Espera endereços já
+     * normalizados (minúsculos) e consulta em blocos de {@link #EMAIL_LOOKUP_CHUNK} para não estourar o
+     * limite de parâmetros do driver em listas muito grandes.
+     */
+    default Set<String> findUnknownEmails(Collection<String> emails) {
+        Set<String> unknown = new LinkedHashSet<>(emails);
+        List<String> all = new ArrayList<>(unknown);
+        for (int from = 0; from < all.size(); from += EMAIL_LOOKUP_CHUNK) {
+            List<String> chunk = all.subList(from, Math.min(from + EMAIL_LOOKUP_CHUNK, all.size()));
+            for (String found : findEmailsIn(chunk)) {
+                unknown.remove(found.toLowerCase(Locale.ROOT));
+            }
+        }
+        return unknown;
+    }
+
+    interface DirectoryEntry {
+        Long getId();
+        String getName();
+        String getEmail();
+    }
+}
@@ -0,0 +1,32 @@
+package com.zedia.mensageiro.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.security.Principal;
+
+/**
+ * Principal montado a partir das claims do JWT, sem consulta ao banco. {@link #getName()} devolve o
+ * e-mail, então {@code Authentication.getName()} continua funcionando como antes.
+ */
+@Getter
+@RequiredArgsConstructor
+public class AuthenticatedUser implements Principal {
+
+    private final Long id;
+    private final String email;
+    private final String role;
+
+    static AuthenticatedUser from(Claims claims) {
+        Number id = claims.get(JwtUtil.USER_ID_CLAIM, Number.class);
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+        if (id == null || role == null || claims.getSubject() == null) return null;
+        return new AuthenticatedUser(id.longValue(), claims.getSubject(), role);
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,53 +1,107 @@
 package com.zedia.mensageiro.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.zedia.mensageiro.entity.User;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 
 @Component
-public class JwtUtil {
+public class JwtUtil implements MeterBinder {
 
-    @Value("${app.jwt.secret}")
-    private String secret;
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
 
-    @Value("${app.jwt.expiration}")
-    private long expiration;
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final long expiration;
+    private final Cache<String, Claims> validated;
 
-    private SecretKey getKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    public JwtUtil(@Value("${app.jwt.secret}") String secret,
+                   @Value("${app.jwt.expiration}") long expiration,
+                   @Value("${app.jwt.cache-size:10000}") long cacheSize) {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.expiration = expiration;
+        this.validated = cacheSize > 0
+                ? Caffeine.newBuilder().maximumSize(cacheSize).expireAfter(new UntilTokenExpires()).recordStats().build()
+                : null;
     }
 
-    public String generateToken(String email) {
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (validated != null) CaffeineCacheMetrics.monitor(registry, validated, "jwt.claims");
+    }
+
+    public String generateToken(User user) {
         return Jwts.builder()
-                .subject(email)
+                .subject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getKey())
+                .signWith(key)
                 .compact();
     }
 
+    /**
+     * Verifica assinatura e expiração uma única vez e devolve as claims. Tokens já validados ficam em
+     * cache (pelo hash do token) até o seu {@code exp}, então requisições seguintes do mesmo cliente
+     * não repetem a verificação HMAC.
+     *
+     * @throws JwtException se o token for inválido ou estiver expirado
+     */
+    public Claims validate(String token) {
+        if (validated == null) return parser.parseSignedClaims(token).getPayload();
+        String cacheKey = hash(token);
+        Claims claims = validated.getIfPresent(cacheKey);
+        if (claims != null && claims.getExpiration().after(new Date())) return claims;
+        claims = parser.parseSignedClaims(token).getPayload();
+        validated.put(cacheKey, claims);
+        return claims;
+    }
+
     public String extractEmail(String token) {
-        return Jwts.parser().verifyWith(getKey()).build()
-                .parseSignedClaims(token).getPayload().getSubject();
+        return validate(token).getSubject();
     }
 
-    public boolean isValid(String token, UserDetails userDetails) {
+    private static String hash(String token) {
         try {
-            String email = extractEmail(token);
-            return email.equals(userDetails.getUsername()) && !isExpired(token);
-        } catch (Exception e) {
-            return false;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
-    private boolean isExpired(String token) {
-        return Jwts.parser().verifyWith(getKey()).build()
-                .parseSignedClaims(token).getPayload().getExpiration().before(new Date());
+    private static class UntilTokenExpires implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return Math.max(0, millis) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.zedia.mensageiro.security;
+
+import com.zedia.mensageiro.service.ServerBusyException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hash e verificação de senhas fora das threads de requisição. Cada BCrypt custa dezenas de milissegundos de CPU;
+ * num pico de logins, feito na thread do Tomcat, ele prende todas as threads e o resto da API espera atrás. Aqui
+ * os hashes rodam num executor próprio, com uma thread por núcleo ({@code app.auth.hash.threads}) e uma fila
+ * curta, de {@code app.auth.hash.queue-per-thread} pedidos por thread; com a fila cheia o pedido é recusado na
+ * hora com {@link ServerBusyException}, em vez de esperar segundos por um hash que o cliente já desistiu de receber.
+ */
+@Component
+public class PasswordHasher implements MeterBinder {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final PasswordEncoder encoder;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    /** Comparado quando o e-mail não existe, para a resposta levar o mesmo tempo de uma senha errada. */
+    private final String unknownUserHash;
+
+    public PasswordHasher(PasswordEncoder encoder,
+                          @Value("${app.auth.bcrypt-strength:10}") int strength,
+                          @Value("${app.auth.hash.threads:0}") int threads,
+                          @Value("${app.auth.hash.queue-per-thread:4}") int queuePerThread) {
+        this.encoder = encoder;
+        this.strength = strength;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(size * Math.max(1, queuePerThread)),
+                new CustomizableThreadFactory("password-hash-"));
+        this.unknownUserHash = encoder.encode("unknown-user");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        Gauge.builder("auth.password.hash.queued", executor, e -> e.getQueue().size()).register(registry);
+        FunctionCounter.builder("auth.password.hash.rejected", rejected, LongAdder::sum).register(registry);
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    /** {@code encodedPassword} nulo (usuário inexistente) sempre dá {@code false}, no tempo de um hash. */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return submit(() -> {
+                encoder.matches(rawPassword, unknownUserHash);
+                return false;
+            });
+        }
+        return submit(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /** Se o hash foi gerado com um custo diferente do configurado e deve ser refeito no próximo login. */
+    public boolean needsRehash(String encodedPassword) {
+        // Formato BCrypt: $2a$10$<salt+hash>
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> hash) {
+        try {
+            return CompletableFuture.supplyAsync(hash, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServerBusyException("Servidor ocupado autenticando outros usuários", RETRY_AFTER);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,35 @@
+package com.zedia.mensageiro.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Revogação em memória: tokens de um usuário emitidos antes do instante registrado são recusados.
+ * A entrada só precisa viver enquanto algum token antigo ainda puder estar válido, por isso expira
+ * junto com o tempo de vida do JWT.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final Cache<Long, Long> revokedBefore;
+
+    public TokenRevocationList(@Value("${app.jwt.expiration}") long expiration) {
+        this.revokedBefore = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(expiration))
+                .build();
+    }
+
+    public void revokeAll(Long userId) {
+        revokedBefore.put(userId, System.currentTimeMillis() / 1000 * 1000);
+    }
+
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        Long cutoff = revokedBefore.getIfPresent(userId);
+        return cutoff != null && (issuedAt == null || issuedAt.getTime() < cutoff);
+    }
+}
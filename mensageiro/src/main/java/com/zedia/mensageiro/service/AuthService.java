@@ -4,46 +4,123 @@ import com.zedia.mensageiro.dto.Dtos.*;
 import com.zedia.mensageiro.entity.User;
 import com.zedia.mensageiro.repository.UserRepository;
 import com.zedia.mensageiro.security.JwtUtil;
+import com.zedia.mensageiro.security.PasswordHasher;
+import com.zedia.mensageiro.security.TokenRevocationList;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Registro e login. Os hashes de senha rodam no {@link PasswordHasher}; a thread da requisição só espera o
+ * resultado, parada, e grava o usuário ela mesma. Assim as threads do executor de hash fazem só BCrypt e um banco
+ * lento não atrasa os hashes de outros logins. Como o executor recusa pedidos com a fila cheia, no máximo
+ * {@code threads × (1 + queue-per-thread)} requisições ficam esperando um hash ao mesmo tempo.
+ */
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
+    private final CurrentUserService currentUserService;
+    private final TokenRevocationList revocationList;
+    private final UserDirectory userDirectory;
 
+    /**
+     * E-mail repetido é detectado pela restrição única de {@code users.email}, sem consulta prévia. Outras
+     * violações de integridade seguem como erro interno.
+     */
     public AuthResponse register(RegisterRequest request) {
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new IllegalArgumentException("E-mail já cadastrado");
-        }
+        String hash = await(passwordHasher.encode(request.getPassword()));
         User user = User.builder()
                 .name(request.getName())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(hash)
                 .role(User.Role.USER)
                 .build();
-        userRepository.save(user);
-        String token = jwtUtil.generateToken(user.getEmail());
-        return AuthResponse.builder()
-                .token(token).email(user.getEmail())
-                .name(user.getName()).role(user.getRole().name()).build();
+        try {
+            user = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e, request.getEmail())) {
+                throw new IllegalArgumentException("E-mail já cadastrado");
+            }
+            throw e;
+        }
+        userDirectory.add(user);
+        return toResponse(user);
     }
 
     public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
-        User user = userRepository.findByEmail(request.getEmail()).orElseThrow();
-        String token = jwtUtil.generateToken(user.getEmail());
+        User user = userRepository.findByEmail(request.getEmail()).orElse(null);
+        boolean matched = await(passwordHasher.matches(request.getPassword(), user == null ? null : user.getPassword()));
+        if (!matched) {
+            throw new BadCredentialsException("Credenciais inválidas");
+        }
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            rehash(user, request.getPassword());
+        }
+        return toResponse(user);
+    }
+
+    /**
+     * Regrava o hash com o custo configurado agora. Acontece uma vez por usuário depois de uma troca de custo; se
+     * o executor estiver cheio ou a gravação falhar, fica para o próximo login.
+     */
+    private void rehash(User user, String rawPassword) {
+        try {
+            String hash = await(passwordHasher.encode(rawPassword));
+            userRepository.updatePassword(user.getId(), user.getPassword(), hash);
+        } catch (ServerBusyException e) {
+            logger.debug("Password rehash of user {} postponed: hash executor is full", user.getId());
+        } catch (RuntimeException e) {
+            logger.warn("Could not rehash the password of user {}", user.getId(), e);
+        }
+    }
+
+    /**
+     * A restrição tem nome fixo ({@link User#EMAIL_CONSTRAINT}); numa base criada antes dela o nome gerado pelo
+     * Hibernate não bate, e aí uma consulta confirma, só neste caminho de erro.
+     */
+    private boolean isDuplicateEmail(DataIntegrityViolationException e, String email) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName() : null;
+        if (constraint == null) constraint = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        if (constraint != null && constraint.toLowerCase(Locale.ROOT).contains(User.EMAIL_CONSTRAINT)) return true;
+        return userRepository.existsByEmail(email);
+    }
+
+    /** Espera o hash sem ocupar o executor e devolve a exceção original, sem o {@link CompletionException}. */
+    private static <T> T await(CompletableFuture<T> hash) {
+        try {
+            return hash.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    public void logout(Authentication auth) {
+        User user = currentUserService.get(auth);
+        revocationList.revokeAll(user.getId());
+        currentUserService.evict(user.getId());
+    }
+
+    private AuthResponse toResponse(User user) {
         return AuthResponse.builder()
-                .token(token).email(user.getEmail())
+                .token(jwtUtil.generateToken(user)).email(user.getEmail())
                 .name(user.getName()).role(user.getRole().name()).build();
     }
-}
\ No newline at end of file
+}
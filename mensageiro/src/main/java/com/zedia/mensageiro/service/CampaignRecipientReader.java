@@ -0,0 +1,132 @@
+package com.zedia.mensageiro.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zedia.mensageiro.dto.Dtos.CampaignRecipient;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lê destinatários de campanha linha a linha, sem carregar o arquivo inteiro em memória.
+ * CSV: a primeira linha é o cabeçalho, com a coluna {@code email} e uma coluna por variável.
+ * JSON Lines: um objeto {@code {"email": ..., "variables": {...}}} por linha.
+ */
+class CampaignRecipientReader implements Iterator<CampaignRecipient> {
+
+    enum Format { CSV, JSON_LINES }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private List<String> header;
+    private int lineNumber;
+    private CampaignRecipient next;
+
+    CampaignRecipientReader(BufferedReader reader, Format format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) next = readNext();
+        return next != null;
+    }
+
+    @Override
+    public CampaignRecipient next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        CampaignRecipient current = next;
+        next = null;
+        return current;
+    }
+
+    private CampaignRecipient readNext() {
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.isBlank()) continue;
+            if (format == Format.JSON_LINES) return parseJson(line);
+            if (header == null) {
+                header = parseCsvHeader(line);
+                continue;
+            }
+            return parseCsv(line);
+        }
+        return null;
+    }
+
+    private String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) lineNumber++;
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CampaignRecipient parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, CampaignRecipient.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Linha " + lineNumber + " inválida: " + e.getOriginalMessage());
+        }
+    }
+
+    private List<String> parseCsvHeader(String line) {
+        List<String> columns = splitCsv(line);
+        if (columns.isEmpty() || !"email".equalsIgnoreCase(columns.get(0).trim())) {
+            throw new IllegalArgumentException("A primeira coluna do CSV deve ser 'email'");
+        }
+        return columns;
+    }
+
+    private CampaignRecipient parseCsv(String line) {
+        List<String> values = splitCsv(line);
+        if (values.size() > header.size()) {
+            throw new IllegalArgumentException("Linha " + lineNumber + " inválida: colunas a mais que o cabeçalho");
+        }
+        Map<String, String> variables = new HashMap<>();
+        for (int i = 1; i < values.size(); i++) {
+            variables.put(header.get(i).trim(), values.get(i));
+        }
+        return new CampaignRecipient(values.get(0).trim(), variables);
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
@@ -0,0 +1,229 @@
+package com.zedia.mensageiro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zedia.mensageiro.dto.Dtos;
+import com.zedia.mensageiro.dto.Dtos.*;
+import com.zedia.mensageiro.entity.Campaign;
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.Template;
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.repository.CampaignRepository;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import com.zedia.mensageiro.repository.EmailRecipientRepository;
+import com.zedia.mensageiro.repository.TemplateRepository;
+import com.zedia.mensageiro.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class CampaignService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CampaignService.class);
+
+    private final CampaignRepository campaignRepository;
+    private final EmailLogRepository emailLogRepository;
+    private final EmailRecipientRepository recipientRepository;
+    private final TemplateRepository templateRepository;
+    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final TemplateRenderer templateRenderer;
+    private final EmailOutbox emailOutbox;
+    private final SendRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.mail.campaign.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.template.strict-variables:false}")
+    private boolean strictVariables;
+
+    public CampaignResponse create(CampaignRequest request, Authentication auth) {
+        return enqueue(request.getTemplateId(), request.getVariables(), request.getRecipients().iterator(), auth);
+    }
+
+    /**
+     * O arquivo é lido e validado inteiro antes do primeiro envio: as linhas vão para um arquivo temporário em
+     * JSON Lines e só então são enfileiradas. Uma linha inválida no meio do arquivo recusa a campanha toda, sem
+     * deixar as linhas anteriores na fila, e a memória continua independente do tamanho da lista.
+     */
+    public CampaignResponse upload(Long templateId, String contentType, InputStream body, Authentication auth) {
+        CampaignRecipientReader.Format format = contentType != null && contentType.startsWith("text/csv")
+                ? CampaignRecipientReader.Format.CSV
+                : CampaignRecipientReader.Format.JSON_LINES;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Path staged = stage(new CampaignRecipientReader(reader, format, objectMapper));
+        try (BufferedReader stagedReader = Files.newBufferedReader(staged, StandardCharsets.UTF_8)) {
+            return enqueue(templateId, null, new CampaignRecipientReader(stagedReader,
+                    CampaignRecipientReader.Format.JSON_LINES, objectMapper), auth);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException e) {
+                logger.warn("Could not delete staged campaign file {}", staged, e);
+            }
+        }
+    }
+
+    public CampaignResponse getProgress(Long id, Authentication auth) {
+        User user = currentUserService.get(auth);
+        Campaign campaign = campaignRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Campanha não encontrada"));
+        if (!campaign.getSender().getId().equals(user.getId())) {
+            throw new IllegalStateException("Sem permissão para acessar esta campanha");
+        }
+        return toResponse(campaign);
+    }
+
+    /** Progresso sem checagem de dono, para o {@link EmailEventStream}, que só envia ao dono da campanha. */
+    @Transactional(readOnly = true)
+    public Optional<CampaignResponse> progress(Long id) {
+        return campaignRepository.findById(id).map(this::toResponse);
+    }
+
+    private CampaignResponse enqueue(Long templateId, Map<String, String> sharedVariables,
+                                     Iterator<CampaignRecipient> recipients, Authentication auth) {
+        User sender = currentUserService.get(auth);
+        Template template = templateRepository.findById(templateId)
+                .orElseThrow(() -> new IllegalArgumentException("Template não encontrado"));
+        Campaign campaign = campaignRepository.save(Campaign.builder().sender(sender).template(template).build());
+
+        // Repetidos no mesmo bloco ficam no mapa; os de blocos anteriores são encontrados no banco em queueChunk.
+        Map<String, CampaignRecipient> chunk = new LinkedHashMap<>();
+        int total = 0;
+        try {
+            while (recipients.hasNext()) {
+                CampaignRecipient recipient = recipients.next();
+                if (recipient.getEmail() == null || recipient.getEmail().isBlank()) continue;
+                recipient.setEmail(recipient.getEmail().trim().toLowerCase(Locale.ROOT));
+                chunk.putIfAbsent(recipient.getEmail(), recipient);
+                if (chunk.size() >= chunkSize) {
+                    total += queueChunk(campaign, sender, template, sharedVariables, chunk);
+                    chunk.clear();
+                }
+            }
+            total += queueChunk(campaign, sender, template, sharedVariables, chunk);
+        } finally {
+            campaign.setTotalRecipients(total);
+            campaignRepository.save(campaign);
+            logger.info("Campaign {} from {} queued {} recipients", campaign.getId(), sender.getEmail(), total);
+        }
+        return toResponse(campaign);
+    }
+
+    private int queueChunk(Campaign campaign, User sender, Template template,
+                           Map<String, String> sharedVariables, Map<String, CampaignRecipient> chunk) {
+        if (chunk.isEmpty()) return 0;
+        recipientRepository.findEmailsInCampaign(campaign.getId(), chunk.keySet()).forEach(chunk::remove);
+        if (chunk.isEmpty()) return 0;
+        Set<String> unknown = userRepository.findUnknownEmails(chunk.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailLog> logs = new ArrayList<>(chunk.size());
+        for (CampaignRecipient recipient : chunk.values()) {
+            RenderedTemplate rendered = templateRenderer.render(template, merge(sharedVariables, recipient.getVariables()));
+            EmailLog log = EmailLog.builder()
+                    .sender(sender)
+                    .template(template)
+                    .campaign(campaign)
+                    .subject(rendered.getSubject())
+                    .body(rendered.getBody())
+                    .status(EmailLog.EmailStatus.QUEUED)
+                    .sentAt(now)
+                    .build();
+            if (unknown.contains(recipient.getEmail())) {
+                log.setStatus(EmailLog.EmailStatus.FAILED);
+                log.setErrorMessage("Usuário não encontrado");
+            } else if (strictVariables && rendered.hasUnresolved()) {
+                log.setStatus(EmailLog.EmailStatus.FAILED);
+                log.setErrorMessage("Variáveis não informadas: " + String.join(", ", rendered.getUnresolved()));
+            }
+            log.addRecipients(List.of(recipient.getEmail()));
+            logs.add(log);
+        }
+        // Campanha não recebe 429 no meio do arquivo: o bloco é cobrado do limite do usuário e da categoria e,
+        // se a cota acabou, entra na fila para quando couber no ritmo.
+        int queued = (int) logs.stream().filter(l -> l.getStatus() == EmailLog.EmailStatus.QUEUED).count();
+        Duration delay = rateLimiter.reserveCampaign(sender.getId(), template.getCategory(), queued);
+        emailOutbox.enqueueAll(logs, delay.isZero() ? null : now.plus(delay));
+        return chunk.size();
+    }
+
+    /** Lê o arquivo inteiro, validando cada linha, e grava os destinatários num arquivo temporário. */
+    private Path stage(Iterator<CampaignRecipient> recipients) {
+        Path staged;
+        try {
+            staged = Files.createTempFile("campaign-", ".jsonl");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(staged, StandardCharsets.UTF_8)) {
+            while (recipients.hasNext()) {
+                writer.write(objectMapper.writeValueAsString(recipients.next()));
+                writer.newLine();
+            }
+            return staged;
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof IOException io) throw new UncheckedIOException(io);
+            throw (RuntimeException) e;
+        }
+    }
+
+    private static Map<String, String> merge(Map<String, String> shared, Map<String, String> personal) {
+        if (personal == null || personal.isEmpty()) return shared;
+        if (shared == null || shared.isEmpty()) return personal;
+        Map<String, String> merged = new HashMap<>(shared);
+        merged.putAll(personal);
+        return merged;
+    }
+
+    private CampaignResponse toResponse(Campaign campaign) {
+        Map<EmailLog.EmailStatus, Long> counts = new HashMap<>();
+        for (EmailLogRepository.StatusCount count : emailLogRepository.countByCampaignGroupByStatus(campaign.getId())) {
+            counts.put(count.getStatus(), count.getTotal());
+        }
+        return CampaignResponse.builder()
+                .id(campaign.getId())
+                .templateName(campaign.getTemplate() != null ? campaign.getTemplate().getName() : null)
+                .totalRecipients(campaign.getTotalRecipients())
+                .queued(counts.getOrDefault(EmailLog.EmailStatus.QUEUED, 0L))
+                .sending(counts.getOrDefault(EmailLog.EmailStatus.SENDING, 0L))
+                .sent(counts.getOrDefault(EmailLog.EmailStatus.SENT, 0L))
+                .failed(counts.getOrDefault(EmailLog.EmailStatus.FAILED, 0L))
+                .deadLetter(counts.getOrDefault(EmailLog.EmailStatus.DEAD_LETTER, 0L))
+                .createdAt(Dtos.utc(campaign.getCreatedAt()))
+                .build();
+    }
+}
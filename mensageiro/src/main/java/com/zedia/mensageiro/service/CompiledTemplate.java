@@ -0,0 +1,66 @@
+package com.zedia.mensageiro.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Texto de template já quebrado em trechos literais e slots {@code {{variavel}}}.
+ * {@code literals} tem sempre um elemento a mais que {@code names}: o texto é
+ * {@code literals[0] + names[0] + literals[1] + ... + literals[n]}.
+ */
+public final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals;
+    private final String[] names;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    public static CompiledTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            int open = text.indexOf(OPEN, from);
+            int close = open < 0 ? -1 : text.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) break;
+            open = text.lastIndexOf(OPEN, close - OPEN.length());
+            literals.add(text.substring(from, open));
+            names.add(text.substring(open + OPEN.length(), close));
+            from = close + CLOSE.length();
+        }
+        literals.add(text.substring(from));
+        return new CompiledTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    public String render(Map<String, String> variables, Collection<String> unresolved) {
+        if (names.length == 0) return literals[0];
+        String[] values = new String[names.length];
+        int length = literalLength;
+        for (int i = 0; i < names.length; i++) {
+            String value = variables != null ? variables.get(names[i]) : null;
+            if (value == null) {
+                unresolved.add(names[i]);
+                value = OPEN + names[i] + CLOSE;
+            }
+            values[i] = value;
+            length += value.length();
+        }
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]).append(values[i]);
+        }
+        return out.append(literals[names.length]).toString();
+    }
+}
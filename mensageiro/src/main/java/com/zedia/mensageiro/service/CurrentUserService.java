@@ -0,0 +1,57 @@
+package com.zedia.mensageiro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.repository.UserRepository;
+import com.zedia.mensageiro.security.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Resolve o {@link User} da requisição pelo id que já vem no JWT, com um cache curto para que várias
+ * chamadas na mesma janela não voltem ao banco.
+ */
+@Service
+public class CurrentUserService {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, User> usersById;
+
+    public CurrentUserService(UserRepository userRepository,
+                              @Value("${app.security.user-cache-ttl:60s}") Duration ttl,
+                              @Value("${app.security.user-cache-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.usersById = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).build();
+    }
+
+    public User get(Authentication auth) {
+        User user = auth.getPrincipal() instanceof AuthenticatedUser principal
+                ? byId(principal.getId())
+                : userRepository.findByEmail(auth.getName()).orElse(null);
+        if (user == null) {
+            throw new IllegalArgumentException("Usuário não encontrado");
+        }
+        return user;
+    }
+
+    // Carrega fora do Cache.get: o loader rodaria dentro do lock do ConcurrentHashMap, e uma consulta JDBC
+    // ali prende a carrier quando a requisição roda em virtual thread. Duas cargas simultâneas são inofensivas.
+    private User byId(Long id) {
+        User user = usersById.getIfPresent(id);
+        if (user == null) {
+            user = userRepository.findById(id).orElse(null);
+            if (user != null) {
+                usersById.put(id, user);
+            }
+        }
+        return user;
+    }
+
+    public void evict(Long userId) {
+        usersById.invalidate(userId);
+    }
+}
@@ -0,0 +1,85 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.dto.Dtos;
+import com.zedia.mensageiro.dto.Dtos.*;
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Consulta e reenvio, pelo administrador, dos envios que terminaram em {@code DEAD_LETTER} (tentativas
+ * esgotadas) ou {@code FAILED} (falha permanente).
+ */
+@Service
+@RequiredArgsConstructor
+public class DeadLetterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int REPLAY_CHUNK = 200;
+
+    private final EmailLogRepository emailLogRepository;
+    private final EmailOutbox emailOutbox;
+
+    public FailedEmailPage list(String status, Long before, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<EmailLogRepository.FailedEmail> rows = emailLogRepository.findByStatusBefore(
+                parseStatus(status), before, PageRequest.ofSize(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<EmailLogRepository.FailedEmail> page = hasMore ? rows.subList(0, pageSize) : rows;
+        return FailedEmailPage.builder()
+                .items(page.stream().map(DeadLetterService::toResponse).toList())
+                .nextBefore(hasMore ? page.get(page.size() - 1).getId() : null)
+                .build();
+    }
+
+    public void replay(Long id) {
+        if (!emailOutbox.replay(id)) {
+            throw new IllegalArgumentException("E-mail não encontrado ou não está disponível para reenvio");
+        }
+        logger.info("Email {} replayed by an administrator", id);
+    }
+
+    public int replayAllDeadLetters() {
+        int replayed = 0;
+        Long before = null;
+        List<EmailLogRepository.FailedEmail> rows;
+        do {
+            rows = emailLogRepository.findByStatusBefore(EmailLog.EmailStatus.DEAD_LETTER, before,
+                    PageRequest.ofSize(REPLAY_CHUNK));
+            for (EmailLogRepository.FailedEmail row : rows) {
+                if (emailOutbox.replay(row.getId())) replayed++;
+                before = row.getId();
+            }
+        } while (rows.size() == REPLAY_CHUNK);
+        logger.info("{} dead-letter emails replayed by an administrator", replayed);
+        return replayed;
+    }
+
+    private static EmailLog.EmailStatus parseStatus(String status) {
+        if (status == null || status.isBlank()) return EmailLog.EmailStatus.DEAD_LETTER;
+        String normalized = status.trim().toUpperCase(Locale.ROOT);
+        if (normalized.equals(EmailLog.EmailStatus.FAILED.name())) return EmailLog.EmailStatus.FAILED;
+        if (normalized.equals(EmailLog.EmailStatus.DEAD_LETTER.name())) return EmailLog.EmailStatus.DEAD_LETTER;
+        throw new IllegalArgumentException("Status inválido: " + status);
+    }
+
+    private static FailedEmailResponse toResponse(EmailLogRepository.FailedEmail row) {
+        return FailedEmailResponse.builder()
+                .id(row.getId())
+                .subject(row.getSubject())
+                .senderEmail(row.getSenderEmail())
+                .status(row.getStatus().name())
+                .attempts(row.getAttempts())
+                .sentAt(Dtos.utc(row.getSentAt()))
+                .errorMessage(row.getErrorMessage())
+                .build();
+    }
+}
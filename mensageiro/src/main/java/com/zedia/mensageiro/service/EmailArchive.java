@@ -0,0 +1,106 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLogArchive;
+import com.zedia.mensageiro.repository.EmailBodyRepository;
+import com.zedia.mensageiro.repository.EmailLogArchiveRepository;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Armazenamento frio dos corpos de e-mail. {@code email_logs} guarda o corpo só enquanto o envio é recente; a
+ * {@link EmailLogRetention} move os antigos para {@code email_log_archive}, comprimidos, e as leituras de
+ * detalhe buscam aqui quando o corpo do log está vazio. Corpos compartilhados não são copiados: o arquivo guarda
+ * o hash, e o corpo sai de {@code email_bodies} quando a última referência é apagada.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailArchive {
+
+    private final EmailLogRepository emailLogRepository;
+    private final EmailLogArchiveRepository archiveRepository;
+    private final EmailBodyRepository bodyRepository;
+
+    /** Corpo de um envio já arquivado: o comprimido no arquivo ou o compartilhado para onde ele aponta. */
+    public Optional<String> findBody(Long emailLogId) {
+        return archiveRepository.findByEmailLogId(emailLogId).flatMap(archived -> archived.getBody() != null
+                ? Optional.of(decompress(archived.getBody()))
+                : bodyRepository.findById(archived.getBodyHash()).map(stored -> decompress(stored.getContent())));
+    }
+
+    /**
+     * Comprime e arquiva os corpos gravados no log (ou só o hash, nos compartilhados) e só então os tira de
+     * {@code email_logs}, na mesma transação.
+     */
+    @Transactional
+    public int archive(List<EmailLogRepository.ArchivableBody> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailLogArchive> archived = new ArrayList<>(rows.size());
+        for (EmailLogRepository.ArchivableBody row : rows) {
+            archived.add(EmailLogArchive.builder()
+                    .emailLogId(row.getId())
+                    .archiveMonth(month(row.getSentAt()))
+                    .body(row.getBody() != null ? compress(row.getBody()) : null)
+                    .bodyHash(row.getBody() != null ? null : row.getBodyHash())
+                    .archivedAt(now)
+                    .build());
+        }
+        archiveRepository.saveAll(archived);
+        return emailLogRepository.clearBodies(rows.stream().map(EmailLogRepository.ArchivableBody::getId).toList());
+    }
+
+    /** Devolve o corpo ao log antes de um reenvio. Não faz nada se o corpo nunca saiu de {@code email_logs}. */
+    @Transactional
+    public void restore(Long emailLogId) {
+        archiveRepository.findByEmailLogId(emailLogId).ifPresent(archived -> {
+            if (archived.getBody() != null) {
+                emailLogRepository.restoreBody(emailLogId, decompress(archived.getBody()));
+            } else {
+                emailLogRepository.restoreBodyHash(emailLogId, archived.getBodyHash());
+                bodyRepository.touch(List.of(archived.getBodyHash()), LocalDateTime.now());
+            }
+            archiveRepository.deleteByEmailLogId(emailLogId);
+        });
+    }
+
+    /** Apaga os corpos arquivados de envios anteriores ao mês de {@code before}. */
+    @Transactional
+    public int purge(LocalDateTime before) {
+        return archiveRepository.deleteMonthsBefore(month(before));
+    }
+
+    static int month(LocalDateTime sentAt) {
+        return sentAt.getYear() * 100 + sentAt.getMonthValue();
+    }
+
+    static byte[] compress(String body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, body.length() / 3));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static String decompress(byte[] body) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.zedia.mensageiro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zedia.mensageiro.entity.EmailBody;
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.repository.EmailBodyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Corpos de e-mail endereçados por conteúdo. Na gravação, cada corpo distinto vira uma linha comprimida de
+ * {@code email_bodies} e o log guarda só o SHA-256; um aviso para mil destinatários ou uma campanha sem variáveis
+ * por destinatário grava o corpo uma vez. Na leitura, os corpos mais usados ficam num cache em memória, então o
+ * relay enviando uma campanha não relê nem descomprime o mesmo corpo a cada lote.
+ * <p>
+ * Como vários logs e arquivos apontam para a mesma linha, ela não é apagada junto com eles: {@link #collect}
+ * apaga os corpos que ficaram sem referência, chamado pela {@link EmailLogRetention} depois de apagar arquivos.
+ */
+@Component
+public class EmailBodyStore implements MeterBinder {
+
+    private final EmailBodyRepository bodyRepository;
+    private final EmailArchive emailArchive;
+    private final Cache<String, String> bodies;
+
+    public EmailBodyStore(EmailBodyRepository bodyRepository, EmailArchive emailArchive,
+                          @Value("${app.mail.body-cache-size:1000}") long cacheSize) {
+        this.bodyRepository = bodyRepository;
+        this.emailArchive = emailArchive;
+        this.bodies = Caffeine.newBuilder().maximumSize(cacheSize).recordStats().build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, bodies, "email.body");
+    }
+
+    /**
+     * Preenche o {@code bodyHash} dos logs e grava os corpos que ainda não existem. Deve rodar na transação que
+     * grava os logs, para log e corpo entrarem juntos.
+     */
+    public void store(Collection<EmailLog> logs) {
+        Map<String, String> byHash = new LinkedHashMap<>();
+        for (EmailLog log : logs) {
+            if (log.getBody() == null) continue;
+            String hash = hash(log.getBody());
+            log.setBodyHash(hash);
+            byHash.putIfAbsent(hash, log.getBody());
+        }
+        if (byHash.isEmpty()) return;
+        Set<String> existing = bodyRepository.findExistingHashes(byHash.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        // Marca o uso na mesma transação: a coleta não apaga um corpo que este commit vai referenciar. Se ela
+        // apagou algum entre a busca e o touch, o touch conta menos linhas e os corpos achados são regravados; o
+        // upsert só atualiza os que continuam lá.
+        if (!existing.isEmpty() && bodyRepository.touch(existing, now) < existing.size()) {
+            existing = Set.of();
+        }
+        Set<String> present = existing;
+        List<EmailBody> fresh = new ArrayList<>();
+        byHash.forEach((hash, body) -> {
+            if (!present.contains(hash)) {
+                fresh.add(EmailBody.builder()
+                        .hash(hash).content(EmailArchive.compress(body)).size(body.length())
+                        .createdAt(now).lastUsedAt(now)
+                        .build());
+            }
+        });
+        bodyRepository.upsertAll(fresh);
+    }
+
+    /**
+     * Apaga, em blocos de {@code batchSize}, os corpos que nenhum log e nenhum arquivo referenciam e que não
+     * foram usados desde {@code unusedSince}. Devolve quantos foram apagados.
+     */
+    public int collect(LocalDateTime unusedSince, int batchSize) {
+        int deleted = 0;
+        List<String> hashes;
+        do {
+            hashes = bodyRepository.findUnreferenced(unusedSince, PageRequest.ofSize(batchSize));
+            if (hashes.isEmpty()) break;
+            deleted += bodyRepository.deleteUnreferenced(hashes, unusedSince);
+            bodies.invalidateAll(hashes);
+        } while (hashes.size() == batchSize);
+        return deleted;
+    }
+
+    /**
+     * Preenche o corpo dos logs lidos do banco: o compartilhado, o gravado no próprio log (envios antigos) ou,
+     * se a retenção já o moveu, o do arquivo. Um log sem corpo em lugar nenhum fica com {@code null}.
+     */
+    public void resolve(Collection<EmailLog> logs) {
+        Map<String, String> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (EmailLog log : logs) {
+            String hash = log.getBodyHash();
+            if (log.getBody() != null || hash == null || found.containsKey(hash)) continue;
+            String cached = bodies.getIfPresent(hash);
+            if (cached != null) {
+                found.put(hash, cached);
+            } else {
+                missing.add(hash);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (EmailBody stored : bodyRepository.findAllById(missing)) {
+                String body = EmailArchive.decompress(stored.getContent());
+                bodies.put(stored.getHash(), body);
+                found.put(stored.getHash(), body);
+            }
+        }
+        for (EmailLog log : logs) {
+            if (log.getBody() != null) continue;
+            if (log.getBodyHash() != null) {
+                log.setBody(found.get(log.getBodyHash()));
+            } else if (log.getInlineBody() != null) {
+                log.setBody(log.getInlineBody());
+            } else {
+                emailArchive.findBody(log.getId()).ifPresent(log::setBody);
+            }
+        }
+    }
+
+    static String hash(String body) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.OutboxMessage;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import com.zedia.mensageiro.repository.OutboxMessageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Relay da {@code email_outbox}. Um lote de linhas é reivindicado de uma vez com um token e um lease
+ * ({@code claim_token} + {@code lease_until}) e enviado por um worker numa única conexão SMTP; ao final,
+ * {@link EmailOutbox#complete} grava o status dos logs e apaga as linhas na mesma transação, agrupada com a de
+ * outros lotes pelo {@link EmailLogWriter}. Se o nó cair no meio do envio, as linhas voltam a ser elegíveis
+ * quando o lease expira (entrega pelo menos uma vez, com o mesmo Message-ID).
+ * <p>
+ * A busca segue a ordem de {@code available_at}, que serve tanto de fim do lease quanto de horário da próxima
+ * tentativa: envios reagendados após falha temporária só aparecem quando vencem, sem varrer a tabela.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private final OutboxMessageRepository outboxRepository;
+    private final EmailLogRepository emailLogRepository;
+    private final EmailLogWriter logWriter;
+    private final EmailBodyStore bodyStore;
+    private final JavaMailSender mailSender;
+    private final SendRateLimiter rateLimiter;
+    private final MailObservations observations;
+    private final ApplicationEventPublisher events;
+
+    @Value("${app.mail.from}")
+    private String fromEmail;
+
+    @Value("${app.mail.dispatch.workers:4}")
+    private int workers;
+
+    @Value("${app.mail.dispatch.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.dispatch.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.mail.max-recipients-per-message:50}")
+    private int maxRecipientsPerMessage;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private TaskExecutor executor;
+    private Semaphore slots;
+
+    @PostConstruct
+    void start() {
+        slots = new Semaphore(workers);
+        if (virtualThreads) {
+            // O semáforo continua limitando os envios simultâneos; a virtual thread só evita manter
+            // uma thread de plataforma parada enquanto o SMTP e o JDBC respondem.
+            SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("mail-dispatch-");
+            virtual.setVirtualThreads(true);
+            virtual.setTaskTerminationTimeout(30_000);
+            executor = virtual;
+        } else {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(workers);
+            pool.setMaxPoolSize(workers);
+            pool.setThreadNamePrefix("mail-dispatch-");
+            pool.setWaitForTasksToCompleteOnShutdown(true);
+            pool.setAwaitTerminationSeconds(30);
+            pool.initialize();
+            executor = pool;
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor virtual) {
+            virtual.close();
+        }
+    }
+
+    /**
+     * Reivindica um lote por worker livre e entrega cada um ao executor sem esperar: a thread do agendador é
+     * compartilhada com os outros jobs. Com todos os workers ocupados, o resto da fila fica para o próximo ciclo.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.dispatch.poll-interval-ms:1000}")
+    public void dispatchPending() {
+        while (slots.tryAcquire()) {
+            boolean handedOff = false;
+            boolean more;
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> ids = outboxRepository.findClaimableIds(now, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) return;
+                String token = UUID.randomUUID().toString();
+                if (outboxRepository.claim(ids, token, now, now.plusSeconds(leaseSeconds)) == 0) return;
+                executor.execute(() -> {
+                    try {
+                        publishClaimed(token);
+                    } finally {
+                        slots.release();
+                    }
+                });
+                handedOff = true;
+                more = ids.size() == batchSize;
+            } finally {
+                if (!handedOff) slots.release();
+            }
+            if (!more) return;
+        }
+    }
+
+    /**
+     * Publica na hora uma linha recém-gravada (envio síncrono). Devolve {@code null} se o relay já
+     * tiver reivindicado a linha ou se o limite global do relay estiver esgotado; nesse caso o log segue
+     * QUEUED e o relay envia no ritmo dele. Como no relay, o log passa para SENDING antes do envio.
+     */
+    MailBatches.Result publishNow(OutboxMessage message) {
+        int recipients = message.getEmailLog().getPendingRecipientEmails().size();
+        int messages = (recipients + Math.max(1, maxRecipientsPerMessage) - 1) / Math.max(1, maxRecipientsPerMessage);
+        if (!rateLimiter.tryAcquireRelay(messages)) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String token = UUID.randomUUID().toString();
+        if (outboxRepository.claim(List.of(message.getId()), token, now, now.plusSeconds(leaseSeconds)) == 0) {
+            // O relay levou a linha e vai cobrar o limite global por conta própria.
+            rateLimiter.refundRelay(messages);
+            return null;
+        }
+        EmailLog log = message.getEmailLog();
+        emailLogRepository.markSendingByClaimToken(token);
+        log.setStatus(EmailLog.EmailStatus.SENDING);
+        events.publishEvent(EmailStatusEvent.of(log, EmailLog.EmailStatus.QUEUED, EmailLog.EmailStatus.SENDING));
+        return deliver(List.of(message), false).get(log.getId());
+    }
+
+    void publishClaimed(String token) {
+        emailLogRepository.markSendingByClaimToken(token);
+        List<OutboxMessage> batch = outboxRepository.findByClaimToken(token);
+        batch.forEach(row -> events.publishEvent(EmailStatusEvent.of(row.getEmailLog(),
+                EmailLog.EmailStatus.QUEUED, EmailLog.EmailStatus.SENDING)));
+        bodyStore.resolve(batch.stream().map(OutboxMessage::getEmailLog).toList());
+        observations.relayBatch(batch.size(), () -> deliver(batch, true));
+    }
+
+    /** {@code paced}: espera a vez no limite global antes de cada fatia; falso quando já foi cobrado. */
+    Map<Long, MailBatches.Result> deliver(List<OutboxMessage> batch, boolean paced) {
+        if (batch.isEmpty()) return Map.of();
+        Map<Long, List<MailBatches.Part>> partsByLog = new LinkedHashMap<>();
+        Map<Long, MailBatches.Result> results = new LinkedHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>();
+        for (OutboxMessage row : batch) {
+            EmailLog log = row.getEmailLog();
+            if (log.getStatus() == EmailLog.EmailStatus.SENT || log.getStatus() == EmailLog.EmailStatus.FAILED
+                    || log.getStatus() == EmailLog.EmailStatus.DEAD_LETTER) {
+                // Já concluído: só falta tirar a linha da outbox.
+                continue;
+            }
+            try {
+                List<MailBatches.Part> parts = MailBatches.split(mailSender, fromEmail, log,
+                        row.getIdempotencyKey(), maxRecipientsPerMessage);
+                partsByLog.put(log.getId(), parts);
+                parts.forEach(part -> messages.add(part.message()));
+            } catch (MessagingException e) {
+                results.put(log.getId(), MailBatches.Result.failedAll(log.getPendingRecipientEmails(), e.getMessage()));
+            }
+        }
+
+        Map<MimeMessage, Exception> failed = paced ? sendPaced(messages) : send(messages);
+        partsByLog.forEach((logId, parts) -> results.put(logId, MailBatches.result(parts, failed)));
+
+        logWriter.complete(batch, results);
+        long failures = results.values().stream().filter(r -> !r.ok()).count();
+        long retries = results.values().stream().filter(MailBatches.Result::retryable).count();
+        if (failures == 0) {
+            logger.info("Outbox batch of {} emails sent", results.size());
+        } else {
+            logger.warn("Outbox batch of {} emails sent with {} failures ({} transient)", results.size(), failures, retries);
+        }
+        return results;
+    }
+
+    private Map<MimeMessage, Exception> sendPaced(List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failed = new IdentityHashMap<>();
+        int step = Math.max(1, rateLimiter.relayBurst());
+        for (int start = 0; start < messages.size(); start += step) {
+            List<MimeMessage> slice = messages.subList(start, Math.min(start + step, messages.size()));
+            try {
+                rateLimiter.awaitRelay(slice.size());
+            } catch (InterruptedException e) {
+                // Desligando: o que faltou conta como falha temporária e volta para a fila.
+                Thread.currentThread().interrupt();
+                messages.subList(start, messages.size()).forEach(m -> failed.put(m, e));
+                break;
+            }
+            failed.putAll(send(slice));
+        }
+        return failed;
+    }
+
+    private Map<MimeMessage, Exception> send(List<MimeMessage> messages) {
+        if (messages.isEmpty()) return Map.of();
+        return observations.smtp(messages, batch -> MailBatches.send(mailSender, batch));
+    }
+}
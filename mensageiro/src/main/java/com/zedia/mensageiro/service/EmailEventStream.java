@@ -0,0 +1,337 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.dto.Dtos.CampaignResponse;
+import com.zedia.mensageiro.entity.EmailLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Eventos de envio ao vivo, por Server-Sent Events, para o remetente: {@code status} a cada
+ * {@link EmailStatusEvent} e {@code campaign} com o progresso das campanhas que mudaram.
+ * <p>
+ * O caminho de envio nunca espera um navegador: cada assinante tem uma fila de {@code app.events.buffer-size}
+ * eventos, esvaziada por um executor próprio, e quem deixa a fila encher é desconectado (o cliente reconecta e
+ * relê o histórico). O progresso de campanha é agrupado: no máximo um evento por campanha ativa a cada
+ * {@code app.events.campaign-interval-ms}, e só se o dono estiver conectado.
+ * <p>
+ * As contagens de cada campanha acompanhada vêm do banco uma vez e depois são atualizadas pelos próprios eventos
+ * (status anterior −1, novo +1). São recontadas a cada {@code app.events.campaign-resync}, para incluir o que
+ * outros nós enviaram, ou logo que chega um evento sem status anterior. O progresso e o heartbeat rodam num
+ * agendador próprio, fora das threads dos jobs {@code @Scheduled}, para não esperarem atrás do relay.
+ * <p>
+ * Os eventos são do nó: um envio concluído pelo relay de outro nó não aparece aqui.
+ */
+@Component
+public class EmailEventStream implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailEventStream.class);
+
+    private final CampaignService campaignService;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final long campaignIntervalMs;
+    private final long heartbeatMs;
+    private final long resyncNanos;
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final Duration timeout;
+    private final Map<Long, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    /** Campanhas com eventos desde o último envio de progresso, com o id do dono. */
+    private final Map<Long, Long> changedCampaigns = new ConcurrentHashMap<>();
+    private final Map<Long, CampaignCounts> campaigns = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    @Autowired
+    public EmailEventStream(CampaignService campaignService,
+                            @Value("${app.events.threads:2}") int threads,
+                            @Value("${app.events.buffer-size:256}") int bufferSize,
+                            @Value("${app.events.max-subscribers-per-user:5}") int maxPerUser,
+                            @Value("${app.events.timeout:30m}") Duration timeout,
+                            @Value("${app.events.campaign-resync:30s}") Duration campaignResync,
+                            @Value("${app.events.campaign-interval-ms:1000}") long campaignIntervalMs,
+                            @Value("${app.events.heartbeat-ms:25000}") long heartbeatMs) {
+        this(campaignService,
+                Executors.newFixedThreadPool(Math.max(1, threads), new CustomizableThreadFactory("email-events-")),
+                Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("email-events-timer-")),
+                bufferSize, maxPerUser, timeout, campaignResync, campaignIntervalMs, heartbeatMs);
+    }
+
+    /** {@code timer} nulo: ninguém chama {@link #publishCampaignProgress} e {@link #heartbeat} além do teste. */
+    EmailEventStream(CampaignService campaignService, Executor executor, ScheduledExecutorService timer,
+                     int bufferSize, int maxPerUser, Duration timeout, Duration campaignResync,
+                     long campaignIntervalMs, long heartbeatMs) {
+        this.campaignService = campaignService;
+        this.executor = executor;
+        this.timer = timer;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.maxPerUser = Math.max(1, maxPerUser);
+        this.timeout = timeout;
+        this.resyncNanos = campaignResync.toNanos();
+        this.campaignIntervalMs = Math.max(1, campaignIntervalMs);
+        this.heartbeatMs = Math.max(1, heartbeatMs);
+    }
+
+    @PostConstruct
+    void start() {
+        if (timer == null) return;
+        every(campaignIntervalMs, this::publishCampaignProgress);
+        every(heartbeatMs, this::heartbeat);
+    }
+
+    private void every(long intervalMs, Runnable task) {
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // Uma exceção aqui cancelaria as próximas execuções.
+                logger.warn("Event stream task failed", e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mail.events.subscribers", subscribers, AtomicInteger::get).register(registry);
+        FunctionCounter.builder("mail.events.dropped", dropped, LongAdder::sum).register(registry);
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        return register(userId, new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter register(Long userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        byUser.compute(userId, (id, mine) -> {
+            if (mine == null) mine = ConcurrentHashMap.newKeySet();
+            if (mine.size() >= maxPerUser) {
+                throw new IllegalArgumentException("Limite de " + maxPerUser + " conexões de eventos por usuário");
+            }
+            mine.add(subscriber);
+            return mine;
+        });
+        subscribers.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        // Envia os cabeçalhos já, para o cliente saber que a conexão abriu antes do primeiro evento.
+        subscriber.offer(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatus(EmailStatusEvent event) {
+        Set<Subscriber> mine = byUser.get(event.senderId());
+        if (mine == null || mine.isEmpty()) {
+            // O evento não entra na contagem: se o dono voltar, a campanha é recontada.
+            if (event.campaignId() != null) campaigns.remove(event.campaignId());
+            return;
+        }
+        for (Subscriber subscriber : mine) {
+            subscriber.offer(SseEmitter.event().name("status").id(String.valueOf(event.emailLogId())).data(event));
+        }
+        if (event.campaignId() != null) {
+            CampaignCounts counts = campaigns.get(event.campaignId());
+            if (counts != null) counts.apply(event.previous(), event.status());
+            changedCampaigns.put(event.campaignId(), event.senderId());
+        }
+    }
+
+    void publishCampaignProgress() {
+        long now = System.nanoTime();
+        for (Long campaignId : changedCampaigns.keySet()) {
+            Long ownerId = changedCampaigns.remove(campaignId);
+            Set<Subscriber> mine = byUser.get(ownerId);
+            if (mine == null || mine.isEmpty()) {
+                campaigns.remove(campaignId);
+                continue;
+            }
+            CampaignCounts counts = campaigns.get(campaignId);
+            if (counts == null || counts.needsResync(now)) {
+                counts = campaignService.progress(campaignId).map(progress -> new CampaignCounts(progress, now))
+                        .orElse(null);
+                if (counts == null) {
+                    campaigns.remove(campaignId);
+                    continue;
+                }
+                campaigns.put(campaignId, counts);
+            }
+            counts.touch(now);
+            CampaignResponse progress = counts.snapshot();
+            for (Subscriber subscriber : mine) {
+                subscriber.offer(SseEmitter.event().name("campaign").data(progress));
+            }
+        }
+        // Campanha parada (concluída, ou o dono saiu) deixa de ser acompanhada.
+        campaigns.values().removeIf(counts -> counts.idle(now));
+    }
+
+    /** Comentário periódico: mantém proxies sem fechar a conexão e revela clientes que já foram embora. */
+    void heartbeat() {
+        byUser.values().forEach(mine -> mine.forEach(subscriber ->
+                subscriber.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    @PreDestroy
+    void stop() {
+        byUser.values().forEach(mine -> mine.forEach(subscriber -> subscriber.emitter.complete()));
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        byUser.computeIfPresent(subscriber.userId, (id, mine) -> {
+            if (mine.remove(subscriber)) subscribers.decrementAndGet();
+            return mine.isEmpty() ? null : mine;
+        });
+    }
+
+    /** Contagens por status de uma campanha, lidas do banco e atualizadas pelos eventos. */
+    private final class CampaignCounts {
+
+        private final CampaignResponse base;
+        private final AtomicLongArray byStatus = new AtomicLongArray(EmailLog.EmailStatus.values().length);
+        private final long syncedAt;
+        private volatile long lastChangeAt;
+        private volatile boolean stale;
+
+        CampaignCounts(CampaignResponse base, long now) {
+            this.base = base;
+            this.syncedAt = now;
+            this.lastChangeAt = now;
+            byStatus.set(EmailLog.EmailStatus.QUEUED.ordinal(), base.getQueued());
+            byStatus.set(EmailLog.EmailStatus.SENDING.ordinal(), base.getSending());
+            byStatus.set(EmailLog.EmailStatus.SENT.ordinal(), base.getSent());
+            byStatus.set(EmailLog.EmailStatus.FAILED.ordinal(), base.getFailed());
+            byStatus.set(EmailLog.EmailStatus.DEAD_LETTER.ordinal(), base.getDeadLetter());
+        }
+
+        void apply(EmailLog.EmailStatus previous, EmailLog.EmailStatus status) {
+            if (previous == null) {
+                stale = true;
+                return;
+            }
+            if (previous == status) return;
+            byStatus.decrementAndGet(previous.ordinal());
+            byStatus.incrementAndGet(status.ordinal());
+        }
+
+        boolean needsResync(long now) {
+            return stale || now - syncedAt >= resyncNanos;
+        }
+
+        void touch(long now) {
+            lastChangeAt = now;
+        }
+
+        boolean idle(long now) {
+            return now - lastChangeAt >= resyncNanos;
+        }
+
+        CampaignResponse snapshot() {
+            return CampaignResponse.builder()
+                    .id(base.getId())
+                    .templateName(base.getTemplateName())
+                    .totalRecipients(base.getTotalRecipients())
+                    .queued(count(EmailLog.EmailStatus.QUEUED))
+                    .sending(count(EmailLog.EmailStatus.SENDING))
+                    .sent(count(EmailLog.EmailStatus.SENT))
+                    .failed(count(EmailLog.EmailStatus.FAILED))
+                    .deadLetter(count(EmailLog.EmailStatus.DEAD_LETTER))
+                    .createdAt(base.getCreatedAt())
+                    .build();
+        }
+
+        /** Um evento que cruzou a recontagem pode ter sido aplicado duas vezes; a próxima recontagem corrige. */
+        private long count(EmailLog.EmailStatus status) {
+            return Math.max(0, byStatus.get(status.ordinal()));
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) return;
+            if (!pending.offer(event)) {
+                if (closed.compareAndSet(false, true)) {
+                    dropped.increment();
+                    logger.info("Dropping slow event subscriber of user {} after {} pending events", userId, bufferSize);
+                    remove(this);
+                    pending.clear();
+                    emitter.complete();
+                }
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = pending.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                closed.set(true);
+                remove(this);
+                pending.clear();
+            } finally {
+                draining.set(false);
+            }
+            // Um evento que chegou entre o último poll e o set(false) não pode ficar parado na fila.
+            if (!pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
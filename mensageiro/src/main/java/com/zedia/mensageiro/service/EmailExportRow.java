@@ -0,0 +1,16 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uma linha da exportação de histórico: um destinatário com as colunas do envio repetidas. Montada direto pela
+ * consulta ({@code select new}), sem carregar {@link EmailLog} nem os destinatários como entidades. Num envio sem
+ * destinatários gravados, {@code recipientEmail} e {@code recipientStatus} vêm nulos.
+ */
+public record EmailExportRow(Long emailLogId, String senderEmail, String subject, EmailLog.EmailStatus status,
+                             String templateName, Long campaignId, LocalDateTime sentAt, LocalDateTime scheduledAt,
+                             int attempts, String errorMessage, String recipientEmail,
+                             EmailLog.EmailStatus recipientStatus) {
+}
@@ -0,0 +1,209 @@
+package com.zedia.mensageiro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zedia.mensageiro.dto.Dtos;
+import com.zedia.mensageiro.entity.EmailLog;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportação do histórico de envios, de um remetente ou de todos, em CSV (uma linha por destinatário) ou JSON
+ * Lines (um objeto por envio, com os destinatários). As linhas vêm de uma consulta só para a frente, lida do
+ * driver aos poucos ({@code app.export.fetch-size}), e vão direto para a resposta: a memória usada não depende
+ * do tamanho do histórico. O corpo dos e-mails não entra.
+ * <p>
+ * O padrão, {@link Integer#MIN_VALUE}, liga o modo streaming do MySQL Connector/J, que entrega uma linha por vez
+ * sem cursor no servidor (e sem desligar o {@code rewriteBatchedStatements}, como faria o {@code useCursorFetch}).
+ * Outros bancos recusam tamanho negativo e precisam de um valor positivo.
+ */
+@Service
+public class EmailExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailExportService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    static final String CSV_HEADER = "id,sender,subject,status,template,campaign_id,sent_at,scheduled_at,attempts,"
+            + "error_message,recipient,recipient_status";
+
+    // Pelo índice de sent_at (com sender_id na frente quando há remetente); os destinatários de cada envio vêm juntos.
+    // Parte do log: um envio sem linhas em email_log_recipients sai uma vez, com destinatário vazio.
+    private static final String QUERY = """
+            select new com.zedia.mensageiro.service.EmailExportRow(
+                l.id, s.email, l.subject, l.status, t.name, c.id, l.sentAt, l.scheduledAt, l.attempts,
+                l.errorMessage, r.email, r.status)
+            from EmailLog l join l.sender s left join l.recipients r left join l.template t left join l.campaign c
+            where (:senderId is null or l.sender.id = :senderId)
+              and (:from is null or l.sentAt >= :from)
+              and (:to is null or l.sentAt < :to)
+            order by l.sentAt, l.id, r.id""";
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        JSON_LINES("application/x-ndjson", "jsonl");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType(boolean gzip) {
+            return gzip ? "application/gzip" : contentType + ";charset=UTF-8";
+        }
+
+        public String filename(String name, boolean gzip) {
+            return name + "." + extension + (gzip ? ".gz" : "");
+        }
+
+        public static Format parse(String value) {
+            return switch (value == null ? "csv" : value.toLowerCase(Locale.ROOT)) {
+                case "csv" -> CSV;
+                case "jsonl", "ndjson" -> JSON_LINES;
+                default -> throw new IllegalArgumentException("Formato inválido: use csv ou jsonl");
+            };
+        }
+    }
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public EmailExportService(EntityManager entityManager, ObjectMapper objectMapper,
+                              @Value("${app.export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Escreve em {@code out} os envios de {@code senderId} ({@code null}: todos) com {@code sentAt} entre
+     * {@code from} e {@code to} (inclusivos, opcionais), do mais antigo ao mais novo. Não fecha {@code out}.
+     * Precisa da transação para manter o resultado aberto enquanto escreve. Devolve quantos envios foram
+     * exportados, nos dois formatos.
+     */
+    @Transactional(readOnly = true)
+    public long export(Long senderId, LocalDate from, LocalDate to, Format format, boolean gzip,
+                       OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        try (Stream<EmailExportRow> rows = entityManager.createQuery(QUERY, EmailExportRow.class)
+                .setParameter("senderId", senderId)
+                .setParameter("from", from != null ? from.atStartOfDay() : null)
+                .setParameter("to", to != null ? to.plusDays(1).atStartOfDay() : null)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            long written = write(rows.iterator(), format, gzip, out);
+            logger.info("History export of {} wrote {} emails as {} in {} ms",
+                    senderId != null ? "sender " + senderId : "all senders", written, format,
+                    (System.nanoTime() - start) / 1_000_000);
+            return written;
+        }
+    }
+
+    long write(Iterator<EmailExportRow> rows, Format format, boolean gzip, OutputStream out) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : out,
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+        long written = format == Format.CSV ? writeCsv(rows, writer) : writeJsonLines(rows, writer);
+        writer.flush();
+        if (compressed != null) compressed.finish();
+        return written;
+    }
+
+    private static long writeCsv(Iterator<EmailExportRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long written = 0;
+        Long previous = null;
+        while (rows.hasNext()) {
+            EmailExportRow row = rows.next();
+            if (!row.emailLogId().equals(previous)) written++;
+            previous = row.emailLogId();
+            writer.write(row.emailLogId().toString());
+            writeCsvField(writer, row.senderEmail());
+            writeCsvField(writer, row.subject());
+            writeCsvField(writer, row.status().name());
+            writeCsvField(writer, row.templateName());
+            writeCsvField(writer, row.campaignId() != null ? row.campaignId().toString() : null);
+            writeCsvField(writer, row.sentAt() != null ? Dtos.utc(row.sentAt()).toString() : null);
+            writeCsvField(writer, row.scheduledAt() != null ? Dtos.utc(row.scheduledAt()).toString() : null);
+            writeCsvField(writer, Integer.toString(row.attempts()));
+            writeCsvField(writer, row.errorMessage());
+            writeCsvField(writer, row.recipientEmail());
+            writeCsvField(writer, row.recipientStatus() != null ? row.recipientStatus().name() : null);
+            writer.write('\n');
+        }
+        return written;
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null) return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /** As linhas vêm ordenadas por envio; só os destinatários do envio atual ficam em memória. */
+    private long writeJsonLines(Iterator<EmailExportRow> rows, Writer writer) throws IOException {
+        long written = 0;
+        EmailExportRow current = null;
+        List<ExportedRecipient> recipients = new ArrayList<>();
+        while (rows.hasNext()) {
+            EmailExportRow row = rows.next();
+            if (current != null && !current.emailLogId().equals(row.emailLogId())) {
+                writeJsonLine(writer, current, recipients);
+                recipients.clear();
+                written++;
+            }
+            current = row;
+            if (row.recipientEmail() != null) {
+                recipients.add(new ExportedRecipient(row.recipientEmail(), row.recipientStatus()));
+            }
+        }
+        if (current != null) {
+            writeJsonLine(writer, current, recipients);
+            written++;
+        }
+        return written;
+    }
+
+    private void writeJsonLine(Writer writer, EmailExportRow row, List<ExportedRecipient> recipients)
+            throws IOException {
+        writer.write(objectMapper.writeValueAsString(new ExportedEmail(row.emailLogId(), row.senderEmail(),
+                row.subject(), row.status(), row.templateName(), row.campaignId(), Dtos.utc(row.sentAt()), Dtos.utc(row.scheduledAt()),
+                row.attempts(), row.errorMessage(), recipients)));
+        writer.write('\n');
+    }
+
+    record ExportedEmail(Long id, String sender, String subject, EmailLog.EmailStatus status, String template,
+                         Long campaignId, OffsetDateTime sentAt, OffsetDateTime scheduledAt, int attempts,
+                         String errorMessage, List<ExportedRecipient> recipients) {}
+
+    record ExportedRecipient(String email, EmailLog.EmailStatus status) {}
+}
@@ -0,0 +1,84 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Job diário de retenção dos logs de envio. Envios concluídos há mais de {@code app.retention.archive-after}
+ * têm o corpo movido para o {@link EmailArchive}; com {@code app.retention.delete-after} maior que zero, os
+ * corpos arquivados de meses mais antigos que isso são apagados (o log continua no histórico, sem corpo), e
+ * depois os corpos compartilhados que ficaram sem referência e parados há {@code app.retention.body-grace}.
+ * <p>
+ * Cada execução olha só a janela {@code [archive-after + scan-window, archive-after)} pelo índice de
+ * {@code sent_at}, então o custo não cresce com o tamanho do histórico. Na primeira execução numa base antiga,
+ * aumente {@code scan-window} para cobrir tudo.
+ */
+@Component
+public class EmailLogRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailLogRetention.class);
+
+    private final EmailLogRepository emailLogRepository;
+    private final EmailArchive emailArchive;
+    private final EmailBodyStore bodyStore;
+    private final Duration archiveAfter;
+    private final Duration scanWindow;
+    private final Duration deleteAfter;
+    private final Duration bodyGrace;
+    private final int batchSize;
+
+    public EmailLogRetention(EmailLogRepository emailLogRepository, EmailArchive emailArchive, EmailBodyStore bodyStore,
+                             @Value("${app.retention.archive-after:90d}") Duration archiveAfter,
+                             @Value("${app.retention.scan-window:30d}") Duration scanWindow,
+                             @Value("${app.retention.delete-after:0}") Duration deleteAfter,
+                             @Value("${app.retention.body-grace:1d}") Duration bodyGrace,
+                             @Value("${app.retention.batch-size:500}") int batchSize) {
+        this.emailLogRepository = emailLogRepository;
+        this.emailArchive = emailArchive;
+        this.bodyStore = bodyStore;
+        this.archiveAfter = archiveAfter;
+        this.scanWindow = scanWindow;
+        this.deleteAfter = deleteAfter;
+        this.bodyGrace = bodyGrace;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Scheduled(cron = "${app.retention.cron:0 30 3 * * *}")
+    public void run() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!archiveAfter.isZero()) {
+            int archived = archive(now.minus(archiveAfter));
+            if (archived > 0) logger.info("Archived the bodies of {} emails older than {}", archived, archiveAfter);
+        }
+        if (!deleteAfter.isZero()) {
+            int deleted = emailArchive.purge(now.minus(deleteAfter));
+            if (deleted > 0) logger.info("Deleted {} archived email bodies older than {}", deleted, deleteAfter);
+            int collected = bodyStore.collect(now.minus(bodyGrace), batchSize);
+            if (collected > 0) logger.info("Deleted {} shared email bodies no longer referenced", collected);
+        }
+    }
+
+    /** Arquiva em blocos, cada um na própria transação, avançando por {@code sent_at}. */
+    int archive(LocalDateTime cutoff) {
+        int archived = 0;
+        LocalDateTime from = cutoff.minus(scanWindow);
+        List<EmailLogRepository.ArchivableBody> rows;
+        do {
+            rows = emailLogRepository.findArchivable(from, cutoff, PageRequest.ofSize(batchSize));
+            if (rows.isEmpty()) break;
+            archived += emailArchive.archive(rows);
+            // Empates em sent_at voltam na próxima busca, mas já sem corpo, e ficam de fora.
+            from = rows.get(rows.size() - 1).getSentAt();
+        } while (rows.size() == batchSize);
+        return archived;
+    }
+}
@@ -0,0 +1,141 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.EmailRecipient;
+import com.zedia.mensageiro.entity.OutboxMessage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grava os logs de envio em grupos, na frente da {@link EmailOutbox}. Cada envio síncrono e cada lote do relay
+ * faziam a própria transação; sob carga, os pedidos que chegam juntos agora saem numa transação e num lote
+ * JDBC só ({@link GroupCommit}), fechando o grupo em {@code app.mail.log-writer.max-batch} pedidos ou
+ * {@code app.mail.log-writer.max-wait}. Quem chama continua esperando a gravação, então a resposta da API e o
+ * status em memória dos logs são os mesmos de antes. Com {@code max-batch} 1 a gravação é direta. Se o grupo
+ * falha, os logs voltam ao estado de antes e cada pedido é regravado sozinho.
+ * <p>
+ * Depende do {@link EmailEventStream} só para ser destruído antes dele: o {@code stop} ainda grava o que está
+ * na fila, e cada commit publica {@link EmailStatusEvent}s para o stream.
+ */
+@Component
+@DependsOn("emailEventStream")
+public class EmailLogWriter {
+
+    private record Completion(List<OutboxMessage> batch, Map<Long, MailBatches.Result> results) {
+    }
+
+    /** O que {@link EmailOutbox#complete} muda em memória, para desfazer se a transação não fechar. */
+    private record LogState(EmailLog log, EmailLog.EmailStatus status, String errorMessage, int attempts,
+                            LocalDateTime nextAttemptAt, List<EmailLog.EmailStatus> recipients) {
+
+        static LogState of(EmailLog log) {
+            return new LogState(log, log.getStatus(), log.getErrorMessage(), log.getAttempts(),
+                    log.getNextAttemptAt(), log.getRecipients().stream().map(EmailRecipient::getStatus).toList());
+        }
+
+        void restore() {
+            log.setStatus(status);
+            log.setErrorMessage(errorMessage);
+            log.setAttempts(attempts);
+            log.setNextAttemptAt(nextAttemptAt);
+            for (int i = 0; i < recipients.size(); i++) {
+                log.getRecipients().get(i).setStatus(recipients.get(i));
+            }
+        }
+    }
+
+    private final EmailOutbox emailOutbox;
+    private final GroupCommit<EmailLog, OutboxMessage> enqueues;
+    private final GroupCommit<Completion, Void> completions;
+
+    public EmailLogWriter(EmailOutbox emailOutbox, MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+                          @Value("${app.mail.log-writer.max-batch:100}") int maxBatch,
+                          @Value("${app.mail.log-writer.max-wait:5ms}") Duration maxWait) {
+        this.emailOutbox = emailOutbox;
+        this.enqueues = new GroupCommit<>("email-log-enqueue", maxBatch, maxWait, observationRegistry,
+                this::enqueueAll, groupSizes(meterRegistry, "enqueue")::record);
+        this.completions = new GroupCommit<>("email-log-complete", maxBatch, maxWait, observationRegistry,
+                this::completeAll, groupSizes(meterRegistry, "complete")::record);
+    }
+
+    /** Grava o log e a linha da outbox; volta depois do commit, com os ids preenchidos. */
+    public OutboxMessage enqueue(EmailLog log) {
+        return enqueues.submit(log);
+    }
+
+    /** Fecha um lote já enviado, como {@link EmailOutbox#complete}. */
+    public void complete(List<OutboxMessage> batch, Map<Long, MailBatches.Result> resultsByLogId) {
+        completions.submit(new Completion(batch, resultsByLogId));
+    }
+
+    @PreDestroy
+    void stop() {
+        enqueues.close();
+        completions.close();
+    }
+
+    private List<OutboxMessage> enqueueAll(List<EmailLog> logs) {
+        Map<EmailLog, OutboxMessage> byLog = new IdentityHashMap<>();
+        try {
+            for (OutboxMessage message : emailOutbox.enqueueAll(logs)) {
+                byLog.put(message.getEmailLog(), message);
+            }
+        } catch (RuntimeException e) {
+            // O persist já deu ids da sequência; com eles a nova tentativa viraria merge de linhas que não existem.
+            for (EmailLog log : logs) {
+                log.setId(null);
+                log.getRecipients().forEach(recipient -> recipient.setId(null));
+            }
+            throw e;
+        }
+        return logs.stream().map(byLog::get).toList();
+    }
+
+    private List<Void> completeAll(List<Completion> group) {
+        List<LogState> before = group.stream()
+                .flatMap(completion -> completion.batch().stream())
+                .map(row -> LogState.of(row.getEmailLog()))
+                .toList();
+        try {
+            completeGroup(group);
+        } catch (RuntimeException e) {
+            before.forEach(LogState::restore);
+            throw e;
+        }
+        return Collections.nCopies(group.size(), null);
+    }
+
+    private void completeGroup(List<Completion> group) {
+        if (group.size() == 1) {
+            emailOutbox.complete(group.get(0).batch(), group.get(0).results());
+        } else {
+            List<OutboxMessage> batch = new ArrayList<>();
+            Map<Long, MailBatches.Result> results = new HashMap<>();
+            for (Completion completion : group) {
+                batch.addAll(completion.batch());
+                results.putAll(completion.results());
+            }
+            emailOutbox.complete(batch, results);
+        }
+    }
+
+    private static DistributionSummary groupSizes(MeterRegistry meterRegistry, String operation) {
+        return DistributionSummary.builder("mail.log.writer.group")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,212 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.OutboxMessage;
+import com.zedia.mensageiro.entity.EmailRecipient;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import com.zedia.mensageiro.repository.EmailRecipientRepository;
+import com.zedia.mensageiro.repository.OutboxMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Grava o log de envio e a linha de {@code email_outbox} na mesma transação, e depois fecha os dois juntos:
+ * o log recebe o status final e a linha sai da outbox. Não existe envio sem registro nem registro pendente
+ * sem linha na outbox; o pior caso é um reenvio após queda, que sai com o mesmo Message-ID.
+ * <p>
+ * Falhas temporárias não fecham o log: ele volta para {@code QUEUED} e a linha da outbox fica reservada até o
+ * horário da próxima tentativa ({@link RetryPolicy}). Esgotadas as tentativas, o log vai para
+ * {@code DEAD_LETTER}; falhas permanentes vão direto para {@code FAILED}. Cada destinatário recebe o próprio
+ * status: numa entrega parcial, quem recebeu fica {@code SENT}, as recusas permanentes ficam {@code FAILED} e só
+ * os destinatários com falha temporária continuam na fila para a próxima tentativa.
+ * <p>
+ * Cada mudança de status publica um {@link EmailStatusEvent}, entregue aos ouvintes só depois do commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailOutbox {
+
+    private final EmailLogRepository emailLogRepository;
+    private final OutboxMessageRepository outboxRepository;
+    private final EmailRecipientRepository recipientRepository;
+    private final EmailArchive emailArchive;
+    private final EmailBodyStore bodyStore;
+    private final RetryPolicy retryPolicy;
+    private final MailObservations observations;
+    private final ApplicationEventPublisher events;
+
+    @Transactional
+    public OutboxMessage enqueue(EmailLog log) {
+        bodyStore.store(List.of(log));
+        emailLogRepository.save(log);
+        return outboxRepository.save(newMessage(log, log.getScheduledAt()));
+    }
+
+    /**
+     * Grava os logs, os corpos ainda não conhecidos ({@link EmailBodyStore}) e, para os logs que estão na fila, as
+     * linhas da outbox, numa transação só. Como os ids vêm de sequência, os inserts saem em lotes JDBC no commit.
+     * Devolve as linhas criadas, na ordem dos logs.
+     */
+    @Transactional
+    public List<OutboxMessage> enqueueAll(List<EmailLog> logs) {
+        return enqueueAll(logs, null);
+    }
+
+    /**
+     * Como {@link #enqueueAll(List)}, mas as linhas só ficam disponíveis para o relay em {@code availableAt}
+     * (bloco de campanha adiado pelo limite de envio). Nulo: o horário agendado de cada log, ou já.
+     */
+    @Transactional
+    public List<OutboxMessage> enqueueAll(List<EmailLog> logs, LocalDateTime availableAt) {
+        bodyStore.store(logs);
+        List<EmailLog> saved = emailLogRepository.saveAll(logs);
+        List<OutboxMessage> messages = new ArrayList<>(saved.size());
+        for (EmailLog log : saved) {
+            if (log.getStatus() == EmailLog.EmailStatus.QUEUED) {
+                messages.add(newMessage(log, availableAt != null ? availableAt : log.getScheduledAt()));
+            }
+        }
+        return outboxRepository.saveAll(messages);
+    }
+
+    /**
+     * Volta para a fila um envio em {@code FAILED} ou {@code DEAD_LETTER}, com as tentativas zeradas (e o corpo
+     * de volta do arquivo, se já tinha saído de {@code email_logs}).
+     * Devolve {@code false} se o log não existe, nunca foi tentado ou não está num desses status.
+     */
+    @Transactional
+    public boolean replay(Long emailLogId) {
+        if (emailLogRepository.requeue(emailLogId) == 0) return false;
+        recipientRepository.requeue(emailLogId);
+        emailArchive.restore(emailLogId);
+        EmailLog log = emailLogRepository.getReferenceById(emailLogId);
+        outboxRepository.save(newMessage(log, null));
+        events.publishEvent(EmailStatusEvent.of(log, null, EmailLog.EmailStatus.QUEUED));
+        return true;
+    }
+
+    /**
+     * Fecha um lote já enviado. Os logs do lote também são atualizados em memória, para quem publicou na
+     * hora devolver o status final sem reler o banco.
+     */
+    @Transactional
+    public void complete(List<OutboxMessage> batch, Map<Long, MailBatches.Result> resultsByLogId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sent = new ArrayList<>();
+        List<Long> delivered = new ArrayList<>();
+        List<Long> done = new ArrayList<>();
+        for (OutboxMessage row : batch) {
+            EmailLog log = row.getEmailLog();
+            MailBatches.Result result = resultsByLogId.get(log.getId());
+            if (result == null) {
+                done.add(row.getId());
+                continue;
+            }
+            EmailLog.EmailStatus previous = log.getStatus();
+            int attempts = log.getAttempts() + 1;
+            log.setAttempts(attempts);
+            log.setNextAttemptAt(null);
+            Set<String> attempted = Set.copyOf(log.getPendingRecipientEmails());
+            Set<String> failed = Set.copyOf(result.failed());
+            Set<String> retry = Set.copyOf(result.retry());
+            List<String> refused = result.failed().stream().filter(email -> !retry.contains(email)).toList();
+            if (result.retryable() && attempts < retryPolicy.getMaxAttempts()) {
+                // Só quem falhou por motivo temporário fica na fila: quem recebeu sai como SENT e as recusas
+                // permanentes como FAILED, então a próxima tentativa vai só para os pendentes.
+                LocalDateTime next = now.plus(retryPolicy.delayAfter(attempts));
+                List<String> deliveredNow = log.getPendingRecipientEmails().stream()
+                        .filter(email -> !failed.contains(email)).toList();
+                log.setStatus(EmailLog.EmailStatus.QUEUED);
+                log.setErrorMessage(result.errorMessage());
+                log.setNextAttemptAt(next);
+                markRecipients(log, attempted, failed, retry, EmailLog.EmailStatus.QUEUED);
+                emailLogRepository.reschedule(log.getId(), result.errorMessage(), next);
+                if (!deliveredNow.isEmpty()) recipientRepository.markSent(log.getId(), deliveredNow);
+                if (!refused.isEmpty()) recipientRepository.markFailed(log.getId(), refused, EmailLog.EmailStatus.FAILED);
+                outboxRepository.reschedule(row.getId(), next);
+                observations.outcome(EmailLog.EmailStatus.QUEUED, true);
+            } else {
+                // Esgotadas as tentativas, as falhas temporárias vão para DEAD_LETTER. O log termina SENT só se
+                // ninguém falhou, nem numa tentativa anterior.
+                markRecipients(log, attempted, failed, retry, EmailLog.EmailStatus.DEAD_LETTER);
+                if (!refused.isEmpty()) {
+                    recipientRepository.markFailed(log.getId(), refused, EmailLog.EmailStatus.FAILED);
+                }
+                if (result.retryable()) {
+                    recipientRepository.markFailed(log.getId(), result.retry(), EmailLog.EmailStatus.DEAD_LETTER);
+                }
+                // Numa falha parcial, quem estava nos blocos entregues recebeu.
+                if (result.failed().size() < result.total()) delivered.add(log.getId());
+                EmailLog.EmailStatus status = !refused.isEmpty() || hasRecipient(log, EmailLog.EmailStatus.FAILED)
+                        ? EmailLog.EmailStatus.FAILED
+                        : result.retryable() || hasRecipient(log, EmailLog.EmailStatus.DEAD_LETTER)
+                        ? EmailLog.EmailStatus.DEAD_LETTER
+                        : EmailLog.EmailStatus.SENT;
+                if (status == EmailLog.EmailStatus.SENT) {
+                    log.setStatus(status);
+                    log.setErrorMessage(null);
+                    sent.add(log.getId());
+                } else {
+                    // Se esta tentativa entregou tudo, o erro que fica é o das recusas de antes.
+                    String error = result.ok() ? log.getErrorMessage() : result.errorMessage();
+                    log.setStatus(status);
+                    log.setErrorMessage(error);
+                    emailLogRepository.complete(log.getId(), status, error);
+                }
+                done.add(row.getId());
+                observations.outcome(status, false);
+            }
+            events.publishEvent(EmailStatusEvent.of(log, previous));
+        }
+        if (!sent.isEmpty()) {
+            emailLogRepository.markSent(sent);
+        }
+        if (!delivered.isEmpty()) {
+            recipientRepository.markSent(delivered);
+        }
+        if (!done.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(done);
+        }
+    }
+
+    /**
+     * Espelha em memória o que as atualizações gravaram nos destinatários desta tentativa ({@code attempted}):
+     * os de {@code retry} recebem {@code retryStatus}, os outros de {@code failed} ficam {@code FAILED} e o resto
+     * sai como {@code SENT}.
+     */
+    private static void markRecipients(EmailLog log, Set<String> attempted, Set<String> failed, Set<String> retry,
+                                       EmailLog.EmailStatus retryStatus) {
+        for (EmailRecipient recipient : log.getRecipients()) {
+            if (!attempted.contains(recipient.getEmail())) continue;
+            if (retry.contains(recipient.getEmail())) {
+                recipient.setStatus(retryStatus);
+            } else if (failed.contains(recipient.getEmail())) {
+                recipient.setStatus(EmailLog.EmailStatus.FAILED);
+            } else {
+                recipient.setStatus(EmailLog.EmailStatus.SENT);
+            }
+        }
+    }
+
+    private static boolean hasRecipient(EmailLog log, EmailLog.EmailStatus status) {
+        return log.getRecipients().stream().anyMatch(recipient -> recipient.getStatus() == status);
+    }
+
+    /** {@code availableAt} nulo: disponível para o relay já. */
+    private static OutboxMessage newMessage(EmailLog log, LocalDateTime availableAt) {
+        return OutboxMessage.builder()
+                .emailLog(log)
+                .idempotencyKey(UUID.randomUUID().toString())
+                .availableAt(availableAt)
+                .build();
+    }
+}
@@ -1,24 +1,36 @@
 package com.zedia.mensageiro.service;
 
+import com.zedia.mensageiro.dto.Dtos;
 import com.zedia.mensageiro.dto.Dtos.*;
 import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.OutboxMessage;
 import com.zedia.mensageiro.entity.Template;
 import com.zedia.mensageiro.entity.User;
 import com.zedia.mensageiro.repository.EmailLogRepository;
+import com.zedia.mensageiro.repository.EmailRecipientRepository;
 import com.zedia.mensageiro.repository.TemplateRepository;
 import com.zedia.mensageiro.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,86 +38,224 @@ import java.util.stream.Collectors;
 public class EmailService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
+    static final int MAX_HISTORY_PAGE_SIZE = 100;
+    static final Duration MAX_SCHEDULE_AHEAD = Duration.ofDays(365);
 
-    private final JavaMailSender mailSender;
     private final TemplateRepository templateRepository;
     private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
     private final EmailLogRepository emailLogRepository;
+    private final EmailRecipientRepository recipientRepository;
+    private final TemplateRenderer templateRenderer;
+    private final EmailLogWriter logWriter;
+    private final EmailBodyStore bodyStore;
+    private final EmailDispatcher emailDispatcher;
+    private final SendRateLimiter rateLimiter;
+    private final MailObservations observations;
 
-    @Value("${app.mail.from}")
-    private String fromEmail;
+    @Value("${app.mail.async:false}")
+    private boolean asyncEnabled;
+
+    @Value("${app.template.strict-variables:false}")
+    private boolean strictVariables;
 
     public EmailLogResponse sendEmail(SendEmailRequest request, Authentication auth) {
-        User sender = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
+        User sender = observations.stage("user", () -> currentUserService.get(auth));
 
-        Template template = templateRepository.findById(request.getTemplateId())
+        Template template = observations.stage("template", () -> templateRepository.findById(request.getTemplateId()))
                 .orElseThrow(() -> new IllegalArgumentException("Template não encontrado"));
 
-        List<String> recipients = request.getRecipientEmails();
-        for (String email : recipients) {
-            if (!userRepository.existsByEmail(email)) {
-                throw new IllegalArgumentException("Usuário não encontrado: " + email);
-            }
+        // Compara instantes, não horários de parede: o fuso do navegador e o do servidor não importam.
+        Instant sendAt = request.getSendAt() != null ? request.getSendAt().toInstant() : null;
+        if (sendAt != null && !sendAt.isAfter(Instant.now())) {
+            throw new IllegalArgumentException("A data de agendamento deve estar no futuro");
+        }
+        if (sendAt != null && sendAt.isAfter(Instant.now().plus(MAX_SCHEDULE_AHEAD))) {
+            throw new IllegalArgumentException("O envio pode ser agendado para no máximo "
+                    + MAX_SCHEDULE_AHEAD.toDays() + " dias à frente");
         }
 
-        String resolvedSubject = resolveVariables(template.getSubject(), request.getVariables());
-        String resolvedBody = resolveVariables(template.getBody(), request.getVariables());
+        List<String> recipients = normalizeRecipients(request.getRecipientEmails());
+        if (recipients.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um destinatário");
+        }
+        Set<String> unknown = observations.stage("recipients", () -> userRepository.findUnknownEmails(recipients));
+        if (!unknown.isEmpty()) {
+            String prefix = unknown.size() == 1 ? "Usuário não encontrado: " : "Usuários não encontrados: ";
+            throw new IllegalArgumentException(prefix + String.join(", ", unknown));
+        }
+
+        RenderedTemplate rendered = observations.stage("render",
+                () -> templateRenderer.render(template, request.getVariables()));
+        if (rendered.hasUnresolved()) {
+            if (strictVariables) {
+                throw new IllegalArgumentException("Variáveis não informadas: " + String.join(", ", rendered.getUnresolved()));
+            }
+            logger.warn("Template {} rendered with unresolved variables {}", template.getId(), rendered.getUnresolved());
+        }
+        String resolvedSubject = rendered.getSubject();
+        String resolvedBody = rendered.getBody();
+        // Só cobra o limite depois das validações, para uma requisição inválida não gastar a cota.
+        rateLimiter.checkSend(sender.getId(), template.getCategory(), recipients.size());
 
         EmailLog log = EmailLog.builder()
                 .sender(sender)
                 .template(template)
                 .subject(resolvedSubject)
                 .body(resolvedBody)
-                .recipients(recipients)
+                .status(EmailLog.EmailStatus.QUEUED)
                 .sentAt(LocalDateTime.now())
+                .scheduledAt(sendAt != null ? LocalDateTime.ofInstant(sendAt, ZoneId.systemDefault()) : null)
                 .build();
+        log.addRecipients(recipients);
+        OutboxMessage queued = observations.stage("enqueue", () -> logWriter.enqueue(log));
 
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(recipients.toArray(new String[0]));
-            message.setSubject(resolvedSubject);
-            message.setText(resolvedBody);
-            mailSender.send(message);
-            log.setStatus(EmailLog.EmailStatus.SENT);
+        // Agendado: a linha da outbox só fica disponível no horário pedido, e o relay entrega como qualquer
+        // envio na fila; nada fica em memória, então o agendamento sobrevive a reinícios.
+        if (sendAt != null) {
+            logger.info("Email {} scheduled for {} from {} to {}", log.getId(), sendAt, sender.getEmail(), recipients);
+            return EmailLogResponse.from(log);
+        }
+        if (asyncEnabled) {
+            logger.info("Email {} queued from {} to {}", log.getId(), sender.getEmail(), recipients);
+            return EmailLogResponse.from(log);
+        }
+
+        // publishNow fecha o lote pela outbox, que já deixa o log com o status final (ou reagendado).
+        MailBatches.Result result = observations.stage("publish", () -> emailDispatcher.publishNow(queued));
+        if (result == null) {
+            logger.info("Email {} picked up by the outbox relay", log.getId());
+        } else if (result.ok()) {
             logger.info("Email sent from {} to {}", sender.getEmail(), recipients);
-        } catch (Exception e) {
-            log.setStatus(EmailLog.EmailStatus.FAILED);
-            log.setErrorMessage(e.getMessage());
-            logger.warn("Failed to send email: {}", e.getMessage());
+        } else if (log.getStatus() == EmailLog.EmailStatus.QUEUED) {
+            logger.warn("Email {} failed with a transient error, retrying at {}: {}",
+                    log.getId(), log.getNextAttemptAt(), result.errorMessage());
+        } else {
+            logger.warn("Failed to send email: {}", result.errorMessage());
         }
+        return EmailLogResponse.from(log);
+    }
+
+    public EmailHistoryPage getHistory(Authentication auth, String cursor, int size, String status,
+                                       Long templateId, LocalDate from, LocalDate to) {
+        User user = currentUserService.get(auth);
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+        HistoryCursor after = cursor == null || cursor.isBlank() ? null : HistoryCursor.decode(cursor);
 
-        EmailLog saved = emailLogRepository.save(log);
-        return toResponse(saved);
+        // Busca um item a mais para saber se existe próxima página sem precisar de count(*).
+        List<EmailLogRepository.EmailLogSummary> rows = emailLogRepository.findHistoryPage(
+                user.getId(), parseStatus(status), templateId,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                after != null ? after.sentAt() : null,
+                after != null ? after.id() : null,
+                PageRequest.ofSize(pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<EmailLogRepository.EmailLogSummary> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        Map<Long, List<String>> recipients = new HashMap<>();
+        if (!page.isEmpty()) {
+            List<Long> ids = page.stream().map(EmailLogRepository.EmailLogSummary::getId).toList();
+            for (EmailLogRepository.RecipientRow row : emailLogRepository.findRecipientsByEmailLogIds(ids)) {
+                recipients.computeIfAbsent(row.getEmailLogId(), k -> new ArrayList<>()).add(row.getEmail());
+            }
+        }
+
+        List<EmailLogSummaryResponse> items = page.stream()
+                .map(row -> EmailLogSummaryResponse.builder()
+                        .id(row.getId())
+                        .subject(row.getSubject())
+                        .recipients(recipients.getOrDefault(row.getId(), List.of()))
+                        .status(row.getStatus().name())
+                        .sentAt(Dtos.utc(row.getSentAt()))
+                        .scheduledAt(Dtos.utc(row.getScheduledAt()))
+                        .templateName(row.getTemplateName())
+                        .errorMessage(row.getErrorMessage())
+                        .build())
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            EmailLogRepository.EmailLogSummary last = page.get(page.size() - 1);
+            nextCursor = new HistoryCursor(last.getSentAt(), last.getId()).encode();
+        }
+        return EmailHistoryPage.builder().items(items).nextCursor(nextCursor).build();
     }
 
-    public List<EmailLogResponse> getHistory(Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
-        return emailLogRepository.findBySenderOrderBySentAtDesc(user)
-                .stream().map(this::toResponse).collect(Collectors.toList());
+    public EmailLogResponse getById(Long id, Authentication auth) {
+        User user = currentUserService.get(auth);
+        EmailLog log = emailLogRepository.findByIdAndSenderId(id, user.getId())
+                .orElseThrow(() -> new IllegalArgumentException("E-mail não encontrado"));
+        return toDetail(log);
     }
 
-    private String resolveVariables(String text, Map<String, String> variables) {
-        if (variables == null || variables.isEmpty()) return text;
-        String result = text;
-        for (Map.Entry<String, String> entry : variables.entrySet()) {
-            result = result.replace("{{" + entry.getKey() + "}}", entry.getValue());
-        }
-        return result;
+    public ReceivedEmailPage getReceived(Authentication auth, Long before, int size) {
+        User user = currentUserService.get(auth);
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+        List<EmailRecipientRepository.ReceivedEmail> rows = recipientRepository.findReceived(
+                user.getEmail(), before, PageRequest.ofSize(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<EmailRecipientRepository.ReceivedEmail> page = hasMore ? rows.subList(0, pageSize) : rows;
+        return ReceivedEmailPage.builder()
+                .items(page.stream()
+                        .map(row -> ReceivedEmailResponse.builder()
+                                .id(row.getId())
+                                .subject(row.getSubject())
+                                .senderName(row.getSenderName())
+                                .senderEmail(row.getSenderEmail())
+                                .templateName(row.getTemplateName())
+                                .sentAt(Dtos.utc(row.getSentAt()))
+                                .build())
+                        .toList())
+                .nextBefore(hasMore ? page.get(page.size() - 1).getId() : null)
+                .build();
+    }
+
+    public EmailLogResponse getReceivedById(Long id, Authentication auth) {
+        User user = currentUserService.get(auth);
+        EmailLog log = emailLogRepository.findReceived(id, user.getEmail())
+                .orElseThrow(() -> new IllegalArgumentException("E-mail não encontrado"));
+        return toDetail(log);
+    }
+
+    /** O log lido do banco só tem o hash (ou, se antigo, o corpo próprio ou arquivado). */
+    private EmailLogResponse toDetail(EmailLog log) {
+        bodyStore.resolve(List.of(log));
+        return EmailLogResponse.from(log);
     }
 
-    private EmailLogResponse toResponse(EmailLog log) {
-        return EmailLogResponse.builder()
-                .id(log.getId())
-                .subject(log.getSubject())
-                .body(log.getBody())
-                .recipients(log.getRecipients())
-                .status(log.getStatus().name())
-                .sentAt(log.getSentAt())
-                .senderName(log.getSender().getName())
-                .templateName(log.getTemplate() != null ? log.getTemplate().getName() : null)
+    public EmailStatsResponse getStats(Authentication auth) {
+        User user = currentUserService.get(auth);
+        Map<EmailLog.EmailStatus, Long> counts = new EnumMap<>(EmailLog.EmailStatus.class);
+        for (EmailLogRepository.StatusCount c : emailLogRepository.countBySenderGroupByStatus(user.getId())) {
+            counts.put(c.getStatus(), c.getTotal());
+        }
+        return EmailStatsResponse.builder()
+                .total(counts.values().stream().mapToLong(Long::longValue).sum())
+                .queued(counts.getOrDefault(EmailLog.EmailStatus.QUEUED, 0L))
+                .sending(counts.getOrDefault(EmailLog.EmailStatus.SENDING, 0L))
+                .sent(counts.getOrDefault(EmailLog.EmailStatus.SENT, 0L))
+                .failed(counts.getOrDefault(EmailLog.EmailStatus.FAILED, 0L))
+                .deadLetter(counts.getOrDefault(EmailLog.EmailStatus.DEAD_LETTER, 0L))
                 .build();
     }
-}
\ No newline at end of file
+
+    private static EmailLog.EmailStatus parseStatus(String status) {
+        if (status == null || status.isBlank()) return null;
+        try {
+            return EmailLog.EmailStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Status inválido: " + status);
+        }
+    }
+
+    static List<String> normalizeRecipients(List<String> emails) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String email : emails) {
+            if (email == null || email.isBlank()) continue;
+            normalized.add(email.trim().toLowerCase(Locale.ROOT));
+        }
+        return new ArrayList<>(normalized);
+    }
+}
@@ -0,0 +1,27 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Mudança de status de um envio, publicada pelo caminho de envio e entregue depois do commit pelo
+ * {@link EmailEventStream}. Leva só ids e os status, para não segurar o log nem o contexto de persistência.
+ * {@code previous} é o status de antes, com o qual o stream atualiza o progresso da campanha sem recontar;
+ * nulo quando não se sabe (o progresso é recontado no banco).
+ */
+public record EmailStatusEvent(Long emailLogId, Long senderId, Long campaignId, EmailLog.EmailStatus status,
+                               EmailLog.EmailStatus previous, String errorMessage, OffsetDateTime at) {
+
+    public static EmailStatusEvent of(EmailLog log, EmailLog.EmailStatus previous) {
+        return of(log, previous, log.getStatus());
+    }
+
+    /** Para quando o status foi trocado por um update em massa e a entidade em memória ainda traz o antigo. */
+    public static EmailStatusEvent of(EmailLog log, EmailLog.EmailStatus previous, EmailLog.EmailStatus status) {
+        return new EmailStatusEvent(log.getId(), log.getSender().getId(),
+                log.getCampaign() != null ? log.getCampaign().getId() : null,
+                status, previous, log.getErrorMessage(), OffsetDateTime.now(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,186 @@
+package com.zedia.mensageiro.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Commit em grupo: junta pedidos de gravação de várias threads e grava todos numa única chamada ao
+ * {@code writer}, ou seja, numa transação e num lote JDBC. Uma thread dedicada pega o primeiro pedido e espera
+ * até {@code maxWait} por outros, ou até juntar {@code maxSize}; enquanto um grupo grava, os pedidos seguintes
+ * se acumulam para o próximo. Quem chama fica bloqueado até o próprio grupo ser gravado, então a garantia é a
+ * mesma da gravação direta.
+ * <p>
+ * Se a gravação do grupo falha, cada pedido é gravado de novo sozinho, e só os que falham de novo recebem a
+ * exceção: um item ruim não derruba os outros do grupo. Para isso o {@code writer} precisa deixar os itens como
+ * estavam quando falha.
+ * <p>
+ * A gravação roda na thread do grupo, fora do contexto de quem chamou. Cada pedido leva a {@link Observation}
+ * corrente de quem chamou: a gravação do grupo é uma observação {@code mail.log.writer.write} filha da do
+ * primeiro pedido, com os trace ids dos demais em {@code linked.traces}, e a regravação de um pedido sozinho é
+ * filha da observação dele.
+ * <p>
+ * Com {@code maxSize} menor que 2 não há thread nem espera: cada pedido grava sozinho, na thread de quem chamou.
+ */
+final class GroupCommit<T, R> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommit.class);
+
+    private record Pending<T, R>(T item, CompletableFuture<R> result, Observation caller) {
+    }
+
+    private final String name;
+    private final ObservationRegistry observationRegistry;
+    private final Function<List<T>, List<R>> writer;
+    private final Consumer<Integer> groupSizes;
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending<T, R>> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    /**
+     * @param writer     grava o grupo e devolve um resultado por item, na mesma ordem
+     * @param groupSizes recebe o tamanho de cada grupo gravado (métrica)
+     */
+    GroupCommit(String name, int maxSize, Duration maxWait, ObservationRegistry observationRegistry,
+                Function<List<T>, List<R>> writer, Consumer<Integer> groupSizes) {
+        this.name = name;
+        this.observationRegistry = observationRegistry;
+        this.writer = writer;
+        this.groupSizes = groupSizes;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = Math.max(0, maxWait.toNanos());
+        if (maxSize < 2) {
+            flusher = null;
+            return;
+        }
+        flusher = new Thread(this::run, name);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    R submit(T item) {
+        if (flusher == null || closed) {
+            return write(List.of(item)).get(0);
+        }
+        Pending<T, R> pending = new Pending<>(item, new CompletableFuture<>(), observationRegistry.getCurrentObservation());
+        queue.add(pending);
+        // Fechou entre a checagem e o add: se a thread já saiu sem levar o pedido, grava aqui mesmo.
+        if (closed && queue.remove(pending)) {
+            return write(List.of(item)).get(0);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /** Grava o que já está na fila e encerra a thread. Pedidos depois disso gravam na thread de quem chama. */
+    @Override
+    public void close() {
+        closed = true;
+        if (flusher == null) return;
+        try {
+            flusher.join(30_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending<T, R>> group = new ArrayList<>(maxSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending<T, R> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                group.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                queue.drainTo(group, maxSize - group.size());
+                while (group.size() < maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Pending<T, R> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    group.add(next);
+                    queue.drainTo(group, maxSize - group.size());
+                }
+            } catch (InterruptedException e) {
+                // Só o close encerra a thread; o que já foi juntado grava normalmente.
+            }
+            if (!group.isEmpty()) {
+                flush(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending<T, R>> group) {
+        List<R> results;
+        try {
+            results = observe(group, () -> write(group.stream().map(Pending::item).toList()));
+        } catch (Throwable e) {
+            if (group.size() == 1) {
+                group.get(0).result().completeExceptionally(e);
+                return;
+            }
+            logger.warn("Group write of {} items in {} failed, retrying each item alone", group.size(), name, e);
+            for (Pending<T, R> pending : group) {
+                try {
+                    pending.result().complete(observe(List.of(pending), () -> write(List.of(pending.item()))).get(0));
+                } catch (Throwable itemError) {
+                    pending.result().completeExceptionally(itemError);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).result().complete(results.get(i));
+        }
+    }
+
+    private List<R> observe(List<Pending<T, R>> group, Supplier<List<R>> work) {
+        Observation observation = Observation.createNotStarted("mail.log.writer.write", observationRegistry)
+                .contextualName(name + " write")
+                .parentObservation(group.get(0).caller())
+                .lowCardinalityKeyValue("writer", name)
+                .highCardinalityKeyValue("items", String.valueOf(group.size()));
+        if (group.size() > 1) {
+            String linked = group.stream().skip(1).map(pending -> traceId(pending.caller()))
+                    .filter(id -> id != null).distinct().collect(Collectors.joining(","));
+            if (!linked.isEmpty()) observation.highCardinalityKeyValue("linked.traces", linked);
+        }
+        return observation.observe(work);
+    }
+
+    private static String traceId(Observation caller) {
+        if (caller == null) return null;
+        TracingObservationHandler.TracingContext tracing =
+                caller.getContextView().get(TracingObservationHandler.TracingContext.class);
+        return tracing != null && tracing.getSpan() != null ? tracing.getSpan().context().traceId() : null;
+    }
+
+    private List<R> write(List<T> items) {
+        List<R> results = writer.apply(items);
+        groupSizes.accept(items.size());
+        return results;
+    }
+}
@@ -0,0 +1,133 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.EmailRecipient;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Move os destinatários da tabela antiga {@code email_recipients} (a coleção de strings de antes de
+ * {@link EmailRecipient}) para {@code email_log_recipients}, na subida da aplicação. Cada bloco de
+ * {@code app.migration.recipients-batch-size} logs é copiado e apagado da tabela antiga na mesma transação, então
+ * uma subida interrompida continua de onde parou; a tabela antiga é removida quando fica vazia. O status de cada
+ * destinatário vem do status final do log, ou {@code QUEUED} se o envio ainda não terminou.
+ * <p>
+ * Com dois nós subindo juntos, o que apagar menos linhas do que copiou desfaz o bloco e passa para o seguinte.
+ */
+@Component
+public class LegacyRecipientMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyRecipientMigration.class);
+    static final String LEGACY_TABLE = "email_recipients";
+    private static final Set<EmailLog.EmailStatus> FINAL =
+            Set.of(EmailLog.EmailStatus.SENT, EmailLog.EmailStatus.FAILED, EmailLog.EmailStatus.DEAD_LETTER);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactions;
+    private final DataSource dataSource;
+    private final int batchSize;
+
+    public LegacyRecipientMigration(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                    DataSource dataSource,
+                                    @Value("${app.migration.recipients-batch-size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!legacyTableExists()) return;
+        long start = System.nanoTime();
+        long copied = 0;
+        Long after = 0L;
+        while (after != null) {
+            List<Long> logIds = findLegacyLogIds(after);
+            if (logIds.isEmpty()) break;
+            try {
+                copied += transactions.execute(status -> copy(logIds));
+            } catch (ConcurrentMigrationException e) {
+                logger.info("Recipients of emails {} to {} are being migrated by another node",
+                        logIds.get(0), logIds.get(logIds.size() - 1));
+            }
+            after = logIds.size() == batchSize ? logIds.get(logIds.size() - 1) : null;
+        }
+        transactions.executeWithoutResult(status -> {
+            Number left = (Number) entityManager.createNativeQuery("select count(*) from " + LEGACY_TABLE)
+                    .getSingleResult();
+            if (left.longValue() == 0) entityManager.createNativeQuery("drop table " + LEGACY_TABLE).executeUpdate();
+        });
+        logger.info("Migrated {} recipients from {} in {} ms", copied, LEGACY_TABLE,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> findLegacyLogIds(long after) {
+        return transactions.execute(status -> ((List<Number>) entityManager.createNativeQuery(
+                        "select distinct email_log_id from " + LEGACY_TABLE
+                                + " where email_log_id > :after order by email_log_id")
+                .setParameter("after", after)
+                .setMaxResults(batchSize)
+                .getResultList()).stream().map(Number::longValue).toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long copy(List<Long> logIds) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "select r.email_log_id, r.recipient_email, l.status from " + LEGACY_TABLE + " r"
+                                + " join email_logs l on l.id = r.email_log_id where r.email_log_id in :ids")
+                .setParameter("ids", logIds)
+                .getResultList();
+        int deleted = entityManager.createNativeQuery("delete from " + LEGACY_TABLE + " where email_log_id in :ids")
+                .setParameter("ids", logIds)
+                .executeUpdate();
+        if (deleted < rows.size()) throw new ConcurrentMigrationException();
+        for (Object[] row : rows) {
+            EmailLog.EmailStatus logStatus = EmailLog.EmailStatus.valueOf(row[2].toString());
+            entityManager.persist(EmailRecipient.builder()
+                    .emailLog(entityManager.getReference(EmailLog.class, ((Number) row[0]).longValue()))
+                    .email((String) row[1])
+                    .status(FINAL.contains(logStatus) ? logStatus : EmailLog.EmailStatus.QUEUED)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return rows.size();
+    }
+
+    private boolean legacyTableExists() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metadata = connection.getMetaData();
+            for (String name : List.of(LEGACY_TABLE, LEGACY_TABLE.toUpperCase(Locale.ROOT))) {
+                try (ResultSet tables = metadata.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) return true;
+                }
+            }
+            return false;
+        } catch (SQLException e) {
+            logger.warn("Could not check for the legacy {} table; recipients were not migrated", LEGACY_TABLE, e);
+            return false;
+        }
+    }
+
+    /** Outro nó apagou parte do bloco antes: a cópia deste é desfeita. */
+    private static class ConcurrentMigrationException extends RuntimeException {
+    }
+}
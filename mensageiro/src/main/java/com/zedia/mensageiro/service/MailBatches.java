@@ -0,0 +1,116 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monta as mensagens de um log em blocos de no máximo {@code maxPerMessage} destinatários, para não
+ * estourar o limite de RCPT TO do relay, e envia um lote de mensagens numa única chamada ao
+ * {@link JavaMailSender} (uma conexão do pool). Falhas são contabilizadas por bloco. Só entram os
+ * destinatários ainda pendentes: numa nova tentativa, quem já recebeu ou foi recusado não entra de novo.
+ * <p>
+ * Cada bloco leva um Message-ID derivado da chave de idempotência da outbox, então um reenvio após queda
+ * sai com o mesmo identificador e pode ser descartado como duplicata pelo destino.
+ */
+final class MailBatches {
+
+    private MailBatches() {}
+
+    static List<Part> split(JavaMailSender mailSender, String from, EmailLog log, String idempotencyKey,
+                            int maxPerMessage) throws MessagingException {
+        int step = Math.max(1, maxPerMessage);
+        String domain = from.substring(from.indexOf('@') + 1);
+        List<String> recipients = log.getPendingRecipientEmails();
+        List<Part> parts = new ArrayList<>();
+        for (int start = 0, index = 0; start < recipients.size(); start += step, index++) {
+            List<String> chunk = recipients.subList(start, Math.min(start + step, recipients.size()));
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom(from);
+            helper.setTo(chunk.toArray(new String[0]));
+            helper.setSubject(log.getSubject());
+            helper.setText(log.getBody());
+            message.setHeader("Message-ID", "<" + idempotencyKey + "." + index + "@" + domain + ">");
+            parts.add(new Part(message, List.copyOf(chunk)));
+        }
+        return parts;
+    }
+
+    /** Envia o lote e devolve as mensagens que falharam, com a causa. */
+    static Map<MimeMessage, Exception> send(JavaMailSender mailSender, List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failed = new IdentityHashMap<>();
+        if (messages.isEmpty()) return failed;
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.forEach(m -> failed.put(m, e));
+            } else {
+                e.getFailedMessages().forEach((m, cause) -> failed.put((MimeMessage) m, cause));
+            }
+        } catch (RuntimeException e) {
+            messages.forEach(m -> failed.put(m, e));
+        }
+        return failed;
+    }
+
+    static Result result(List<Part> parts, Map<MimeMessage, Exception> failedMessages) {
+        int total = 0;
+        List<String> failed = new ArrayList<>();
+        List<String> retry = new ArrayList<>();
+        String error = null;
+        for (Part part : parts) {
+            total += part.recipients().size();
+            Exception cause = failedMessages.get(part.message());
+            if (cause != null) {
+                failed.addAll(part.recipients());
+                if (SmtpFailures.isTransient(cause)) retry.addAll(part.recipients());
+                if (error == null) error = cause.getMessage();
+            }
+        }
+        return new Result(total, failed, retry, error);
+    }
+
+    record Part(MimeMessage message, List<String> recipients) {}
+
+    /**
+     * {@code failed}: todos os destinatários dos blocos que falharam; {@code retry}: os que falharam só por motivo
+     * temporário e podem ir numa nova tentativa (cada destinatário tem o próprio status, então quem já recebeu não
+     * recebe de novo).
+     */
+    record Result(int total, List<String> failed, List<String> retry, String error) {
+
+        Result(int total, List<String> failed, String error) {
+            this(total, failed, List.of(), error);
+        }
+
+        static Result failedAll(List<String> recipients, String error) {
+            return new Result(recipients.size(), recipients, error);
+        }
+
+        boolean ok() {
+            return failed.isEmpty();
+        }
+
+        boolean retryable() {
+            return !retry.isEmpty();
+        }
+
+        String errorMessage() {
+            if (ok()) return null;
+            String message = failed.size() == total
+                    ? error
+                    : "Falha para " + failed.size() + " de " + total + " destinatários: " + error;
+            return message != null && message.length() > 255 ? message.substring(0, 255) : message;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Medições do caminho de envio. Cada etapa é uma {@link Observation}: vira o timer {@code mail.send.stage}
+ * (tag {@code stage}) e, com tracing ligado, um span filho do span da requisição ou do lote do relay.
+ * Os contadores de resultado são criados uma vez aqui, para o caminho quente só incrementar.
+ */
+@Component
+public class MailObservations {
+
+    private final ObservationRegistry observationRegistry;
+    private final Map<EmailLog.EmailStatus, Counter> outcomes = new EnumMap<>(EmailLog.EmailStatus.class);
+    private final Counter retries;
+    private final Counter smtpSent;
+    private final Counter smtpFailed;
+
+    public MailObservations(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        for (EmailLog.EmailStatus status : List.of(EmailLog.EmailStatus.SENT, EmailLog.EmailStatus.FAILED,
+                EmailLog.EmailStatus.DEAD_LETTER)) {
+            outcomes.put(status, Counter.builder("mail.send.outcome")
+                    .tag("status", status.name().toLowerCase(Locale.ROOT)).register(meterRegistry));
+        }
+        this.retries = Counter.builder("mail.send.outcome").tag("status", "retry").register(meterRegistry);
+        this.smtpSent = Counter.builder("mail.smtp.messages").tag("outcome", "sent").register(meterRegistry);
+        this.smtpFailed = Counter.builder("mail.smtp.messages").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    public <T> T stage(String stage, Supplier<T> work) {
+        return Observation.createNotStarted("mail.send.stage", observationRegistry)
+                .contextualName("mail " + stage)
+                .lowCardinalityKeyValue("stage", stage)
+                .observe(work);
+    }
+
+    public void relayBatch(int rows, Runnable work) {
+        Observation.createNotStarted("mail.relay.batch", observationRegistry)
+                .contextualName("mail relay batch")
+                .highCardinalityKeyValue("rows", String.valueOf(rows))
+                .observe(work);
+    }
+
+    /** Uma chamada ao SMTP com o lote inteiro; a tag {@code outcome} diz se houve falha. */
+    public Map<MimeMessage, Exception> smtp(List<MimeMessage> messages,
+                                           Function<List<MimeMessage>, Map<MimeMessage, Exception>> send) {
+        Observation observation = Observation.createNotStarted("mail.smtp.send", observationRegistry)
+                .contextualName("smtp send")
+                .highCardinalityKeyValue("messages", String.valueOf(messages.size()))
+                .start();
+        try (Observation.Scope ignored = observation.openScope()) {
+            Map<MimeMessage, Exception> failed = send.apply(messages);
+            String outcome = failed.isEmpty() ? "ok" : failed.size() == messages.size() ? "failed" : "partial";
+            observation.lowCardinalityKeyValue("outcome", outcome);
+            smtpSent.increment(messages.size() - failed.size());
+            smtpFailed.increment(failed.size());
+            return failed;
+        } catch (RuntimeException e) {
+            observation.lowCardinalityKeyValue("outcome", "error");
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    /** Status final (ou reagendamento) de um log depois do envio. */
+    public void outcome(EmailLog.EmailStatus status, boolean rescheduled) {
+        Counter counter = rescheduled ? retries : outcomes.get(status);
+        if (counter != null) counter.increment();
+    }
+}
@@ -0,0 +1,17 @@
+package com.zedia.mensageiro.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/** Envio recusado pelo limite de taxa; vira {@code 429 Too Many Requests} com {@code Retry-After}. */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
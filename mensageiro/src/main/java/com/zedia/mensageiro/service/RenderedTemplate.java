@@ -0,0 +1,18 @@
+package com.zedia.mensageiro.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+
+@Getter
+@RequiredArgsConstructor
+public class RenderedTemplate {
+    private final String subject;
+    private final String body;
+    private final Set<String> unresolved;
+
+    public boolean hasUnresolved() {
+        return !unresolved.isEmpty();
+    }
+}
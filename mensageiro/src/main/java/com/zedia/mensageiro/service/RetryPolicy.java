@@ -0,0 +1,40 @@
+package com.zedia.mensageiro.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff exponencial para falhas temporárias de SMTP. A espera dobra a cada tentativa até {@code max-delay}
+ * e metade dela é sorteada, para que os envios que caíram juntos numa instabilidade do relay não voltem
+ * todos no mesmo segundo.
+ */
+@Component
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+
+    public RetryPolicy(@Value("${app.mail.retry.max-attempts:5}") int maxAttempts,
+                       @Value("${app.mail.retry.initial-delay:30s}") Duration initialDelay,
+                       @Value("${app.mail.retry.max-delay:30m}") Duration maxDelay) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /** Espera antes da próxima tentativa, depois de {@code attempts} tentativas com falha. */
+    public Duration delayAfter(int attempts) {
+        long cap = maxDelay.toMillis();
+        long base = Math.min(cap, initialDelay.toMillis() << Math.min(Math.max(attempts - 1, 0), 20));
+        long half = base / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+}
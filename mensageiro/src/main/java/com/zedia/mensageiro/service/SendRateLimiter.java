@@ -0,0 +1,196 @@
+package com.zedia.mensageiro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.zedia.mensageiro.entity.Template;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Limites de envio em três níveis, todos em {@link TokenBucket}:
+ * <ul>
+ *   <li>por usuário e por categoria de template, em destinatários por segundo: estourar recusa a requisição
+ *       ({@link RateLimitExceededException}); campanhas são cobradas por bloco e, em vez de recusadas, ficam
+ *       na fila com o envio adiado ({@link #reserveCampaign});</li>
+ *   <li>global, em mensagens SMTP por segundo, igual ao limite do relay: o dispatcher espera a vez em vez de
+ *       recusar, e o envio síncrono que não cabe fica na outbox para o dispatcher.</li>
+ * </ul>
+ * Taxa {@code 0} desliga o nível. Os limites valem por nó. O balde de um usuário só sai do cache depois de
+ * encher de novo (mais {@link #IDLE} sem uso): antes disso, descartá-lo apagaria a dívida de uma campanha.
+ */
+@Component
+public class SendRateLimiter {
+
+    static final Duration IDLE = Duration.ofMinutes(10);
+
+    private final double userRate;
+    private final int userBurst;
+    private final Cache<Long, TokenBucket> userBuckets;
+    private final Map<Template.TemplateCategory, TokenBucket> categoryBuckets = new EnumMap<>(Template.TemplateCategory.class);
+    private final TokenBucket relayBucket;
+
+    private final LongAdder rejectedByUser = new LongAdder();
+    private final LongAdder rejectedByCategory = new LongAdder();
+    private final LongAdder deferredToRelay = new LongAdder();
+    private final LongAdder pacedNanos = new LongAdder();
+    private final LongAdder campaignDelayNanos = new LongAdder();
+
+    public SendRateLimiter(@Value("${app.ratelimit.user.per-second:2}") double userRate,
+                           @Value("${app.ratelimit.user.burst:50}") int userBurst,
+                           @Value("${app.ratelimit.category.per-second:0}") double categoryRate,
+                           @Value("${app.ratelimit.category.burst:200}") int categoryBurst,
+                           @Value("${app.ratelimit.global.per-second:0}") double relayRate,
+                           @Value("${app.ratelimit.global.burst:10}") int relayBurst,
+                           Environment environment) {
+        this.userRate = userRate;
+        this.userBurst = userBurst;
+        this.userBuckets = Caffeine.newBuilder().expireAfter(new UntilBucketRefills()).maximumSize(10_000).build();
+        for (Template.TemplateCategory category : Template.TemplateCategory.values()) {
+            String prefix = "app.ratelimit.category." + category.name();
+            double rate = environment.getProperty(prefix + ".per-second", Double.class, categoryRate);
+            int burst = environment.getProperty(prefix + ".burst", Integer.class, categoryBurst);
+            if (rate > 0) categoryBuckets.put(category, new TokenBucket(rate, burst));
+        }
+        this.relayBucket = relayRate > 0 ? new TokenBucket(relayRate, relayBurst) : null;
+    }
+
+    /**
+     * Cobra um envio de {@code recipients} destinatários do usuário e da categoria do template. Um envio maior
+     * que a rajada do nível nunca passaria, então é recusado como inválido ({@link IllegalArgumentException}).
+     */
+    public void checkSend(Long userId, Template.TemplateCategory category, int recipients) {
+        TokenBucket byCategory = category != null ? categoryBuckets.get(category) : null;
+        int max = Math.min(userRate > 0 ? Math.max(1, userBurst) : Integer.MAX_VALUE,
+                byCategory != null ? byCategory.getCapacity() : Integer.MAX_VALUE);
+        if (recipients > max) {
+            throw new IllegalArgumentException("O envio pode ter no máximo " + max + " destinatários; use uma campanha");
+        }
+        long wait = chargeUser(userId, bucket -> bucket.tryAcquire(recipients));
+        if (wait > 0) {
+            rejectedByUser.increment();
+            throw new RateLimitExceededException("Limite de envios por usuário excedido", Duration.ofNanos(wait));
+        }
+        wait = byCategory != null ? byCategory.tryAcquire(recipients) : 0;
+        if (wait > 0) {
+            TokenBucket user = userBuckets.getIfPresent(userId);
+            if (user != null) user.refund(recipients);
+            rejectedByCategory.increment();
+            throw new RateLimitExceededException("Limite de envios da categoria excedido", Duration.ofNanos(wait));
+        }
+    }
+
+    /**
+     * Cobra um bloco de campanha dos limites do usuário e da categoria sem recusar: os destinatários são
+     * reservados e a resposta é quanto o bloco deve esperar na fila para respeitar as duas taxas. Como a cota
+     * fica gasta, envios diretos do mesmo usuário recebem {@code 429} até a campanha caber no ritmo.
+     */
+    public Duration reserveCampaign(Long userId, Template.TemplateCategory category, int recipients) {
+        if (recipients <= 0) return Duration.ZERO;
+        TokenBucket byCategory = category != null ? categoryBuckets.get(category) : null;
+        long wait = Math.max(chargeUser(userId, bucket -> bucket.reserve(recipients)),
+                byCategory != null ? byCategory.reserve(recipients) : 0);
+        campaignDelayNanos.add(wait);
+        return Duration.ofNanos(wait);
+    }
+
+    /**
+     * Para o envio síncrono: retira as mensagens do limite global só se houver saldo agora. Um envio maior que a
+     * rajada fica para o dispatcher, que cobra em fatias.
+     */
+    public boolean tryAcquireRelay(int messages) {
+        if (relayBucket == null) return true;
+        if (messages <= relayBucket.getCapacity() && relayBucket.tryAcquire(messages) == 0) return true;
+        deferredToRelay.increment();
+        return false;
+    }
+
+    /** Devolve ao limite global mensagens cobradas por {@link #tryAcquireRelay} que não chegaram a sair. */
+    public void refundRelay(int messages) {
+        if (relayBucket != null) relayBucket.refund(messages);
+    }
+
+    /** Para o dispatcher: espera até as mensagens caberem no limite global. */
+    public void awaitRelay(int messages) throws InterruptedException {
+        if (relayBucket == null) return;
+        long wait = relayBucket.reserve(messages);
+        if (wait > 0) {
+            pacedNanos.add(wait);
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /** Maior lote que pode ser cobrado de uma vez do limite global. */
+    public int relayBurst() {
+        return relayBucket != null ? relayBucket.getCapacity() : Integer.MAX_VALUE;
+    }
+
+    public double relayAvailable() {
+        return relayBucket != null ? relayBucket.available() : Double.NaN;
+    }
+
+    public long getRejectedByUser() {
+        return rejectedByUser.sum();
+    }
+
+    public long getRejectedByCategory() {
+        return rejectedByCategory.sum();
+    }
+
+    public long getDeferredToRelay() {
+        return deferredToRelay.sum();
+    }
+
+    public double getPacedSeconds() {
+        return pacedNanos.sum() / 1e9;
+    }
+
+    public double getCampaignDelaySeconds() {
+        return campaignDelayNanos.sum() / 1e9;
+    }
+
+    /**
+     * Cobra o balde do usuário dentro do {@code compute} do cache, para que a validade da entrada seja
+     * recalculada com a dívida que a cobrança acabou de criar.
+     */
+    private long chargeUser(Long userId, ToLongFunction<TokenBucket> charge) {
+        if (userRate <= 0) return 0;
+        long[] wait = new long[1];
+        userBuckets.asMap().compute(userId, (id, bucket) -> {
+            TokenBucket charged = bucket != null ? bucket : new TokenBucket(userRate, userBurst);
+            wait[0] = charge.applyAsLong(charged);
+            return charged;
+        });
+        return wait[0];
+    }
+
+    static class UntilBucketRefills implements Expiry<Long, TokenBucket> {
+        @Override
+        public long expireAfterCreate(Long userId, TokenBucket bucket, long currentTime) {
+            return saturatedAdd(bucket.nanosUntilFull(), IDLE.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, TokenBucket bucket, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, bucket, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, TokenBucket bucket, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, bucket, currentTime);
+        }
+
+        private static long saturatedAdd(long a, long b) {
+            long sum = a + b;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        }
+    }
+}
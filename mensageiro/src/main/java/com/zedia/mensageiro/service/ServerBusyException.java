@@ -0,0 +1,17 @@
+package com.zedia.mensageiro.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/** Trabalho recusado porque o executor responsável está cheio; vira {@code 503 Service Unavailable} com {@code Retry-After}. */
+@Getter
+public class ServerBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServerBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
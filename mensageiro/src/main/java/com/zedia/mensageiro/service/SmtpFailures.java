@@ -0,0 +1,44 @@
+package com.zedia.mensageiro.service;
+
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+
+/**
+ * Separa falhas temporárias (resposta 4xx, conexão recusada ou caída, timeout) das permanentes (resposta 5xx,
+ * endereço inválido, autenticação, mensagem mal formada). Na dúvida a falha é tratada como temporária: o
+ * limite de tentativas leva o envio para dead-letter de qualquer forma.
+ */
+final class SmtpFailures {
+
+    private static final int MAX_DEPTH = 10;
+
+    private SmtpFailures() {}
+
+    static boolean isTransient(Throwable error) {
+        Throwable t = error;
+        for (int depth = 0; t != null && depth < MAX_DEPTH; depth++, t = t.getCause()) {
+            if (t instanceof SMTPAddressFailedException e) return isTransientReply(e.getReturnCode());
+            if (t instanceof SMTPSenderFailedException e) return isTransientReply(e.getReturnCode());
+            if (t instanceof SMTPSendFailedException e) return isTransientReply(e.getReturnCode());
+            if (t instanceof SendFailedException e && e.getInvalidAddresses() != null
+                    && e.getInvalidAddresses().length > 0) {
+                return false;
+            }
+            if (t instanceof AddressException || t instanceof MailAuthenticationException
+                    || t instanceof MailParseException || t instanceof MailPreparationException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTransientReply(int code) {
+        return code < 500;
+    }
+}
@@ -0,0 +1,105 @@
+package com.zedia.mensageiro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zedia.mensageiro.dto.Dtos.TemplateResponse;
+import com.zedia.mensageiro.entity.Template;
+import com.zedia.mensageiro.repository.TemplateRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Modelo de leitura dos templates: cada visão (todos, por dono, por categoria, por id) é carregada uma vez
+ * com o dono já buscado e guardada junto com um ETag calculado a partir do conteúdo.
+ * <p>
+ * Qualquer escrita em {@link TemplateService} chama {@link #invalidate()}, que avança a geração do catálogo.
+ * A geração faz parte da chave, então uma carga que começou antes da escrita nunca volta a ser servida.
+ * O TTL limita quanto tempo um nó enxerga alterações feitas por outro.
+ */
+@Component
+public class TemplateCatalog implements MeterBinder {
+
+    private final TemplateRepository templateRepository;
+    private final Cache<Key, View> views;
+    private final AtomicLong generation = new AtomicLong();
+
+    public TemplateCatalog(TemplateRepository templateRepository,
+                           @Value("${app.template.catalog-size:500}") long maxSize,
+                           @Value("${app.template.catalog-ttl:5m}") Duration ttl) {
+        this.templateRepository = templateRepository;
+        this.views = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, views, "template.catalog");
+    }
+
+    public View all() {
+        return view("all", null, templateRepository::findAllByOrderByCreatedAtDesc);
+    }
+
+    public View byOwner(Long ownerId) {
+        return view("owner", ownerId, () -> templateRepository.findByOwnerIdOrderByCreatedAtDesc(ownerId));
+    }
+
+    public View byCategory(Template.TemplateCategory category) {
+        return view("category", category, () -> templateRepository.findByCategoryOrderByCreatedAtDesc(category));
+    }
+
+    public Optional<TemplateResponse> byId(Long id) {
+        View view = view("id", id, () -> templateRepository.findWithOwnerById(id).map(List::of).orElse(List.of()));
+        return view.templates().stream().findFirst();
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        views.invalidateAll();
+    }
+
+    // A consulta roda fora do Cache.get para não segurar o lock do mapa durante o JDBC (ver CurrentUserService).
+    private View view(String kind, Object value, Supplier<List<Template>> loader) {
+        Key key = new Key(kind, value, generation.get());
+        View view = views.getIfPresent(key);
+        if (view == null) {
+            view = toView(loader.get());
+            views.put(key, view);
+        }
+        return view;
+    }
+
+    private static View toView(List<Template> templates) {
+        List<TemplateResponse> responses = templates.stream().map(TemplateResponse::from).toList();
+        return new View(responses, etag(responses));
+    }
+
+    static String etag(List<TemplateResponse> templates) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (TemplateResponse t : templates) {
+                digest.update((t.getId() + "|" + t.getUpdatedAt() + "|" + t.getOwnerEmail() + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record View(List<TemplateResponse> templates, String etag) {}
+
+    private record Key(String kind, Object value, long generation) {}
+}
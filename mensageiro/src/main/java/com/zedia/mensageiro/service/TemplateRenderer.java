@@ -0,0 +1,60 @@
+package com.zedia.mensageiro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zedia.mensageiro.entity.Template;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Component
+public class TemplateRenderer implements MeterBinder {
+
+    private final Cache<Long, Compiled> cache;
+
+    public TemplateRenderer(@Value("${app.template.cache-size:1000}") long cacheSize) {
+        this.cache = Caffeine.newBuilder().maximumSize(cacheSize).recordStats().build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "template.compiled");
+    }
+
+    public RenderedTemplate render(Template template, Map<String, String> variables) {
+        Compiled compiled = compiled(template);
+        Set<String> unresolved = new LinkedHashSet<>();
+        String subject = compiled.subject.render(variables, unresolved);
+        String body = compiled.body.render(variables, unresolved);
+        return new RenderedTemplate(subject, body, unresolved);
+    }
+
+    public void evict(Long templateId) {
+        cache.invalidate(templateId);
+    }
+
+    private Compiled compiled(Template template) {
+        if (template.getId() == null) return Compiled.of(template);
+        Compiled cached = cache.getIfPresent(template.getId());
+        if (cached != null && Objects.equals(cached.updatedAt, template.getUpdatedAt())) return cached;
+        Compiled fresh = Compiled.of(template);
+        cache.put(template.getId(), fresh);
+        return fresh;
+    }
+
+    private record Compiled(LocalDateTime updatedAt, CompiledTemplate subject, CompiledTemplate body) {
+        static Compiled of(Template template) {
+            return new Compiled(template.getUpdatedAt(),
+                    CompiledTemplate.compile(template.getSubject()),
+                    CompiledTemplate.compile(template.getBody()));
+        }
+    }
+}
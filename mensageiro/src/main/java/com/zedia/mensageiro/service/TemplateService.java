@@ -4,23 +4,21 @@ import com.zedia.mensageiro.dto.Dtos.*;
 import com.zedia.mensageiro.entity.Template;
 import com.zedia.mensageiro.entity.User;
 import com.zedia.mensageiro.repository.TemplateRepository;
-import com.zedia.mensageiro.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @Service
 @RequiredArgsConstructor
 public class TemplateService {
 
     private final TemplateRepository templateRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final TemplateRenderer templateRenderer;
+    private final TemplateCatalog templateCatalog;
 
     public TemplateResponse create(TemplateRequest request, Authentication auth) {
-        User user = getUser(auth);
+        User user = currentUserService.get(auth);
         Template template = Template.builder()
                 .name(request.getName())
                 .category(request.getCategory())
@@ -28,28 +26,27 @@ public class TemplateService {
                 .body(request.getBody())
                 .owner(user)
                 .build();
-        return TemplateResponse.from(templateRepository.save(template));
+        Template saved = templateRepository.save(template);
+        templateCatalog.invalidate();
+        return TemplateResponse.from(saved);
     }
 
-    public List<TemplateResponse> listMine(Authentication auth) {
-        User user = getUser(auth);
-        return templateRepository.findByOwnerOrderByCreatedAtDesc(user)
-                .stream().map(TemplateResponse::from).collect(Collectors.toList());
+    public TemplateCatalog.View listMine(Authentication auth) {
+        User user = currentUserService.get(auth);
+        return templateCatalog.byOwner(user.getId());
     }
 
-    public List<TemplateResponse> listAll() {
-        return templateRepository.findAll()
-                .stream().map(TemplateResponse::from).collect(Collectors.toList());
+    public TemplateCatalog.View listAll(Template.TemplateCategory category) {
+        return category != null ? templateCatalog.byCategory(category) : templateCatalog.all();
     }
 
     public TemplateResponse getById(Long id, Authentication auth) {
-        Template t = templateRepository.findById(id)
+        return templateCatalog.byId(id)
                 .orElseThrow(() -> new IllegalArgumentException("Template não encontrado"));
-        return TemplateResponse.from(t);
     }
 
     public TemplateResponse update(Long id, TemplateRequest request, Authentication auth) {
-        User user = getUser(auth);
+        User user = currentUserService.get(auth);
         Template t = templateRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Template não encontrado"));
         if (!t.getOwner().getId().equals(user.getId())) {
@@ -59,21 +56,21 @@ public class TemplateService {
         t.setCategory(request.getCategory());
         t.setSubject(request.getSubject());
         t.setBody(request.getBody());
-        return TemplateResponse.from(templateRepository.save(t));
+        Template saved = templateRepository.save(t);
+        templateRenderer.evict(id);
+        templateCatalog.invalidate();
+        return TemplateResponse.from(saved);
     }
 
     public void delete(Long id, Authentication auth) {
-        User user = getUser(auth);
+        User user = currentUserService.get(auth);
         Template t = templateRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Template não encontrado"));
         if (!t.getOwner().getId().equals(user.getId())) {
             throw new IllegalStateException("Sem permissão para deletar este template");
         }
         templateRepository.delete(t);
-    }
-
-    private User getUser(Authentication auth) {
-        return userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado"));
+        templateRenderer.evict(id);
+        templateCatalog.invalidate();
     }
 }
\ No newline at end of file
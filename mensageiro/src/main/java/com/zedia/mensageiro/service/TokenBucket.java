@@ -0,0 +1,92 @@
+package com.zedia.mensageiro.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket sem lock. Em vez de guardar o saldo e o horário da última recarga (dois campos, que exigiriam
+ * lock), guarda um único instante: quando o balde estaria cheio de novo se ninguém mais retirasse nada. Retirar
+ * {@code n} permissões empurra esse instante em {@code n} intervalos; a retirada é negada se ele passar de
+ * {@code agora + capacidade}. A atualização é um CAS, então threads concorrentes só repetem o cálculo.
+ */
+public final class TokenBucket {
+
+    private final int capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        this(permitsPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int capacity, LongSupplier clock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond deve ser positivo");
+        }
+        this.capacity = Math.max(1, capacity);
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = this.capacity * intervalNanos;
+        this.clock = clock;
+        this.fullAt = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Retira as permissões se houver saldo. Devolve {@code 0} em caso de sucesso ou, se negado, quantos
+     * nanossegundos faltam para o saldo ser suficiente. Um pedido acima da capacidade nunca caberia, então é
+     * recusado com {@link IllegalArgumentException} em vez de esperar para sempre.
+     */
+    public long tryAcquire(int permits) {
+        if (permits > capacity) {
+            throw new IllegalArgumentException("Pedido de " + permits + " permissões acima da capacidade de " + capacity);
+        }
+        long cost = cost(permits);
+        while (true) {
+            long now = clock.getAsLong();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + cost;
+            long wait = next - now - burstNanos;
+            if (wait > 0) return wait;
+            if (fullAt.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    /**
+     * Reserva as permissões mesmo sem saldo e devolve quantos nanossegundos o chamador deve esperar antes de
+     * usá-las. Chamadas concorrentes recebem esperas sucessivas, o que espaça os envios na taxa do balde. Aqui
+     * pedidos acima da capacidade são aceitos e cobrados inteiros: a espera cresce na mesma proporção.
+     */
+    public long reserve(int permits) {
+        long cost = cost(permits);
+        while (true) {
+            long now = clock.getAsLong();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + cost;
+            if (fullAt.compareAndSet(current, next)) return Math.max(0, next - now - burstNanos);
+        }
+    }
+
+    /** Devolve permissões retiradas por um {@link #tryAcquire} cuja operação não foi adiante. */
+    public void refund(int permits) {
+        fullAt.addAndGet(-cost(permits));
+    }
+
+    public double available() {
+        long debt = Math.max(0, fullAt.get() - clock.getAsLong());
+        return Math.max(0, burstNanos - debt) / (double) intervalNanos;
+    }
+
+    /** Quanto falta para o balde encher de novo; depois disso ele equivale a um balde novo. */
+    public long nanosUntilFull() {
+        return Math.max(0, fullAt.get() - clock.getAsLong());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private long cost(int permits) {
+        return Math.max(permits, 1) * intervalNanos;
+    }
+}
@@ -0,0 +1,142 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Índice em memória para o autocomplete de destinatários. Cada palavra do nome e do e-mail, sem acento e em
+ * minúsculas, vira chave de um mapa ordenado; a busca por prefixo é um intervalo desse mapa, então não toca o
+ * banco e não depende do tamanho do diretório.
+ * <p>
+ * O índice é carregado em blocos por id e completado a cada {@code app.users.directory-refresh-ms} com os ids
+ * novos, o que traz os cadastros feitos em outros nós; os cadastros deste nó entram na hora por {@link #add}.
+ * Usuários não são editados nem removidos pela API, então só há inserções.
+ */
+@Component
+public class UserDirectory implements MeterBinder {
+
+    static final int MAX_RESULTS = 20;
+    private static final int LOAD_CHUNK = 1000;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORDS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Separa a palavra do id na chave: menor que qualquer letra, então "ana" vem antes de "anabela".
+    private static final char SEPARATOR = '\u0000';
+
+    private final UserRepository userRepository;
+    private final int maxResults;
+    private final Map<Long, Indexed> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Indexed> byToken = new ConcurrentSkipListMap<>();
+    private final AtomicLong loadedUpTo = new AtomicLong();
+
+    public UserDirectory(UserRepository userRepository,
+                         @Value("${app.users.search-max-results:" + MAX_RESULTS + "}") int maxResults) {
+        this.userRepository = userRepository;
+        this.maxResults = Math.max(1, maxResults);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("users.directory.size", byId, Map::size).register(registry);
+    }
+
+    public record Entry(Long id, String name, String email) {}
+
+    private record Indexed(Entry entry, List<String> keys) {}
+
+    /** Carrega os usuários com id acima do último já carregado. Na primeira execução, todos. */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.users.directory-refresh-ms:60000}")
+    public void refresh() {
+        List<UserRepository.DirectoryEntry> rows;
+        do {
+            rows = userRepository.findDirectoryAfter(loadedUpTo.get(), PageRequest.ofSize(LOAD_CHUNK));
+            for (UserRepository.DirectoryEntry row : rows) {
+                index(new Entry(row.getId(), row.getName(), row.getEmail()));
+            }
+            if (!rows.isEmpty()) {
+                loadedUpTo.accumulateAndGet(rows.get(rows.size() - 1).getId(), Math::max);
+            }
+        } while (rows.size() == LOAD_CHUNK);
+    }
+
+    /** Usuário recém-cadastrado neste nó. O {@link #refresh} seguinte o encontra de novo e não duplica. */
+    public void add(User user) {
+        index(new Entry(user.getId(), user.getName(), user.getEmail()));
+    }
+
+    /**
+     * Até {@code limit} usuários (no máximo {@code app.users.search-max-results}) em que cada palavra da busca é
+     * prefixo de uma palavra do nome ou do e-mail, em ordem alfabética da palavra encontrada. Acentos e
+     * maiúsculas são ignorados: "joao si" encontra "João Silva".
+     */
+    public List<Entry> search(String query, String excludeEmail, int limit) {
+        List<String> terms = tokens(query);
+        if (terms.isEmpty()) return List.of();
+        int max = Math.min(Math.max(limit, 1), maxResults);
+        // O termo mais longo costuma ter o menor intervalo; os outros só filtram.
+        String first = terms.stream().reduce((a, b) -> b.length() > a.length() ? b : a).orElseThrow();
+        NavigableMap<String, Indexed> range = byToken.subMap(first, true, first + Character.MAX_VALUE, true);
+        Set<Entry> found = new LinkedHashSet<>();
+        for (Indexed indexed : range.values()) {
+            if (found.size() == max) break;
+            Entry entry = indexed.entry();
+            if (entry.email().equalsIgnoreCase(excludeEmail) || found.contains(entry)) continue;
+            if (terms.size() == 1 || matchesAll(indexed.keys(), terms)) found.add(entry);
+        }
+        return new ArrayList<>(found);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private void index(Entry entry) {
+        Set<String> keys = new LinkedHashSet<>(tokens(entry.name()));
+        keys.addAll(tokens(entry.email()));
+        Indexed indexed = new Indexed(entry, List.copyOf(keys));
+        if (byId.putIfAbsent(entry.id(), indexed) != null) return;
+        for (String key : keys) {
+            byToken.put(key + SEPARATOR + entry.id(), indexed);
+        }
+    }
+
+    private static boolean matchesAll(List<String> keys, List<String> terms) {
+        for (String term : terms) {
+            if (keys.stream().noneMatch(key -> key.startsWith(term))) return false;
+        }
+        return true;
+    }
+
+    static List<String> tokens(String text) {
+        if (text == null) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String word : WORDS.split(normalize(text))) {
+            if (!word.isEmpty()) tokens.add(word);
+        }
+        return tokens;
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
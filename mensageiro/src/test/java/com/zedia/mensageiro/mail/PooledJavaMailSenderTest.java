@@ -0,0 +1,179 @@
+package com.zedia.mensageiro.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.URLName;
+import jakarta.mail.internet.InternetAddress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledJavaMailSenderTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private PooledJavaMailSender mailSender;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = newSender(2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailSender.destroy();
+    }
+
+    private PooledJavaMailSender newSender(int maxSize, int maxMessages) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(maxSize, maxMessages,
+                Duration.ofSeconds(30), Duration.ofSeconds(2), Duration.ofSeconds(5));
+        sender.setHost("localhost");
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        return sender;
+    }
+
+    private static SimpleMailMessage message(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@mensageiro.com");
+        message.setTo(to);
+        message.setSubject("Teste");
+        message.setText("Olá");
+        return message;
+    }
+
+    @Test
+    void deveReaproveitarAMesmaConexaoEntreEnvios() {
+        for (int i = 0; i < 5; i++) {
+            mailSender.send(message("maria@empresa.com"));
+        }
+
+        assertEquals(5, greenMail.getReceivedMessages().length);
+        assertEquals(1, mailSender.getPool().getCreated());
+        assertEquals(1, mailSender.getPool().getIdle());
+        assertEquals(0, mailSender.getPool().getActive());
+    }
+
+    @Test
+    void deveReciclarConexaoAposLimiteDeMensagens() {
+        mailSender.destroy();
+        mailSender = newSender(2, 2);
+
+        for (int i = 0; i < 5; i++) {
+            mailSender.send(message("maria@empresa.com"));
+        }
+
+        assertEquals(5, greenMail.getReceivedMessages().length);
+        assertEquals(3, mailSender.getPool().getCreated());
+        assertEquals(2, mailSender.getPool().getDestroyed());
+    }
+
+    @Test
+    void deveDescartarConexaoQuandoServidorCai() {
+        mailSender.send(message("maria@empresa.com"));
+        greenMail.stop();
+
+        assertThrows(MailSendException.class, () -> mailSender.send(message("maria@empresa.com")));
+        assertEquals(0, mailSender.getPool().getIdle());
+        assertEquals(0, mailSender.getPool().getActive());
+
+        greenMail.start();
+    }
+
+    @Test
+    void deveEnviarPeloExecutorDeTransporte() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        mailSender.setTransportExecutor(executor);
+
+        mailSender.send(message("maria@empresa.com"));
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        greenMail.stop();
+
+        assertThrows(MailSendException.class, () -> mailSender.send(message("maria@empresa.com")));
+        assertEquals(0, mailSender.getPool().getActive());
+
+        greenMail.start();
+        mailSender.destroy();
+        assertTrue(executor.isShutdown());
+    }
+
+    @Test
+    void deveManterConexaoAposRecusaDeDestinatario() {
+        FakeSmtpSender sender = new FakeSmtpSender();
+
+        MailSendException exception = assertThrows(MailSendException.class, () -> sender.send(
+                message("maria@empresa.com"), message("recusado@empresa.com"), message("ana@empresa.com")));
+
+        assertEquals(1, exception.getFailedMessages().size());
+        assertEquals(List.of("maria@empresa.com", "ana@empresa.com"), sender.delivered);
+        assertEquals(1, sender.getPool().getCreated());
+        assertEquals(1, sender.getPool().getIdle());
+        sender.destroy();
+    }
+
+    @Test
+    void deveTrocarDeConexaoAposErroDeIoNoMeioDoLote() {
+        FakeSmtpSender sender = new FakeSmtpSender();
+
+        MailSendException exception = assertThrows(MailSendException.class, () -> sender.send(
+                message("maria@empresa.com"), message("queda@empresa.com"), message("ana@empresa.com")));
+
+        assertEquals(1, exception.getFailedMessages().size());
+        assertEquals(List.of("maria@empresa.com", "ana@empresa.com"), sender.delivered);
+        assertEquals(2, sender.getPool().getCreated());
+        assertEquals(1, sender.getPool().getDestroyed());
+        assertEquals(1, sender.getPool().getIdle());
+        sender.destroy();
+    }
+
+    /** Servidor falso: recusa "recusado@" com 550 e derruba a conexão ao receber "queda@". */
+    private static class FakeSmtpSender extends PooledJavaMailSender {
+
+        final List<String> delivered = new ArrayList<>();
+
+        FakeSmtpSender() {
+            super(1, 100, Duration.ofSeconds(30), Duration.ofSeconds(2), Duration.ofSeconds(5));
+        }
+
+        @Override
+        protected Transport connectTransport() {
+            Session session = Session.getInstance(new Properties());
+            return new Transport(session, new URLName("smtp://localhost")) {
+                {
+                    setConnected(true);
+                }
+
+                @Override
+                public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+                    String to = ((InternetAddress) addresses[0]).getAddress();
+                    if (to.startsWith("recusado@")) {
+                        throw new SendFailedException("550 Mailbox unavailable", null, new Address[0], new Address[0], addresses);
+                    }
+                    if (to.startsWith("queda@")) {
+                        setConnected(false);
+                        throw new MessagingException("IOException while sending message");
+                    }
+                    delivered.add(to);
+                }
+            };
+        }
+    }
+}
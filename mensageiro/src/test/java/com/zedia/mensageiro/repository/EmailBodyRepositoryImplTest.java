@@ -0,0 +1,55 @@
+package com.zedia.mensageiro.repository;
+
+import com.zedia.mensageiro.entity.EmailBody;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailBodyRepositoryImplTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbc;
+
+    @InjectMocks
+    private EmailBodyRepositoryImpl repository;
+
+    @Test
+    void deveLigarTodosOsParametrosDoUpsertPeloNome() {
+        LocalDateTime now = LocalDateTime.of(2026, 3, 1, 10, 30);
+        EmailBody body = EmailBody.builder().hash("a".repeat(64)).content(new byte[]{1, 2}).size(2)
+                .createdAt(now).lastUsedAt(now).build();
+
+        repository.upsertAll(List.of(body));
+
+        ArgumentCaptor<SqlParameterSource[]> batch = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbc).batchUpdate(eq(EmailBodyRepositoryImpl.UPSERT), batch.capture());
+        assertEquals(1, batch.getValue().length);
+        ParsedSql parsed = NamedParameterUtils.parseSqlStatement(EmailBodyRepositoryImpl.UPSERT);
+        Object[] values = NamedParameterUtils.buildValueArray(parsed, batch.getValue()[0], null);
+        assertEquals(List.of("a".repeat(64), 2, now, now, now), List.of(values[0], values[2], values[3], values[4], values[5]));
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) values[1]);
+    }
+
+    @Test
+    void deveIgnorarLoteVazio() {
+        repository.upsertAll(List.of());
+
+        verify(jdbc, never()).batchUpdate(any(String.class), any(SqlParameterSource[].class));
+    }
+}
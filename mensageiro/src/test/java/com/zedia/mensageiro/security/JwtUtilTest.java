@@ -0,0 +1,58 @@
+package com.zedia.mensageiro.security;
+
+import com.zedia.mensageiro.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "mensageiro-super-secret-key-that-is-long-enough-for-hs512-algorithm";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100);
+
+    private final User user = User.builder()
+            .id(1L)
+            .email("joao@empresa.com")
+            .role(User.Role.ADMIN)
+            .build();
+
+    @Test
+    void deveValidarTokenERetornarClaims() {
+        String token = jwtUtil.generateToken(user);
+
+        Claims claims = jwtUtil.validate(token);
+
+        assertEquals("joao@empresa.com", claims.getSubject());
+        assertEquals(1, claims.get(JwtUtil.USER_ID_CLAIM, Number.class).intValue());
+        assertEquals("ADMIN", claims.get(JwtUtil.ROLE_CLAIM));
+        assertEquals("joao@empresa.com", jwtUtil.extractEmail(token));
+    }
+
+    @Test
+    void deveReutilizarClaimsDoCacheParaOMesmoToken() {
+        String token = jwtUtil.generateToken(user);
+
+        assertSame(jwtUtil.validate(token), jwtUtil.validate(token));
+    }
+
+    @Test
+    void deveRejeitarTokenAssinadoComOutraChave() {
+        JwtUtil outro = new JwtUtil(SECRET.replace('a', 'b'), 60_000, 100);
+        String token = outro.generateToken(user);
+
+        assertThrows(SignatureException.class, () -> jwtUtil.validate(token));
+    }
+
+    @Test
+    void deveRejeitarTokenExpiradoMesmoSemCache() {
+        JwtUtil semCache = new JwtUtil(SECRET, -1_000, 0);
+        String token = semCache.generateToken(user);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.validate(token));
+        assertThrows(ExpiredJwtException.class, () -> semCache.validate(token));
+    }
+}
@@ -0,0 +1,77 @@
+package com.zedia.mensageiro.security;
+
+import com.zedia.mensageiro.service.ServerBusyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    @Test
+    void deveRecusarNaHoraQuandoAFilaEstaCheia() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) {
+                if ("lenta".contentEquals(raw)) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return "hash:" + raw;
+            }
+
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                return encode(raw).equals(encoded);
+            }
+        };
+        PasswordHasher hasher = new PasswordHasher(slow, 10, 1, 1);
+        try {
+            CompletableFuture<String> running = hasher.encode("lenta");
+            CompletableFuture<String> queued = hasher.encode("na-fila");
+
+            assertThrows(ServerBusyException.class, () -> hasher.encode("recusada"));
+
+            release.countDown();
+            assertEquals("hash:lenta", running.get());
+            assertEquals("hash:na-fila", queued.get());
+        } finally {
+            hasher.stop();
+        }
+    }
+
+    @Test
+    void deveRecusarUsuarioInexistenteComparandoUmHash() {
+        PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(4), 4, 1, 4);
+        try {
+            String hash = hasher.encode("123456").join();
+
+            assertTrue(hasher.matches("123456", hash).join());
+            assertFalse(hasher.matches("errada", hash).join());
+            assertFalse(hasher.matches("unknown-user", null).join());
+        } finally {
+            hasher.stop();
+        }
+    }
+
+    @Test
+    void deveDetectarHashComCustoDiferenteDoConfigurado() {
+        PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(5), 5, 1, 4);
+        try {
+            assertFalse(hasher.needsRehash(new BCryptPasswordEncoder(5).encode("123456")));
+            assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("123456")));
+            assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(6).encode("123456")));
+            assertFalse(hasher.needsRehash(null));
+        } finally {
+            hasher.stop();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.zedia.mensageiro.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+
+    private final TokenRevocationList revocationList = new TokenRevocationList(60_000);
+
+    @Test
+    void deveRevogarTokensEmitidosAntesDoLogout() {
+        Date emitidoAntes = new Date(System.currentTimeMillis() - 5_000);
+        revocationList.revokeAll(1L);
+
+        assertTrue(revocationList.isRevoked(1L, emitidoAntes));
+        assertFalse(revocationList.isRevoked(1L, new Date(System.currentTimeMillis() + 1_000)));
+        assertFalse(revocationList.isRevoked(2L, emitidoAntes));
+    }
+}
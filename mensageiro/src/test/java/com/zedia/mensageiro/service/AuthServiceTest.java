@@ -4,17 +4,20 @@ import com.zedia.mensageiro.dto.Dtos.*;
 import com.zedia.mensageiro.entity.User;
 import com.zedia.mensageiro.repository.UserRepository;
 import com.zedia.mensageiro.security.JwtUtil;
+import com.zedia.mensageiro.security.PasswordHasher;
+import com.zedia.mensageiro.security.TokenRevocationList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,13 +30,22 @@ class AuthServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Mock
     private JwtUtil jwtUtil;
 
     @Mock
-    private AuthenticationManager authenticationManager;
+    private CurrentUserService currentUserService;
+
+    @Mock
+    private TokenRevocationList revocationList;
+
+    @Mock
+    private UserDirectory userDirectory;
+
+    @Mock
+    private Authentication authentication;
 
     @InjectMocks
     private AuthService authService;
@@ -64,8 +76,7 @@ class AuthServiceTest {
 
     @Test
     void deveRegistrarUsuarioComSucesso() {
-        when(userRepository.existsByEmail(any())).thenReturn(false);
-        when(passwordEncoder.encode(any())).thenReturn("encoded_password");
+        when(passwordHasher.encode("123456")).thenReturn(CompletableFuture.completedFuture("encoded_password"));
         when(userRepository.save(any())).thenReturn(user);
         when(jwtUtil.generateToken(any())).thenReturn("token_fake");
 
@@ -76,11 +87,15 @@ class AuthServiceTest {
         assertEquals("João Silva", response.getName());
         assertEquals("token_fake", response.getToken());
         verify(userRepository, times(1)).save(any());
+        verify(userRepository, never()).existsByEmail(any());
+        verify(userDirectory).add(user);
     }
 
     @Test
     void deveLancarExcecaoQuandoEmailJaCadastrado() {
-        when(userRepository.existsByEmail(any())).thenReturn(true);
+        when(passwordHasher.encode("123456")).thenReturn(CompletableFuture.completedFuture("encoded_password"));
+        when(userRepository.save(any())).thenThrow(new DataIntegrityViolationException(
+                "Duplicate entry 'joao@empresa.com' for key 'users.uk_users_email'"));
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -88,15 +103,26 @@ class AuthServiceTest {
         );
 
         assertEquals("E-mail já cadastrado", exception.getMessage());
-        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).existsByEmail(any());
+        verify(jwtUtil, never()).generateToken(any());
+    }
+
+    @Test
+    void deveRepassarOutraViolacaoDeIntegridadeNoRegistro() {
+        when(passwordHasher.encode("123456")).thenReturn(CompletableFuture.completedFuture("encoded_password"));
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("Data too long for column 'name'");
+        when(userRepository.save(any())).thenThrow(violation);
+        when(userRepository.existsByEmail("joao@empresa.com")).thenReturn(false);
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> authService.register(registerRequest)));
+        verify(userDirectory, never()).add(any());
     }
 
     @Test
     void deveFazerLoginComSucesso() {
-        when(authenticationManager.authenticate(any())).thenReturn(
-                new UsernamePasswordAuthenticationToken("joao@empresa.com", "123456")
-        );
-        when(userRepository.findByEmail(any())).thenReturn(Optional.of(user));
+        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(user));
+        when(passwordHasher.matches("123456", "encoded_password")).thenReturn(CompletableFuture.completedFuture(true));
         when(jwtUtil.generateToken(any())).thenReturn("token_fake");
 
         AuthResponse response = authService.login(loginRequest);
@@ -104,5 +130,38 @@ class AuthServiceTest {
         assertNotNull(response);
         assertEquals("joao@empresa.com", response.getEmail());
         assertEquals("token_fake", response.getToken());
+        verify(userRepository, never()).updatePassword(any(), any(), any());
+    }
+
+    @Test
+    void deveRecusarLoginDeUsuarioInexistenteNoTempoDeUmHash() {
+        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.empty());
+        when(passwordHasher.matches("123456", null)).thenReturn(CompletableFuture.completedFuture(false));
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(loginRequest));
+        verify(jwtUtil, never()).generateToken(any());
+    }
+
+    @Test
+    void deveRegravarHashComCustoAntigoNoLogin() {
+        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(user));
+        when(passwordHasher.matches("123456", "encoded_password")).thenReturn(CompletableFuture.completedFuture(true));
+        when(passwordHasher.needsRehash("encoded_password")).thenReturn(true);
+        when(passwordHasher.encode("123456")).thenReturn(CompletableFuture.completedFuture("rehashed_password"));
+        when(jwtUtil.generateToken(any())).thenReturn("token_fake");
+
+        authService.login(loginRequest);
+
+        verify(userRepository).updatePassword(1L, "encoded_password", "rehashed_password");
+    }
+
+    @Test
+    void deveRevogarTokensNoLogout() {
+        when(currentUserService.get(authentication)).thenReturn(user);
+
+        authService.logout(authentication);
+
+        verify(revocationList, times(1)).revokeAll(1L);
+        verify(currentUserService, times(1)).evict(1L);
     }
-}
\ No newline at end of file
+}
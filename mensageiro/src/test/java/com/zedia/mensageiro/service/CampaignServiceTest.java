@@ -0,0 +1,267 @@
+package com.zedia.mensageiro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zedia.mensageiro.dto.Dtos.*;
+import com.zedia.mensageiro.entity.Campaign;
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.Template;
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.repository.CampaignRepository;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import com.zedia.mensageiro.repository.EmailRecipientRepository;
+import com.zedia.mensageiro.repository.TemplateRepository;
+import com.zedia.mensageiro.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CampaignServiceTest {
+
+    @Mock
+    private CampaignRepository campaignRepository;
+
+    @Mock
+    private EmailLogRepository emailLogRepository;
+
+    @Mock
+    private EmailRecipientRepository recipientRepository;
+
+    @Mock
+    private EmailOutbox emailOutbox;
+
+    @Mock
+    private SendRateLimiter rateLimiter;
+
+    @Mock
+    private TemplateRepository templateRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @Spy
+    private TemplateRenderer templateRenderer = new TemplateRenderer(100);
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private Authentication authentication;
+
+    @InjectMocks
+    private CampaignService campaignService;
+
+    private User sender;
+    private Template template;
+    private List<EmailLog> savedLogs;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(campaignService, "chunkSize", 2);
+
+        sender = User.builder()
+                .id(1L)
+                .name("João Silva")
+                .email("joao@empresa.com")
+                .role(User.Role.USER)
+                .build();
+
+        template = Template.builder()
+                .id(1L)
+                .name("Convite")
+                .category(Template.TemplateCategory.CONVITE_REUNIAO)
+                .subject("Reunião de {{area}}")
+                .body("Olá {{nome}}, sua reunião de {{area}} é às {{hora}}.")
+                .owner(sender)
+                .build();
+
+        savedLogs = new ArrayList<>();
+        // Uploads inválidos são recusados antes de procurar o remetente.
+        lenient().when(currentUserService.get(authentication)).thenReturn(sender);
+    }
+
+    private void stubPersistence() {
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        when(campaignRepository.save(any())).thenAnswer(inv -> {
+            Campaign c = inv.getArgument(0);
+            c.setId(10L);
+            return c;
+        });
+        lenient().when(rateLimiter.reserveCampaign(eq(1L), any(), anyInt())).thenReturn(Duration.ZERO);
+        when(emailOutbox.enqueueAll(any(), any())).thenAnswer(inv -> {
+            List<EmailLog> logs = inv.getArgument(0);
+            logs.forEach(savedLogs::add);
+            return List.of();
+        });
+        when(recipientRepository.findEmailsInCampaign(eq(10L), any())).thenAnswer(inv -> {
+            Collection<String> emails = inv.getArgument(1);
+            return savedLogs.stream().flatMap(l -> l.getRecipientEmails().stream()).filter(emails::contains).toList();
+        });
+    }
+
+    private static CampaignRecipient recipient(String email, Map<String, String> variables) {
+        return new CampaignRecipient(email, variables);
+    }
+
+    @Test
+    void deveCriarUmLogPersonalizadoPorDestinatario() {
+        stubPersistence();
+        CampaignRequest request = new CampaignRequest();
+        request.setTemplateId(1L);
+        request.setVariables(Map.of("area", "TI", "hora", "10:00"));
+        request.setRecipients(List.of(
+                recipient("maria@empresa.com", Map.of("nome", "Maria")),
+                recipient("Ana@Empresa.com", Map.of("nome", "Ana", "hora", "11:00")),
+                recipient("maria@empresa.com", Map.of("nome", "Maria de novo"))));
+
+        CampaignResponse response = campaignService.create(request, authentication);
+
+        assertEquals(10L, response.getId());
+        assertEquals(2, response.getTotalRecipients());
+        assertEquals(2, savedLogs.size());
+        assertEquals("Olá Maria, sua reunião de TI é às 10:00.", savedLogs.get(0).getBody());
+        assertEquals(List.of("ana@empresa.com"), savedLogs.get(1).getRecipientEmails());
+        assertEquals("Olá Ana, sua reunião de TI é às 11:00.", savedLogs.get(1).getBody());
+        assertTrue(savedLogs.stream().allMatch(l -> l.getStatus() == EmailLog.EmailStatus.QUEUED));
+        verify(emailOutbox, times(1)).enqueueAll(any(), any());
+    }
+
+    @Test
+    void deveRegistrarFalhaParaDestinatarioNaoCadastrado() {
+        stubPersistence();
+        when(userRepository.findUnknownEmails(any())).thenReturn(Set.of("pedro@empresa.com"));
+        CampaignRequest request = new CampaignRequest();
+        request.setTemplateId(1L);
+        request.setRecipients(List.of(
+                recipient("maria@empresa.com", Map.of("nome", "Maria")),
+                recipient("pedro@empresa.com", Map.of("nome", "Pedro"))));
+
+        campaignService.create(request, authentication);
+
+        assertEquals(EmailLog.EmailStatus.QUEUED, savedLogs.get(0).getStatus());
+        assertEquals(EmailLog.EmailStatus.FAILED, savedLogs.get(1).getStatus());
+        assertEquals("Usuário não encontrado", savedLogs.get(1).getErrorMessage());
+    }
+
+    @Test
+    void deveProcessarCsvEmBlocos() {
+        stubPersistence();
+        String csv = "email,nome,area,hora\n"
+                + "maria@empresa.com,Maria,TI,10:00\n"
+                + "ana@empresa.com,\"Ana, a Gerente\",RH,11:00\n"
+                + "\n"
+                + "pedro@empresa.com,Pedro,TI,12:00\n";
+
+        CampaignResponse response = campaignService.upload(1L, "text/csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), authentication);
+
+        assertEquals(3, response.getTotalRecipients());
+        assertEquals("Olá Ana, a Gerente, sua reunião de RH é às 11:00.", savedLogs.get(1).getBody());
+        verify(emailOutbox, times(2)).enqueueAll(any(), any());
+    }
+
+    @Test
+    void deveAdiarBlocoQuandoCampanhaPassaDoLimiteDoUsuario() {
+        stubPersistence();
+        when(rateLimiter.reserveCampaign(eq(1L), any(), anyInt())).thenReturn(Duration.ZERO, Duration.ofMinutes(5));
+        CampaignRequest request = new CampaignRequest();
+        request.setTemplateId(1L);
+        request.setRecipients(List.of(
+                recipient("maria@empresa.com", Map.of()),
+                recipient("ana@empresa.com", Map.of()),
+                recipient("pedro@empresa.com", Map.of())));
+
+        campaignService.create(request, authentication);
+
+        ArgumentCaptor<LocalDateTime> availableAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(emailOutbox, times(2)).enqueueAll(any(), availableAt.capture());
+        verify(rateLimiter).reserveCampaign(1L, Template.TemplateCategory.CONVITE_REUNIAO, 2);
+        verify(rateLimiter).reserveCampaign(1L, Template.TemplateCategory.CONVITE_REUNIAO, 1);
+        assertNull(availableAt.getAllValues().get(0));
+        assertTrue(availableAt.getAllValues().get(1).isAfter(LocalDateTime.now().plusMinutes(4)));
+    }
+
+    @Test
+    void deveProcessarJsonLines() {
+        stubPersistence();
+        String jsonl = "{\"email\":\"maria@empresa.com\",\"variables\":{\"nome\":\"Maria\",\"area\":\"TI\",\"hora\":\"9h\"}}\n";
+
+        CampaignResponse response = campaignService.upload(1L, "application/x-ndjson",
+                new ByteArrayInputStream(jsonl.getBytes(StandardCharsets.UTF_8)), authentication);
+
+        assertEquals(1, response.getTotalRecipients());
+        assertEquals("Reunião de TI", savedLogs.get(0).getSubject());
+    }
+
+    @Test
+    void deveRejeitarCsvSemColunaEmail() {
+        String csv = "nome,area\nMaria,TI\n";
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> campaignService.upload(1L, "text/csv",
+                        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), authentication)
+        );
+
+        assertEquals("A primeira coluna do CSV deve ser 'email'", exception.getMessage());
+    }
+
+    @Test
+    void deveRejeitarUploadComLinhaInvalidaSemEnfileirarNenhumBloco() {
+        String csv = "email,nome\n"
+                + "maria@empresa.com,Maria\n"
+                + "ana@empresa.com,Ana\n"
+                + "pedro@empresa.com,Pedro\n"
+                + "lucas@empresa.com,Lucas,coluna a mais\n";
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> campaignService.upload(1L, "text/csv",
+                        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), authentication)
+        );
+
+        assertEquals("Linha 5 inválida: colunas a mais que o cabeçalho", exception.getMessage());
+        verifyNoInteractions(emailOutbox, campaignRepository);
+    }
+
+    @Test
+    void deveLancarExcecaoAoConsultarCampanhaDeOutroUsuario() {
+        User outro = User.builder().id(2L).email("maria@empresa.com").build();
+        when(campaignRepository.findById(10L)).thenReturn(Optional.of(
+                Campaign.builder().id(10L).sender(outro).template(template).build()));
+
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> campaignService.getProgress(10L, authentication)
+        );
+
+        assertEquals("Sem permissão para acessar esta campanha", exception.getMessage());
+    }
+}
@@ -0,0 +1,98 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.dto.Dtos.*;
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterServiceTest {
+
+    @Mock
+    private EmailLogRepository emailLogRepository;
+
+    @Mock
+    private EmailOutbox emailOutbox;
+
+    @InjectMocks
+    private DeadLetterService deadLetterService;
+
+    private static EmailLogRepository.FailedEmail failed(long id) {
+        return new EmailLogRepository.FailedEmail() {
+            public Long getId() { return id; }
+            public String getSubject() { return "Sistema ERP indisponível"; }
+            public EmailLog.EmailStatus getStatus() { return EmailLog.EmailStatus.DEAD_LETTER; }
+            public LocalDateTime getSentAt() { return LocalDateTime.of(2024, 1, 10, 9, 0); }
+            public String getErrorMessage() { return "Connection refused"; }
+            public int getAttempts() { return 5; }
+            public String getSenderEmail() { return "joao@empresa.com"; }
+        };
+    }
+
+    @Test
+    void deveListarDeadLetterPaginadoPorId() {
+        when(emailLogRepository.findByStatusBefore(eq(EmailLog.EmailStatus.DEAD_LETTER), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(failed(9L), failed(8L), failed(7L)));
+
+        FailedEmailPage page = deadLetterService.list(null, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(8L, page.getNextBefore());
+        assertEquals("DEAD_LETTER", page.getItems().get(0).getStatus());
+        assertEquals(5, page.getItems().get(0).getAttempts());
+    }
+
+    @Test
+    void deveRejeitarStatusQueNaoEhDeFalha() {
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> deadLetterService.list("SENT", null, 20)
+        );
+
+        assertEquals("Status inválido: SENT", exception.getMessage());
+    }
+
+    @Test
+    void deveLancarExcecaoAoReenviarLogInelegivel() {
+        when(emailOutbox.replay(1L)).thenReturn(false);
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> deadLetterService.replay(1L)
+        );
+
+        assertEquals("E-mail não encontrado ou não está disponível para reenvio", exception.getMessage());
+    }
+
+    @Test
+    void deveReenviarTodosOsDeadLettersEmBlocos() {
+        List<EmailLogRepository.FailedEmail> firstChunk = new ArrayList<>();
+        for (long id = 250; id > 50; id--) firstChunk.add(failed(id));
+        when(emailLogRepository.findByStatusBefore(eq(EmailLog.EmailStatus.DEAD_LETTER), isNull(), any(Pageable.class)))
+                .thenReturn(firstChunk);
+        when(emailLogRepository.findByStatusBefore(eq(EmailLog.EmailStatus.DEAD_LETTER), eq(51L), any(Pageable.class)))
+                .thenReturn(List.of(failed(3L)));
+        when(emailOutbox.replay(anyLong())).thenReturn(true);
+
+        int replayed = deadLetterService.replayAllDeadLetters();
+
+        assertEquals(201, replayed);
+        verify(emailOutbox, times(201)).replay(anyLong());
+    }
+}
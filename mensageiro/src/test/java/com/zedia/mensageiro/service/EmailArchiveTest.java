@@ -0,0 +1,111 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailBody;
+import com.zedia.mensageiro.entity.EmailLogArchive;
+import com.zedia.mensageiro.repository.EmailBodyRepository;
+import com.zedia.mensageiro.repository.EmailLogArchiveRepository;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailArchiveTest {
+
+    @Mock
+    private EmailLogRepository emailLogRepository;
+
+    @Mock
+    private EmailLogArchiveRepository archiveRepository;
+
+    @Mock
+    private EmailBodyRepository bodyRepository;
+
+    @InjectMocks
+    private EmailArchive emailArchive;
+
+    static EmailLogRepository.ArchivableBody archivable(Long id, LocalDateTime sentAt, String body) {
+        return archivable(id, sentAt, body, null);
+    }
+
+    static EmailLogRepository.ArchivableBody archivable(Long id, LocalDateTime sentAt, String body, String bodyHash) {
+        return new EmailLogRepository.ArchivableBody() {
+            public Long getId() { return id; }
+            public LocalDateTime getSentAt() { return sentAt; }
+            public String getBody() { return body; }
+            public String getBodyHash() { return bodyHash; }
+        };
+    }
+
+    @Test
+    void deveArquivarCorpoComprimidoNoMesDoEnvio() {
+        String body = "Olá Maria, o sistema ERP estará fora às 22:00.\n".repeat(50);
+        when(emailLogRepository.clearBodies(List.of(7L))).thenReturn(1);
+
+        int archived = emailArchive.archive(List.of(archivable(7L, LocalDateTime.of(2026, 1, 31, 23, 59), body)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailLogArchive>> rows = ArgumentCaptor.forClass(List.class);
+        verify(archiveRepository).saveAll(rows.capture());
+        EmailLogArchive row = rows.getValue().get(0);
+        assertEquals(1, archived);
+        assertEquals(7L, row.getEmailLogId());
+        assertEquals(202601, row.getArchiveMonth());
+        assertTrue(row.getBody().length < body.length() / 10);
+        assertEquals(body, EmailArchive.decompress(row.getBody()));
+    }
+
+    @Test
+    void deveDevolverCorpoAoLogNoReenvio() {
+        EmailLogArchive archived = EmailLogArchive.builder().emailLogId(7L).archiveMonth(202601)
+                .body(EmailArchive.compress("Olá Maria")).archivedAt(LocalDateTime.now()).build();
+        when(archiveRepository.findByEmailLogId(7L)).thenReturn(Optional.of(archived));
+
+        emailArchive.restore(7L);
+
+        verify(emailLogRepository).restoreBody(7L, "Olá Maria");
+        verify(archiveRepository).deleteByEmailLogId(7L);
+    }
+
+    @Test
+    void deveArquivarSoOHashDoCorpoCompartilhadoELerOCorpoPorEle() {
+        String hash = EmailBodyStore.hash("Olá equipe");
+        emailArchive.archive(List.of(archivable(8L, LocalDateTime.of(2026, 2, 1, 9, 0), null, hash)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailLogArchive>> rows = ArgumentCaptor.forClass(List.class);
+        verify(archiveRepository).saveAll(rows.capture());
+        EmailLogArchive row = rows.getValue().get(0);
+        assertNull(row.getBody());
+        assertEquals(hash, row.getBodyHash());
+
+        when(archiveRepository.findByEmailLogId(8L)).thenReturn(Optional.of(row));
+        when(bodyRepository.findById(hash)).thenReturn(Optional.of(EmailBody.builder()
+                .hash(hash).content(EmailArchive.compress("Olá equipe")).build()));
+        assertEquals("Olá equipe", emailArchive.findBody(8L).orElseThrow());
+
+        emailArchive.restore(8L);
+        verify(emailLogRepository).restoreBodyHash(8L, hash);
+        verify(bodyRepository).touch(eq(List.of(hash)), any());
+        verify(emailLogRepository, never()).restoreBody(any(), any());
+    }
+
+    @Test
+    void deveApagarApenasMesesAnterioresAoLimite() {
+        emailArchive.purge(LocalDateTime.of(2026, 3, 15, 10, 0));
+
+        verify(archiveRepository).deleteMonthsBefore(202603);
+    }
+}
@@ -0,0 +1,122 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailBody;
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.repository.EmailBodyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailBodyStoreTest {
+
+    private static final String AVISO = "Olá equipe, o sistema ERP estará fora às 22:00.";
+
+    @Mock
+    private EmailBodyRepository bodyRepository;
+
+    @Mock
+    private EmailArchive emailArchive;
+
+    private EmailBodyStore bodyStore;
+
+    @BeforeEach
+    void setUp() {
+        bodyStore = new EmailBodyStore(bodyRepository, emailArchive, 100);
+    }
+
+    private static EmailLog log(long id, String body) {
+        return EmailLog.builder().id(id).body(body).status(EmailLog.EmailStatus.QUEUED).build();
+    }
+
+    private static EmailBody stored(String body) {
+        return EmailBody.builder().hash(EmailBodyStore.hash(body)).content(EmailArchive.compress(body))
+                .size(body.length()).createdAt(LocalDateTime.now()).build();
+    }
+
+    @Test
+    void deveGravarUmaVezOCorpoRepetidoEntreLogs() {
+        List<EmailLog> logs = List.of(log(1L, AVISO), log(2L, AVISO), log(3L, "Olá Maria"));
+        when(bodyRepository.findExistingHashes(any())).thenReturn(Set.of(EmailBodyStore.hash("Olá Maria")));
+        when(bodyRepository.touch(any(), any())).thenReturn(1);
+
+        bodyStore.store(logs);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailBody>> saved = ArgumentCaptor.forClass(List.class);
+        verify(bodyRepository).upsertAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(AVISO, EmailArchive.decompress(saved.getValue().get(0).getContent()));
+        assertEquals(logs.get(0).getBodyHash(), logs.get(1).getBodyHash());
+        assertEquals(64, logs.get(2).getBodyHash().length());
+        verify(bodyRepository).touch(eq(Set.of(EmailBodyStore.hash("Olá Maria"))), any());
+    }
+
+    @Test
+    void deveRegravarCorpoQueAColetaApagouEntreABuscaEOTouch() {
+        when(bodyRepository.findExistingHashes(any())).thenReturn(Set.of(EmailBodyStore.hash(AVISO)));
+        when(bodyRepository.touch(any(), any())).thenReturn(0);
+
+        bodyStore.store(List.of(log(1L, AVISO)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailBody>> saved = ArgumentCaptor.forClass(List.class);
+        verify(bodyRepository).upsertAll(saved.capture());
+        assertEquals(List.of(EmailBodyStore.hash(AVISO)), saved.getValue().stream().map(EmailBody::getHash).toList());
+    }
+
+    @Test
+    void deveResolverCorpoCompartilhadoUsandoCache() {
+        EmailLog first = log(1L, null);
+        first.setBodyHash(EmailBodyStore.hash(AVISO));
+        EmailLog second = log(2L, null);
+        second.setBodyHash(first.getBodyHash());
+        when(bodyRepository.findAllById(any())).thenReturn(List.of(stored(AVISO)));
+
+        bodyStore.resolve(List.of(first));
+        bodyStore.resolve(List.of(second));
+
+        assertEquals(AVISO, first.getBody());
+        assertEquals(AVISO, second.getBody());
+        verify(bodyRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void deveColetarEmBlocosOsCorposSemReferencia() {
+        LocalDateTime unusedSince = LocalDateTime.of(2026, 5, 1, 0, 0);
+        when(bodyRepository.findUnreferenced(eq(unusedSince), any()))
+                .thenReturn(List.of("a", "b"), List.of("c"));
+        when(bodyRepository.deleteUnreferenced(any(), eq(unusedSince))).thenReturn(2, 1);
+
+        assertEquals(3, bodyStore.collect(unusedSince, 2));
+        verify(bodyRepository).deleteUnreferenced(List.of("a", "b"), unusedSince);
+        verify(bodyRepository).deleteUnreferenced(List.of("c"), unusedSince);
+    }
+
+    @Test
+    void deveUsarCorpoDoProprioLogOuDoArquivoEmEnviosAntigos() {
+        EmailLog inline = log(1L, null);
+        inline.setInlineBody("Olá Maria");
+        EmailLog archived = log(2L, null);
+        when(emailArchive.findBody(2L)).thenReturn(Optional.of("Olá João"));
+
+        bodyStore.resolve(List.of(inline, archived));
+
+        assertEquals("Olá Maria", inline.getBody());
+        assertEquals("Olá João", archived.getBody());
+        verifyNoInteractions(bodyRepository);
+    }
+}
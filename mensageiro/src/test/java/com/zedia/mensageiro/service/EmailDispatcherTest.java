@@ -0,0 +1,309 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.OutboxMessage;
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import com.zedia.mensageiro.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailDispatcherTest {
+
+    @Mock
+    private OutboxMessageRepository outboxRepository;
+
+    @Mock
+    private EmailLogRepository emailLogRepository;
+
+    @Mock
+    private EmailLogWriter logWriter;
+
+    @Mock
+    private EmailBodyStore bodyStore;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Spy
+    private SendRateLimiter rateLimiter = new SendRateLimiter(0, 1, 0, 1, 0, 1, new MockEnvironment());
+
+    @Spy
+    private MailObservations observations = new MailObservations(ObservationRegistry.NOOP, new SimpleMeterRegistry());
+
+    @InjectMocks
+    private EmailDispatcher emailDispatcher;
+
+    private EmailLog emailLog;
+    private OutboxMessage outboxMessage;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(emailDispatcher, "fromEmail", "noreply@mensageiro.com");
+        ReflectionTestUtils.setField(emailDispatcher, "maxRecipientsPerMessage", 50);
+        ReflectionTestUtils.setField(emailDispatcher, "workers", 2);
+        ReflectionTestUtils.setField(emailDispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(emailDispatcher, "leaseSeconds", 60L);
+
+        emailLog = EmailLog.builder()
+                .id(1L)
+                .sender(User.builder().id(10L).build())
+                .subject("Sistema ERP indisponível")
+                .body("Olá Maria, o sistema estará fora às 22:00.")
+                .status(EmailLog.EmailStatus.SENDING)
+                .build();
+        emailLog.addRecipients(List.of("maria@empresa.com"));
+        outboxMessage = OutboxMessage.builder()
+                .id(7L)
+                .emailLog(emailLog)
+                .idempotencyKey("0b6f5a3e-1c2d-4e5f-8a9b-0c1d2e3f4a5b")
+                .build();
+    }
+
+    private void stubMimeMessages() {
+        when(mailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage((Session) null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, MailBatches.Result> completedResults() {
+        ArgumentCaptor<Map<Long, MailBatches.Result>> results = ArgumentCaptor.forClass(Map.class);
+        verify(logWriter).complete(eq(List.of(outboxMessage)), results.capture());
+        return results.getValue();
+    }
+
+    @Test
+    void deveEnviarLoteDaOutboxComMessageIdEstavel() throws Exception {
+        stubMimeMessages();
+
+        emailDispatcher.deliver(List.of(outboxMessage), true);
+
+        ArgumentCaptor<MimeMessage[]> sent = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender).send(sent.capture());
+        MimeMessage message = sent.getValue()[0];
+        assertEquals("maria@empresa.com", message.getRecipients(Message.RecipientType.TO)[0].toString());
+        assertEquals("Sistema ERP indisponível", message.getSubject());
+        assertEquals("<0b6f5a3e-1c2d-4e5f-8a9b-0c1d2e3f4a5b.0@mensageiro.com>", message.getHeader("Message-ID")[0]);
+        assertTrue(completedResults().get(1L).ok());
+    }
+
+    @Test
+    void deveTratarSmtpIndisponivelComoFalhaTemporaria() {
+        stubMimeMessages();
+        doThrow(new RuntimeException("SMTP indisponível")).when(mailSender).send(any(MimeMessage[].class));
+
+        emailDispatcher.deliver(List.of(outboxMessage), true);
+
+        MailBatches.Result result = completedResults().get(1L);
+        assertFalse(result.ok());
+        assertTrue(result.retryable());
+        assertEquals("SMTP indisponível", result.errorMessage());
+    }
+
+    @Test
+    void deveTratarEnderecoRecusadoComoFalhaPermanente() {
+        stubMimeMessages();
+        doAnswer(inv -> {
+            MimeMessage message = inv.getArgument(0);
+            Exception rejected = new SendFailedException("Invalid Addresses",
+                    new SMTPAddressFailedException(new InternetAddress("maria@empresa.com"), "RCPT TO", 550,
+                            "550 5.1.1 User unknown"));
+            throw new MailSendException(Map.of(message, rejected));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        emailDispatcher.deliver(List.of(outboxMessage), true);
+
+        MailBatches.Result result = completedResults().get(1L);
+        assertFalse(result.ok());
+        assertFalse(result.retryable());
+    }
+
+    @Test
+    void deveTratarRespostaTemporariaDoServidorComoRetentavel() {
+        stubMimeMessages();
+        doAnswer(inv -> {
+            MimeMessage message = inv.getArgument(0);
+            Exception busy = new SMTPSendFailedException("DATA", 451, "451 4.3.0 Try again later", null, null, null, null);
+            throw new MailSendException(Map.of(message, busy));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        emailDispatcher.deliver(List.of(outboxMessage), true);
+
+        assertTrue(completedResults().get(1L).retryable());
+    }
+
+    @Test
+    void deveDividirDestinatariosEmBlocosEContarFalhaParcial() {
+        ReflectionTestUtils.setField(emailDispatcher, "maxRecipientsPerMessage", 2);
+        emailLog.getRecipients().clear();
+        emailLog.addRecipients(List.of("a@empresa.com", "b@empresa.com", "c@empresa.com", "d@empresa.com", "e@empresa.com"));
+        List<MimeMessage> created = new ArrayList<>();
+        when(mailSender.createMimeMessage()).thenAnswer(inv -> {
+            MimeMessage message = new MimeMessage((Session) null);
+            created.add(message);
+            return message;
+        });
+        doAnswer(inv -> {
+            throw new MailSendException(Map.of(created.get(1), new RuntimeException("Caixa cheia")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        emailDispatcher.deliver(List.of(outboxMessage), true);
+
+        assertEquals(3, created.size());
+        MailBatches.Result result = completedResults().get(1L);
+        assertEquals(List.of("c@empresa.com", "d@empresa.com"), result.failed());
+        assertEquals("Falha para 2 de 5 destinatários: Caixa cheia", result.errorMessage());
+        // Erro sem código SMTP conta como temporário: só o bloco que falhou vai para a próxima tentativa.
+        assertEquals(result.failed(), result.retry());
+    }
+
+    @Test
+    void deveReenviarApenasParaDestinatariosPendentes() throws Exception {
+        emailLog.getRecipients().clear();
+        emailLog.addRecipients(List.of("a@empresa.com", "b@empresa.com", "c@empresa.com"));
+        emailLog.getRecipients().get(0).setStatus(EmailLog.EmailStatus.SENT);
+        emailLog.getRecipients().get(2).setStatus(EmailLog.EmailStatus.SENT);
+        stubMimeMessages();
+        List<MimeMessage> sent = new ArrayList<>();
+        doAnswer(inv -> {
+            MimeMessage message = inv.getArgument(0);
+            sent.add(message);
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        emailDispatcher.deliver(List.of(outboxMessage), true);
+
+        assertEquals(1, sent.size());
+        assertEquals(1, sent.get(0).getRecipients(Message.RecipientType.TO).length);
+        assertEquals("b@empresa.com", sent.get(0).getRecipients(Message.RecipientType.TO)[0].toString());
+        assertEquals(1, completedResults().get(1L).total());
+    }
+
+    @Test
+    void deveApenasLimparOutboxQuandoLogJaFoiConcluido() {
+        emailLog.setStatus(EmailLog.EmailStatus.SENT);
+
+        emailDispatcher.deliver(List.of(outboxMessage), true);
+
+        verify(mailSender, never()).send(any(MimeMessage[].class));
+        assertTrue(completedResults().isEmpty());
+    }
+
+    @Test
+    void deveIgnorarLinhasJaReivindicadasPorOutroNo() {
+        emailDispatcher.start();
+        when(outboxRepository.findClaimableIds(any(), any())).thenReturn(List.of(7L));
+        when(outboxRepository.claim(anyCollection(), any(), any(), any())).thenReturn(0);
+
+        emailDispatcher.dispatchPending();
+        emailDispatcher.stop();
+
+        verify(outboxRepository, never()).findByClaimToken(any());
+        verify(logWriter, never()).complete(anyList(), anyMap());
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void deveDeixarParaOProximoCicloQuandoTodosOsWorkersEstaoOcupados() {
+        emailDispatcher.start();
+        Semaphore slots = (Semaphore) ReflectionTestUtils.getField(emailDispatcher, "slots");
+        slots.acquireUninterruptibly(2);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> emailDispatcher.dispatchPending());
+        slots.release(2);
+        emailDispatcher.stop();
+
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    void devePublicarNaHoraQuandoLinhaAindaLivre() {
+        stubMimeMessages();
+        when(outboxRepository.claim(eq(List.of(7L)), any(), any(), any())).thenReturn(1);
+
+        MailBatches.Result result = emailDispatcher.publishNow(outboxMessage);
+
+        assertTrue(result.ok());
+        verify(mailSender).send(any(MimeMessage[].class));
+        verify(emailLogRepository).markSendingByClaimToken(any());
+        ArgumentCaptor<EmailStatusEvent> event = ArgumentCaptor.forClass(EmailStatusEvent.class);
+        verify(events).publishEvent(event.capture());
+        assertEquals(EmailLog.EmailStatus.SENDING, event.getValue().status());
+        assertEquals(EmailLog.EmailStatus.QUEUED, event.getValue().previous());
+    }
+
+    @Test
+    void deveDevolverLimiteGlobalQuandoRelayJaReivindicouALinha() {
+        when(outboxRepository.claim(eq(List.of(7L)), any(), any(), any())).thenReturn(0);
+
+        assertNull(emailDispatcher.publishNow(outboxMessage));
+
+        verify(rateLimiter).refundRelay(1);
+        verify(emailLogRepository, never()).markSendingByClaimToken(any());
+        verifyNoInteractions(mailSender, events);
+    }
+
+    @Test
+    void deveEnviarEmFatiasNoRitmoDoLimiteGlobal() throws Exception {
+        ReflectionTestUtils.setField(emailDispatcher, "maxRecipientsPerMessage", 1);
+        emailLog.getRecipients().clear();
+        emailLog.addRecipients(List.of("a@empresa.com", "b@empresa.com", "c@empresa.com", "d@empresa.com", "e@empresa.com"));
+        stubMimeMessages();
+        doReturn(2).when(rateLimiter).relayBurst();
+        doNothing().when(rateLimiter).awaitRelay(anyInt());
+
+        emailDispatcher.deliver(List.of(outboxMessage), true);
+
+        verify(mailSender, times(3)).send(any(MimeMessage[].class));
+        verify(rateLimiter, times(2)).awaitRelay(2);
+        verify(rateLimiter).awaitRelay(1);
+        assertTrue(completedResults().get(1L).ok());
+    }
+
+    @Test
+    void deveDeixarParaORelayQuandoLimiteGlobalEsgotado() {
+        doReturn(false).when(rateLimiter).tryAcquireRelay(1);
+
+        assertNull(emailDispatcher.publishNow(outboxMessage));
+
+        verify(outboxRepository, never()).claim(anyCollection(), any(), any(), any());
+        verifyNoInteractions(mailSender);
+    }
+}
@@ -0,0 +1,138 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.dto.Dtos.CampaignResponse;
+import com.zedia.mensageiro.entity.EmailLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailEventStreamTest {
+
+    @Mock
+    private CampaignService campaignService;
+
+    private static EmailStatusEvent event(long logId, long senderId, Long campaignId, EmailLog.EmailStatus status) {
+        return event(logId, senderId, campaignId, EmailLog.EmailStatus.SENDING, status);
+    }
+
+    private static EmailStatusEvent event(long logId, long senderId, Long campaignId, EmailLog.EmailStatus previous,
+                                          EmailLog.EmailStatus status) {
+        return new EmailStatusEvent(logId, senderId, campaignId, status, previous, null, OffsetDateTime.now());
+    }
+
+    private EmailEventStream stream(Executor executor, int bufferSize, int maxPerUser) {
+        return new EmailEventStream(campaignService, executor, null, bufferSize, maxPerUser, Duration.ofMinutes(1),
+                Duration.ofMinutes(1), 1000, 25000);
+    }
+
+    @Test
+    void deveEntregarStatusSoAoRemetente() {
+        EmailEventStream stream = stream(Runnable::run, 16, 5);
+        RecordingEmitter maria = new RecordingEmitter();
+        RecordingEmitter joao = new RecordingEmitter();
+        stream.register(10L, maria);
+        stream.register(20L, joao);
+
+        EmailStatusEvent sent = event(1L, 10L, null, EmailLog.EmailStatus.SENT);
+        stream.onStatus(sent);
+
+        assertEquals(List.of(sent), maria.payloads);
+        assertTrue(joao.payloads.isEmpty());
+        verifyNoInteractions(campaignService);
+    }
+
+    @Test
+    void deveDesconectarAssinanteLentoComAFilaCheia() {
+        List<Runnable> neverRun = new ArrayList<>();
+        EmailEventStream stream = stream(neverRun::add, 3, 1);
+        RecordingEmitter stuck = new RecordingEmitter();
+        stream.register(10L, stuck);
+
+        for (long id = 1; id <= 5; id++) {
+            stream.onStatus(event(id, 10L, null, EmailLog.EmailStatus.SENT));
+        }
+
+        assertTrue(stuck.completed);
+        assertEquals(1, neverRun.size());
+        // A vaga do assinante derrubado foi liberada.
+        assertDoesNotThrow(() -> stream.register(10L, new RecordingEmitter()));
+    }
+
+    @Test
+    void deveAgruparProgressoDaCampanhaNumaContagem() {
+        EmailEventStream stream = stream(Runnable::run, 16, 5);
+        RecordingEmitter owner = new RecordingEmitter();
+        stream.register(10L, owner);
+        CampaignResponse progress = CampaignResponse.builder().id(5L).totalRecipients(3).sent(3).build();
+        when(campaignService.progress(5L)).thenReturn(Optional.of(progress));
+
+        for (long id = 1; id <= 3; id++) {
+            stream.onStatus(event(id, 10L, 5L, EmailLog.EmailStatus.SENT));
+        }
+        stream.publishCampaignProgress();
+        stream.publishCampaignProgress();
+
+        verify(campaignService, times(1)).progress(5L);
+        assertEquals(4, owner.payloads.size());
+        assertEquals(3, ((CampaignResponse) owner.payloads.get(3)).getSent());
+    }
+
+    @Test
+    void deveAtualizarProgressoPelosEventosSemRecontar() {
+        EmailEventStream stream = stream(Runnable::run, 16, 5);
+        RecordingEmitter owner = new RecordingEmitter();
+        stream.register(10L, owner);
+        when(campaignService.progress(5L)).thenReturn(Optional.of(
+                CampaignResponse.builder().id(5L).totalRecipients(3).sent(1).sending(2).build()));
+        stream.onStatus(event(1L, 10L, 5L, EmailLog.EmailStatus.SENT));
+        stream.publishCampaignProgress();
+
+        stream.onStatus(event(2L, 10L, 5L, EmailLog.EmailStatus.SENT));
+        stream.onStatus(event(3L, 10L, 5L, EmailLog.EmailStatus.FAILED));
+        stream.publishCampaignProgress();
+
+        verify(campaignService, times(1)).progress(5L);
+        CampaignResponse last = (CampaignResponse) owner.payloads.get(owner.payloads.size() - 1);
+        assertEquals(2, last.getSent());
+        assertEquals(1, last.getFailed());
+        assertEquals(0, last.getSending());
+
+        // Sem status anterior (reenvio manual), o progresso volta a ser contado no banco.
+        stream.onStatus(event(3L, 10L, 5L, null, EmailLog.EmailStatus.QUEUED));
+        stream.publishCampaignProgress();
+        verify(campaignService, times(2)).progress(5L);
+    }
+
+    /** Guarda os objetos enviados (sem os comentários) em vez de escrever numa resposta HTTP. */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<Object> payloads = new ArrayList<>();
+        boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(data -> data.getData())
+                    .filter(data -> !(data instanceof String))
+                    .forEach(payloads::add);
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
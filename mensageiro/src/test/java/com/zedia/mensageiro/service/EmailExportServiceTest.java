@@ -0,0 +1,113 @@
+package com.zedia.mensageiro.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zedia.mensageiro.entity.EmailLog;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailExportServiceTest {
+
+    /** Gravado no fuso do servidor, exportado em UTC. */
+    private static final LocalDateTime SENT_AT =
+            LocalDateTime.ofInstant(Instant.parse("2026-03-01T10:30:00Z"), ZoneId.systemDefault());
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private EmailExportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new EmailExportService(entityManager, objectMapper, 1000);
+    }
+
+    private static EmailExportRow row(long id, String subject, String recipient, EmailLog.EmailStatus status) {
+        return new EmailExportRow(id, "maria@email.com", subject, EmailLog.EmailStatus.SENT, "Boas-vindas", null,
+                SENT_AT, null, 1, null, recipient, status);
+    }
+
+    /** Confere que o total devolvido é o de envios, não o de linhas, nos dois formatos. */
+    private String export(List<EmailExportRow> rows, EmailExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long emails = rows.stream().map(EmailExportRow::emailLogId).distinct().count();
+        assertEquals(emails, service.write(rows.iterator(), format, false, out));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void deveExportarCsvComUmaLinhaPorDestinatarioEscapandoCampos() throws Exception {
+        String csv = export(List.of(
+                row(1L, "Olá, \"Maria\"", "ana@email.com", EmailLog.EmailStatus.SENT),
+                row(1L, "Olá, \"Maria\"", "joao@email.com", EmailLog.EmailStatus.FAILED)),
+                EmailExportService.Format.CSV);
+
+        String[] lines = csv.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(EmailExportService.CSV_HEADER, lines[0]);
+        assertEquals("1,maria@email.com,\"Olá, \"\"Maria\"\"\",SENT,Boas-vindas,,2026-03-01T10:30Z,,1,,ana@email.com,SENT",
+                lines[1]);
+        assertTrue(lines[2].endsWith(",joao@email.com,FAILED"));
+    }
+
+    @Test
+    void deveAgruparDestinatariosDoMesmoEnvioNumaLinhaJson() throws Exception {
+        String jsonl = export(List.of(
+                row(1L, "Primeiro", "ana@email.com", EmailLog.EmailStatus.SENT),
+                row(1L, "Primeiro", "joao@email.com", EmailLog.EmailStatus.FAILED),
+                row(2L, "Segundo", "ana@email.com", EmailLog.EmailStatus.SENT)),
+                EmailExportService.Format.JSON_LINES);
+
+        String[] lines = jsonl.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals("2026-03-01T10:30:00Z", first.get("sentAt").asText());
+        assertEquals(2, first.get("recipients").size());
+        assertEquals("FAILED", first.get("recipients").get(1).get("status").asText());
+        assertEquals(1, objectMapper.readTree(lines[1]).get("recipients").size());
+    }
+
+    @Test
+    void deveExportarEnvioSemDestinatariosGravados() throws Exception {
+        List<EmailExportRow> rows = List.of(row(3L, "Antigo", null, null));
+
+        String csv = export(rows, EmailExportService.Format.CSV);
+        String jsonl = export(rows, EmailExportService.Format.JSON_LINES);
+
+        assertTrue(csv.split("\n")[1].endsWith(",1,,,"));
+        JsonNode email = objectMapper.readTree(jsonl.trim());
+        assertEquals(3, email.get("id").asLong());
+        assertEquals(0, email.get("recipients").size());
+    }
+
+    @Test
+    void deveCompactarComGzipQuandoPedido() throws Exception {
+        List<EmailExportRow> rows = List.of(row(1L, "Primeiro", "ana@email.com", EmailLog.EmailStatus.SENT));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.write(rows.iterator(), EmailExportService.Format.CSV, true, out);
+
+        byte[] plain = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes();
+        assertEquals(export(rows, EmailExportService.Format.CSV), new String(plain, StandardCharsets.UTF_8));
+    }
+}
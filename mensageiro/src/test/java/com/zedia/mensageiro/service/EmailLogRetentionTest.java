@@ -0,0 +1,71 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.zedia.mensageiro.service.EmailArchiveTest.archivable;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailLogRetentionTest {
+
+    @Mock
+    private EmailLogRepository emailLogRepository;
+
+    @Mock
+    private EmailArchive emailArchive;
+
+    @Mock
+    private EmailBodyStore bodyStore;
+
+    @Test
+    void deveArquivarEmBlocosAvancandoPelaDataDeEnvio() {
+        EmailLogRetention retention = new EmailLogRetention(emailLogRepository, emailArchive, bodyStore,
+                Duration.ofDays(90), Duration.ofDays(30), Duration.ZERO, Duration.ofDays(1), 2);
+        LocalDateTime cutoff = LocalDateTime.of(2026, 6, 1, 0, 0);
+        LocalDateTime first = cutoff.minusDays(20);
+        LocalDateTime second = cutoff.minusDays(10);
+        when(emailLogRepository.findArchivable(eq(cutoff.minusDays(30)), eq(cutoff), any()))
+                .thenReturn(List.of(archivable(1L, first, "a"), archivable(2L, second, "b")));
+        when(emailLogRepository.findArchivable(eq(second), eq(cutoff), any()))
+                .thenReturn(List.of(archivable(3L, cutoff.minusDays(1), "c")));
+        when(emailArchive.archive(anyList())).thenAnswer(inv -> inv.<List<?>>getArgument(0).size());
+
+        assertEquals(3, retention.archive(cutoff));
+        verify(emailArchive, times(2)).archive(anyList());
+    }
+
+    @Test
+    void naoDeveFazerNadaComRetencaoDesligada() {
+        EmailLogRetention retention = new EmailLogRetention(emailLogRepository, emailArchive, bodyStore,
+                Duration.ZERO, Duration.ofDays(30), Duration.ZERO, Duration.ofDays(1), 500);
+
+        retention.run();
+
+        verifyNoInteractions(emailLogRepository, emailArchive, bodyStore);
+    }
+
+    @Test
+    void deveColetarCorposSemReferenciaDepoisDeApagarOArquivo() {
+        EmailLogRetention retention = new EmailLogRetention(emailLogRepository, emailArchive, bodyStore,
+                Duration.ZERO, Duration.ofDays(30), Duration.ofDays(365), Duration.ofDays(1), 500);
+
+        retention.run();
+
+        InOrder order = inOrder(emailArchive, bodyStore);
+        order.verify(emailArchive).purge(any());
+        order.verify(bodyStore).collect(any(), eq(500));
+    }
+}
@@ -0,0 +1,199 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.OutboxMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailLogWriterTest {
+
+    @Mock
+    private EmailOutbox emailOutbox;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+    private EmailLogWriter logWriter;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (logWriter != null) logWriter.stop();
+    }
+
+    /** Espera longa: o grupo só fecha ao juntar {@code maxBatch} pedidos, o que torna o teste determinístico. */
+    private EmailLogWriter writer(int maxBatch) {
+        logWriter = new EmailLogWriter(emailOutbox, meterRegistry, observationRegistry, maxBatch, Duration.ofSeconds(30));
+        return logWriter;
+    }
+
+    private static EmailLog log(long id) {
+        return EmailLog.builder().id(id).status(EmailLog.EmailStatus.QUEUED).build();
+    }
+
+    private static OutboxMessage row(long id, EmailLog log) {
+        return OutboxMessage.builder().id(id).emailLog(log).idempotencyKey("chave-" + id).build();
+    }
+
+    @Test
+    void deveFecharLotesSimultaneosNumaTransacao() throws Exception {
+        EmailLogWriter writer = writer(3);
+        List<Future<?>> calls = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            OutboxMessage row = row(10 + id, log(id));
+            Map<Long, MailBatches.Result> result = Map.of(id, new MailBatches.Result(1, List.of(), null));
+            calls.add(callers.submit(() -> writer.complete(List.of(row), result)));
+        }
+        for (Future<?> call : calls) call.get();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OutboxMessage>> rows = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, MailBatches.Result>> results = ArgumentCaptor.forClass(Map.class);
+        verify(emailOutbox, times(1)).complete(rows.capture(), results.capture());
+        assertEquals(3, rows.getValue().size());
+        assertEquals(3, results.getValue().size());
+        assertEquals(3, meterRegistry.get("mail.log.writer.group").tag("operation", "complete").summary().max());
+    }
+
+    @Test
+    void deveDevolverALinhaDaOutboxDeCadaLog() throws Exception {
+        EmailLogWriter writer = writer(2);
+        EmailLog first = log(1L);
+        EmailLog second = log(2L);
+        when(emailOutbox.enqueueAll(anyList())).thenAnswer(inv -> {
+            List<EmailLog> logs = inv.getArgument(0);
+            // Ordem diferente da dos pedidos: cada um precisa receber a própria linha.
+            List<OutboxMessage> rows = new ArrayList<>(logs.stream().map(l -> row(10 + l.getId(), l)).toList());
+            Collections.reverse(rows);
+            return rows;
+        });
+
+        Future<OutboxMessage> a = callers.submit(() -> writer.enqueue(first));
+        Future<OutboxMessage> b = callers.submit(() -> writer.enqueue(second));
+
+        assertSame(first, a.get().getEmailLog());
+        assertSame(second, b.get().getEmailLog());
+        verify(emailOutbox, times(1)).enqueueAll(anyList());
+    }
+
+    @Test
+    void deveRepassarFalhaDaGravacaoParaTodoOGrupo() {
+        EmailLogWriter writer = writer(2);
+        when(emailOutbox.enqueueAll(any())).thenThrow(new IllegalStateException("Banco indisponível"));
+
+        Future<OutboxMessage> a = callers.submit(() -> writer.enqueue(log(1L)));
+        Future<OutboxMessage> b = callers.submit(() -> writer.enqueue(log(2L)));
+
+        for (Future<OutboxMessage> call : List.of(a, b)) {
+            ExecutionException e = assertThrows(ExecutionException.class, call::get);
+            assertEquals("Banco indisponível", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void deveRegravarSozinhoCadaPedidoQuandoOGrupoFalha() throws Exception {
+        EmailLogWriter writer = writer(2);
+        EmailLog ruim = EmailLog.builder().subject("inválido").status(EmailLog.EmailStatus.QUEUED).build();
+        EmailLog bom = EmailLog.builder().subject("Aviso").status(EmailLog.EmailStatus.QUEUED).build();
+        AtomicLong sequence = new AtomicLong();
+        when(emailOutbox.enqueueAll(anyList())).thenAnswer(inv -> {
+            List<EmailLog> logs = inv.getArgument(0);
+            // Como o persist: o id da sequência é atribuído antes do commit.
+            logs.forEach(l -> l.setId(sequence.incrementAndGet()));
+            if (logs.contains(ruim)) throw new IllegalStateException("Assunto inválido");
+            return logs.stream().map(l -> row(10 + l.getId(), l)).toList();
+        });
+
+        Future<OutboxMessage> a = callers.submit(() -> writer.enqueue(ruim));
+        Future<OutboxMessage> b = callers.submit(() -> writer.enqueue(bom));
+
+        ExecutionException e = assertThrows(ExecutionException.class, a::get);
+        assertEquals("Assunto inválido", e.getCause().getMessage());
+        assertSame(bom, b.get().getEmailLog());
+        assertNull(ruim.getId());
+        assertNotNull(bom.getId());
+        verify(emailOutbox, times(3)).enqueueAll(anyList());
+    }
+
+    @Test
+    void deveDesfazerStatusEmMemoriaAntesDeRegravarConclusao() throws Exception {
+        EmailLogWriter writer = writer(2);
+        EmailLog first = log(1L);
+        EmailLog second = log(2L);
+        doAnswer(inv -> {
+            List<OutboxMessage> rows = inv.getArgument(0);
+            rows.forEach(r -> r.getEmailLog().setAttempts(r.getEmailLog().getAttempts() + 1));
+            if (rows.size() > 1) throw new IllegalStateException("Deadlock");
+            return null;
+        }).when(emailOutbox).complete(anyList(), any());
+
+        Map<Long, MailBatches.Result> ok = Map.of(1L, new MailBatches.Result(1, List.of(), null),
+                2L, new MailBatches.Result(1, List.of(), null));
+        Future<?> a = callers.submit(() -> writer.complete(List.of(row(11, first)), ok));
+        Future<?> b = callers.submit(() -> writer.complete(List.of(row(12, second)), ok));
+        a.get();
+        b.get();
+
+        assertEquals(1, first.getAttempts());
+        assertEquals(1, second.getAttempts());
+    }
+
+    @Test
+    void deveGravarOGrupoComoFilhoDaObservacaoDeQuemChamou() throws Exception {
+        List<Observation.Context> started = new CopyOnWriteArrayList<>();
+        observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStart(Observation.Context context) {
+                started.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        EmailLogWriter writer = writer(2);
+        when(emailOutbox.enqueueAll(anyList()))
+                .thenAnswer(inv -> ((List<EmailLog>) inv.getArgument(0)).stream().map(l -> row(10 + l.getId(), l)).toList());
+
+        Future<OutboxMessage> a = callers.submit(() ->
+                Observation.createNotStarted("request", observationRegistry).observe(() -> writer.enqueue(log(1L))));
+        Future<OutboxMessage> b = callers.submit(() ->
+                Observation.createNotStarted("request", observationRegistry).observe(() -> writer.enqueue(log(2L))));
+        a.get();
+        b.get();
+
+        Observation.Context write = started.stream()
+                .filter(c -> c.getName().equals("mail.log.writer.write")).findFirst().orElseThrow();
+        assertEquals("request", write.getParentObservation().getContextView().getName());
+        assertEquals("2", write.getHighCardinalityKeyValue("items").getValue());
+    }
+}
@@ -0,0 +1,236 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.EmailRecipient;
+import com.zedia.mensageiro.entity.OutboxMessage;
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.repository.EmailLogRepository;
+import com.zedia.mensageiro.repository.EmailRecipientRepository;
+import com.zedia.mensageiro.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxTest {
+
+    @Mock
+    private EmailLogRepository emailLogRepository;
+
+    @Mock
+    private OutboxMessageRepository outboxRepository;
+
+    @Mock
+    private EmailRecipientRepository recipientRepository;
+
+    @Mock
+    private EmailArchive emailArchive;
+
+    @Mock
+    private EmailBodyStore bodyStore;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Spy
+    private RetryPolicy retryPolicy = new RetryPolicy(3, Duration.ofSeconds(30), Duration.ofMinutes(2));
+
+    @Spy
+    private MailObservations observations = new MailObservations(ObservationRegistry.NOOP, new SimpleMeterRegistry());
+
+    @InjectMocks
+    private EmailOutbox emailOutbox;
+
+    private static OutboxMessage row(long id, EmailLog log) {
+        return OutboxMessage.builder().id(id).emailLog(log).idempotencyKey("chave-" + id).build();
+    }
+
+    private static EmailLog sending(long id, int attempts) {
+        return EmailLog.builder().id(id).sender(User.builder().id(10L).build())
+                .status(EmailLog.EmailStatus.SENDING).attempts(attempts).build();
+    }
+
+    private static MailBatches.Result transientFailure() {
+        return new MailBatches.Result(1, List.of("maria@empresa.com"), List.of("maria@empresa.com"), "Connection refused");
+    }
+
+    @Test
+    void deveCriarLinhaNaOutboxApenasParaLogsNaFila() {
+        EmailLog queued = EmailLog.builder().id(1L).status(EmailLog.EmailStatus.QUEUED).build();
+        EmailLog failed = EmailLog.builder().id(2L).status(EmailLog.EmailStatus.FAILED).build();
+        when(emailLogRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        emailOutbox.enqueueAll(List.of(queued, failed));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OutboxMessage>> rows = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertSame(queued, rows.getValue().get(0).getEmailLog());
+        assertNotNull(rows.getValue().get(0).getIdempotencyKey());
+    }
+
+    @Test
+    void deveLiberarLinhaAgendadaSoNoHorarioPedido() {
+        LocalDateTime sendAt = LocalDateTime.of(2030, 1, 15, 9, 0);
+        EmailLog scheduled = EmailLog.builder().status(EmailLog.EmailStatus.QUEUED).scheduledAt(sendAt).build();
+
+        emailOutbox.enqueue(scheduled);
+
+        ArgumentCaptor<OutboxMessage> row = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxRepository).save(row.capture());
+        assertEquals(sendAt, row.getValue().getAvailableAt());
+    }
+
+    @Test
+    void deveGravarResultadosERemoverLinhasNaMesmaChamada() {
+        EmailLog sent = sending(1L, 0);
+        EmailLog rejected = sending(2L, 0);
+
+        emailOutbox.complete(List.of(row(7L, sent), row(8L, rejected)), Map.of(
+                1L, new MailBatches.Result(1, List.of(), null),
+                2L, MailBatches.Result.failedAll(List.of("ana@empresa.com"), "Caixa cheia")));
+
+        verify(emailLogRepository).markSent(List.of(1L));
+        verify(emailLogRepository).complete(2L, EmailLog.EmailStatus.FAILED, "Caixa cheia");
+        verify(recipientRepository).markSent(List.of(1L));
+        verify(recipientRepository).markFailed(2L, List.of("ana@empresa.com"), EmailLog.EmailStatus.FAILED);
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(7L, 8L));
+        assertEquals(EmailLog.EmailStatus.SENT, sent.getStatus());
+        assertEquals(1, rejected.getAttempts());
+
+        ArgumentCaptor<EmailStatusEvent> published = ArgumentCaptor.forClass(EmailStatusEvent.class);
+        verify(events, times(2)).publishEvent(published.capture());
+        assertEquals(List.of(EmailLog.EmailStatus.SENT, EmailLog.EmailStatus.FAILED),
+                published.getAllValues().stream().map(EmailStatusEvent::status).toList());
+        assertEquals(10L, published.getValue().senderId());
+        assertEquals("Caixa cheia", published.getValue().errorMessage());
+    }
+
+    @Test
+    void deveGravarStatusPorDestinatarioNaEntregaParcial() {
+        EmailLog log = sending(1L, 0);
+        log.addRecipients(List.of("a@empresa.com", "b@empresa.com", "c@empresa.com"));
+        log.getRecipients().forEach(r -> r.setStatus(EmailLog.EmailStatus.QUEUED));
+
+        emailOutbox.complete(List.of(row(7L, log)), Map.of(
+                1L, new MailBatches.Result(3, List.of("b@empresa.com"), "Caixa cheia")));
+
+        assertEquals(EmailLog.EmailStatus.FAILED, log.getStatus());
+        verify(recipientRepository).markFailed(1L, List.of("b@empresa.com"), EmailLog.EmailStatus.FAILED);
+        verify(recipientRepository).markSent(List.of(1L));
+        verify(emailLogRepository, never()).markSent(anyList());
+        assertEquals(List.of(EmailLog.EmailStatus.SENT, EmailLog.EmailStatus.FAILED, EmailLog.EmailStatus.SENT),
+                log.getRecipients().stream().map(EmailRecipient::getStatus).toList());
+    }
+
+    @Test
+    void deveReagendarFalhaTemporariaComBackoff() {
+        EmailLog log = sending(1L, 0);
+        LocalDateTime before = LocalDateTime.now();
+
+        emailOutbox.complete(List.of(row(7L, log)), Map.of(1L, transientFailure()));
+
+        assertEquals(EmailLog.EmailStatus.QUEUED, log.getStatus());
+        assertEquals(1, log.getAttempts());
+        assertFalse(log.getNextAttemptAt().isBefore(before.plusSeconds(15)));
+        assertFalse(log.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(30)));
+        verify(emailLogRepository).reschedule(1L, "Connection refused", log.getNextAttemptAt());
+        verify(outboxRepository).reschedule(7L, log.getNextAttemptAt());
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void deveReagendarSoOsDestinatariosComFalhaTemporaria() {
+        EmailLog log = sending(1L, 0);
+        log.addRecipients(List.of("a@empresa.com", "b@empresa.com", "c@empresa.com"));
+        log.getRecipients().forEach(r -> r.setStatus(EmailLog.EmailStatus.QUEUED));
+
+        emailOutbox.complete(List.of(row(7L, log)), Map.of(1L, new MailBatches.Result(3,
+                List.of("b@empresa.com", "c@empresa.com"), List.of("c@empresa.com"), "421 Try again later")));
+
+        assertEquals(EmailLog.EmailStatus.QUEUED, log.getStatus());
+        assertEquals(List.of("c@empresa.com"), log.getPendingRecipientEmails());
+        verify(emailLogRepository).reschedule(1L, "Falha para 2 de 3 destinatários: 421 Try again later",
+                log.getNextAttemptAt());
+        verify(recipientRepository).markSent(1L, List.of("a@empresa.com"));
+        verify(recipientRepository).markFailed(1L, List.of("b@empresa.com"), EmailLog.EmailStatus.FAILED);
+        verify(outboxRepository).reschedule(7L, log.getNextAttemptAt());
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void deveFecharComoFalhaQuandoANovaTentativaEntregaDepoisDeUmaRecusa() {
+        EmailLog log = sending(1L, 1);
+        log.setErrorMessage("Falha para 2 de 3 destinatários: 550 Mailbox unavailable");
+        log.addRecipients(List.of("a@empresa.com", "b@empresa.com", "c@empresa.com"));
+        log.getRecipients().get(0).setStatus(EmailLog.EmailStatus.SENT);
+        log.getRecipients().get(1).setStatus(EmailLog.EmailStatus.FAILED);
+        log.getRecipients().get(2).setStatus(EmailLog.EmailStatus.QUEUED);
+
+        emailOutbox.complete(List.of(row(7L, log)), Map.of(1L, new MailBatches.Result(1, List.of(), null)));
+
+        assertEquals(EmailLog.EmailStatus.FAILED, log.getStatus());
+        assertEquals(EmailLog.EmailStatus.SENT, log.getRecipients().get(2).getStatus());
+        verify(emailLogRepository).complete(1L, EmailLog.EmailStatus.FAILED,
+                "Falha para 2 de 3 destinatários: 550 Mailbox unavailable");
+        verify(emailLogRepository, never()).markSent(anyList());
+        verify(recipientRepository).markSent(List.of(1L));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(7L));
+    }
+
+    @Test
+    void deveMoverParaDeadLetterAoEsgotarTentativas() {
+        EmailLog log = sending(1L, 2);
+
+        emailOutbox.complete(List.of(row(7L, log)), Map.of(1L, transientFailure()));
+
+        assertEquals(EmailLog.EmailStatus.DEAD_LETTER, log.getStatus());
+        verify(emailLogRepository).complete(1L, EmailLog.EmailStatus.DEAD_LETTER, "Connection refused");
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(7L));
+        verify(outboxRepository, never()).reschedule(any(), any());
+    }
+
+    @Test
+    void deveReenfileirarApenasLogsElegiveis() {
+        when(emailLogRepository.requeue(1L)).thenReturn(1);
+        when(emailLogRepository.getReferenceById(1L)).thenReturn(sending(1L, 0));
+        when(emailLogRepository.requeue(2L)).thenReturn(0);
+
+        assertTrue(emailOutbox.replay(1L));
+        assertFalse(emailOutbox.replay(2L));
+
+        verify(outboxRepository, times(1)).save(any());
+        verify(recipientRepository).requeue(1L);
+        verify(emailArchive).restore(1L);
+        verify(recipientRepository, never()).requeue(2L);
+        verify(emailArchive, never()).restore(2L);
+    }
+
+    @Test
+    void deveLimitarEsperaDoBackoff() {
+        for (int attempts = 1; attempts <= 10; attempts++) {
+            Duration delay = retryPolicy.delayAfter(attempts);
+            Duration base = Duration.ofSeconds(Math.min(120, 30L << (attempts - 1)));
+            assertFalse(delay.compareTo(base.dividedBy(2)) < 0);
+            assertFalse(delay.compareTo(base) > 0);
+        }
+    }
+}
@@ -2,35 +2,46 @@ package com.zedia.mensageiro.service;
 
 import com.zedia.mensageiro.dto.Dtos.*;
 import com.zedia.mensageiro.entity.EmailLog;
+import com.zedia.mensageiro.entity.OutboxMessage;
 import com.zedia.mensageiro.entity.Template;
 import com.zedia.mensageiro.entity.User;
 import com.zedia.mensageiro.repository.EmailLogRepository;
+import com.zedia.mensageiro.repository.EmailRecipientRepository;
 import com.zedia.mensageiro.repository.TemplateRepository;
 import com.zedia.mensageiro.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class EmailServiceTest {
 
-    @Mock
-    private JavaMailSender mailSender;
-
     @Mock
     private TemplateRepository templateRepository;
 
@@ -40,6 +51,30 @@ class EmailServiceTest {
     @Mock
     private EmailLogRepository emailLogRepository;
 
+    @Mock
+    private EmailRecipientRepository recipientRepository;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @Mock
+    private EmailLogWriter logWriter;
+
+    @Mock
+    private EmailDispatcher emailDispatcher;
+
+    @Mock
+    private EmailBodyStore bodyStore;
+
+    @Mock
+    private SendRateLimiter rateLimiter;
+
+    @Spy
+    private MailObservations observations = new MailObservations(ObservationRegistry.NOOP, new SimpleMeterRegistry());
+
+    @Spy
+    private TemplateRenderer templateRenderer = new TemplateRenderer(100);
+
     @Mock
     private Authentication authentication;
 
@@ -50,12 +85,9 @@ class EmailServiceTest {
     private User recipient;
     private Template template;
     private SendEmailRequest sendEmailRequest;
-    private EmailLog emailLog;
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@mensageiro.com");
-
         sender = User.builder()
                 .id(1L)
                 .name("João Silva")
@@ -90,62 +122,178 @@ class EmailServiceTest {
                 "hora", "22:00"
         ));
 
-        emailLog = EmailLog.builder()
-                .id(1L)
-                .sender(sender)
-                .template(template)
-                .subject("Sistema ERP indisponível")
-                .body("Olá Maria, o sistema estará fora às 22:00.")
-                .recipients(List.of("maria@empresa.com"))
-                .status(EmailLog.EmailStatus.SENT)
-                .build();
-
-        when(authentication.getName()).thenReturn("joao@empresa.com");
-        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(sender));
+        when(currentUserService.get(authentication)).thenReturn(sender);
     }
 
     @Test
     void deveEnviarEmailComSucesso() {
         when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
-        when(userRepository.existsByEmail("maria@empresa.com")).thenReturn(true);
-        when(emailLogRepository.save(any())).thenReturn(emailLog);
-        doNothing().when(mailSender).send(any(SimpleMailMessage.class));
+        stubOutbox(new MailBatches.Result(1, List.of(), null));
 
         EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
 
         assertNotNull(response);
         assertEquals("Sistema ERP indisponível", response.getSubject());
         assertEquals("SENT", response.getStatus());
-        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
-        verify(emailLogRepository, times(1)).save(any());
+        verify(logWriter, times(1)).enqueue(any());
+        verify(emailDispatcher, times(1)).publishNow(any());
     }
 
     @Test
     void deveRegistrarFalhaQuandoSmtpIndisponivel() {
         when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
-        when(userRepository.existsByEmail("maria@empresa.com")).thenReturn(true);
-        when(emailLogRepository.save(any())).thenReturn(
-                EmailLog.builder()
-                        .id(1L).sender(sender).template(template)
-                        .subject("Sistema ERP indisponível")
-                        .body("Olá Maria, o sistema estará fora às 22:00.")
-                        .recipients(List.of("maria@empresa.com"))
-                        .status(EmailLog.EmailStatus.FAILED)
-                        .build()
-        );
-        doThrow(new RuntimeException("SMTP indisponível")).when(mailSender).send(any(SimpleMailMessage.class));
+        stubOutbox(MailBatches.Result.failedAll(List.of("maria@empresa.com"), "SMTP indisponível"));
 
         EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
 
         assertNotNull(response);
         assertEquals("FAILED", response.getStatus());
-        verify(emailLogRepository, times(1)).save(any());
+        verify(logWriter, times(1)).enqueue(any());
+    }
+
+    @Test
+    void deveManterNaFilaQuandoFalhaTemporaria() {
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        stubOutbox(new MailBatches.Result(1, List.of("maria@empresa.com"), List.of("maria@empresa.com"),
+                "Connection refused"));
+
+        EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
+
+        assertEquals("QUEUED", response.getStatus());
+    }
+
+    @Test
+    void deveRecusarEnvioAcimaDoLimiteSemGravarLog() {
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        doThrow(new RateLimitExceededException("Limite de envios por usuário excedido", java.time.Duration.ofSeconds(3)))
+                .when(rateLimiter).checkSend(any(), any(), anyInt());
+
+        RateLimitExceededException exception = assertThrows(
+                RateLimitExceededException.class,
+                () -> emailService.sendEmail(sendEmailRequest, authentication)
+        );
+
+        assertEquals(java.time.Duration.ofSeconds(3), exception.getRetryAfter());
+        verify(logWriter, never()).enqueue(any());
+    }
+
+    @Test
+    void deveGravarLogNaOutboxAntesDeEnviar() {
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        List<EmailLog.EmailStatus> statusAoGravar = new java.util.ArrayList<>();
+        when(logWriter.enqueue(any())).thenAnswer(inv -> {
+            EmailLog log = inv.getArgument(0);
+            statusAoGravar.add(log.getStatus());
+            return outboxFor(log);
+        });
+        when(emailDispatcher.publishNow(any())).thenReturn(new MailBatches.Result(1, List.of(), null));
+
+        emailService.sendEmail(sendEmailRequest, authentication);
+
+        InOrder order = inOrder(logWriter, emailDispatcher);
+        order.verify(logWriter).enqueue(any());
+        order.verify(emailDispatcher).publishNow(any());
+        assertEquals(List.of(EmailLog.EmailStatus.QUEUED), statusAoGravar);
+    }
+
+    @Test
+    void deveManterNaFilaQuandoRelayJaReivindicouALinha() {
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        stubOutbox(null);
+
+        EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
+
+        assertEquals("QUEUED", response.getStatus());
+    }
+
+    @Test
+    void deveEnfileirarEmailQuandoModoAssincrono() {
+        ReflectionTestUtils.setField(emailService, "asyncEnabled", true);
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        when(logWriter.enqueue(any())).thenAnswer(inv -> outboxFor(inv.getArgument(0)));
+
+        EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
+
+        assertEquals("QUEUED", response.getStatus());
+        assertEquals("Sistema ERP indisponível", response.getSubject());
+        verify(emailDispatcher, never()).publishNow(any());
+        verify(logWriter, times(1)).enqueue(any());
+    }
+
+    @Test
+    void deveAgendarEnvioSemPublicarNaHora() {
+        OffsetDateTime sendAt = OffsetDateTime.now(ZoneOffset.UTC).plusHours(2);
+        sendEmailRequest.setSendAt(sendAt);
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        when(logWriter.enqueue(any())).thenAnswer(inv -> outboxFor(inv.getArgument(0)));
+
+        EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
+
+        assertEquals("QUEUED", response.getStatus());
+        assertEquals(sendAt, response.getScheduledAt());
+        verify(emailDispatcher, never()).publishNow(any());
+    }
+
+    @Test
+    void deveGravarAgendamentoNoFusoDoServidorEResponderEmUtc() {
+        OffsetDateTime sendAt = OffsetDateTime.of(LocalDate.now().plusDays(1).atTime(9, 0), ZoneOffset.ofHours(-3));
+        sendEmailRequest.setSendAt(sendAt);
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        when(logWriter.enqueue(any())).thenAnswer(inv -> outboxFor(inv.getArgument(0)));
+
+        EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
+
+        ArgumentCaptor<EmailLog> saved = ArgumentCaptor.forClass(EmailLog.class);
+        verify(logWriter).enqueue(saved.capture());
+        assertEquals(LocalDateTime.ofInstant(sendAt.toInstant(), ZoneId.systemDefault()), saved.getValue().getScheduledAt());
+        assertEquals(OffsetDateTime.of(LocalDate.now().plusDays(1).atTime(12, 0), ZoneOffset.UTC), response.getScheduledAt());
+        assertEquals(ZoneOffset.UTC, response.getSentAt().getOffset());
+    }
+
+    @Test
+    void deveRejeitarAgendamentoNoPassado() {
+        sendEmailRequest.setSendAt(OffsetDateTime.now().minusMinutes(5));
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> emailService.sendEmail(sendEmailRequest, authentication)
+        );
+
+        assertEquals("A data de agendamento deve estar no futuro", exception.getMessage());
+        verify(logWriter, never()).enqueue(any());
+    }
+
+    @Test
+    void deveManterPlaceholderNaoInformadoNoModoPadrao() {
+        sendEmailRequest.setVariables(java.util.Map.of("sistema", "ERP", "nome", "Maria"));
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        stubOutbox(new MailBatches.Result(1, List.of(), null));
+
+        EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
+
+        assertEquals("Olá Maria, o sistema estará fora às {{hora}}.", response.getBody());
+    }
+
+    @Test
+    void deveRejeitarVariaveisNaoInformadasNoModoEstrito() {
+        ReflectionTestUtils.setField(emailService, "strictVariables", true);
+        sendEmailRequest.setVariables(java.util.Map.of("nome", "Maria"));
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> emailService.sendEmail(sendEmailRequest, authentication)
+        );
+
+        assertEquals("Variáveis não informadas: sistema, hora", exception.getMessage());
+        verify(logWriter, never()).enqueue(any());
     }
 
     @Test
     void deveLancarExcecaoQuandoDestinatarioNaoCadastrado() {
         when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
-        when(userRepository.existsByEmail("maria@empresa.com")).thenReturn(false);
+        when(userRepository.findUnknownEmails(List.of("maria@empresa.com"))).thenReturn(Set.of("maria@empresa.com"));
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
@@ -153,7 +301,34 @@ class EmailServiceTest {
         );
 
         assertEquals("Usuário não encontrado: maria@empresa.com", exception.getMessage());
-        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+        verify(logWriter, never()).enqueue(any());
+    }
+
+    @Test
+    void deveListarTodosOsDestinatariosNaoCadastrados() {
+        sendEmailRequest.setRecipientEmails(List.of("maria@empresa.com", "ana@empresa.com", "pedro@empresa.com"));
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        when(userRepository.findUnknownEmails(any())).thenReturn(new java.util.LinkedHashSet<>(List.of("ana@empresa.com", "pedro@empresa.com")));
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> emailService.sendEmail(sendEmailRequest, authentication)
+        );
+
+        assertEquals("Usuários não encontrados: ana@empresa.com, pedro@empresa.com", exception.getMessage());
+        verify(userRepository, never()).existsByEmail(any());
+    }
+
+    @Test
+    void deveNormalizarERemoverDestinatariosDuplicados() {
+        sendEmailRequest.setRecipientEmails(List.of(" Maria@Empresa.com", "maria@empresa.com", ""));
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        stubOutbox(new MailBatches.Result(1, List.of(), null));
+
+        EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
+
+        assertEquals(List.of("maria@empresa.com"), response.getRecipients());
+        verify(userRepository, times(1)).findUnknownEmails(List.of("maria@empresa.com"));
     }
 
     @Test
@@ -167,31 +342,96 @@ class EmailServiceTest {
         );
 
         assertEquals("Template não encontrado", exception.getMessage());
-        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+        verify(logWriter, never()).enqueue(any());
+    }
+
+    @Test
+    void deveListarHistoricoDeEnviosPaginado() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 10, 12, 0);
+        when(emailLogRepository.findHistoryPage(eq(1L), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), any()))
+                .thenReturn(List.of(summary(3L, now), summary(2L, now.minusMinutes(1)), summary(1L, now.minusMinutes(2))));
+        when(emailLogRepository.findRecipientsByEmailLogIds(List.of(3L, 2L)))
+                .thenReturn(List.of(recipientRow(3L, "maria@empresa.com"), recipientRow(3L, "ana@empresa.com"),
+                        recipientRow(2L, "maria@empresa.com")));
+
+        EmailHistoryPage page = emailService.getHistory(authentication, null, 2, null, null, null, null);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(List.of("maria@empresa.com", "ana@empresa.com"), page.getItems().get(0).getRecipients());
+        assertEquals("Sistema ERP indisponível", page.getItems().get(0).getSubject());
+        assertNotNull(page.getNextCursor());
+        verify(emailLogRepository, never()).findAll();
+    }
+
+    @Test
+    void deveContinuarHistoricoAPartirDoCursor() {
+        LocalDateTime sentAt = LocalDateTime.of(2024, 5, 10, 12, 0);
+        String cursor = new HistoryCursor(sentAt, 2L).encode();
+        when(emailLogRepository.findHistoryPage(eq(1L), eq(EmailLog.EmailStatus.SENT), isNull(), isNull(), isNull(),
+                eq(sentAt), eq(2L), any()))
+                .thenReturn(List.of(summary(1L, sentAt.minusMinutes(2))));
+        when(emailLogRepository.findRecipientsByEmailLogIds(List.of(1L))).thenReturn(List.of());
+
+        EmailHistoryPage page = emailService.getHistory(authentication, cursor, 2, "sent", null, null, null);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void deveListarEmailsRecebidosPeloUsuarioAtual() {
+        when(recipientRepository.findReceived(eq("joao@empresa.com"), eq(9L), any()))
+                .thenReturn(List.of(received(8L), received(5L), received(3L)));
+
+        ReceivedEmailPage page = emailService.getReceived(authentication, 9L, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(8L, page.getItems().get(0).getId());
+        assertEquals("maria@empresa.com", page.getItems().get(0).getSenderEmail());
+        assertEquals(5L, page.getNextBefore());
+    }
+
+    @Test
+    void deveRejeitarDetalheDeEmailNaoRecebido() {
+        when(emailLogRepository.findReceived(4L, "joao@empresa.com")).thenReturn(Optional.empty());
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> emailService.getReceivedById(4L, authentication)
+        );
+
+        assertEquals("E-mail não encontrado", exception.getMessage());
     }
 
     @Test
-    void deveListarHistoricoDeEnvios() {
-        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(sender));
-        when(emailLogRepository.findBySenderOrderBySentAtDesc(sender)).thenReturn(List.of(emailLog));
+    void deveResolverCorpoCompartilhadoNoDetalhe() {
+        EmailLog stored = EmailLog.builder().id(4L).sender(sender).template(template)
+                .subject("Aviso antigo").bodyHash("ab12").status(EmailLog.EmailStatus.SENT).build();
+        when(emailLogRepository.findByIdAndSenderId(4L, 1L)).thenReturn(Optional.of(stored));
+        doAnswer(inv -> {
+            stored.setBody("Olá Maria, o sistema estará fora às 22:00.");
+            return null;
+        }).when(bodyStore).resolve(List.of(stored));
+
+        EmailLogResponse response = emailService.getById(4L, authentication);
+
+        assertEquals("Olá Maria, o sistema estará fora às 22:00.", response.getBody());
+    }
 
-        List<EmailLogResponse> history = emailService.getHistory(authentication);
+    @Test
+    void deveRejeitarCursorInvalido() {
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> emailService.getHistory(authentication, "nao-e-um-cursor", 20, null, null, null, null)
+        );
 
-        assertNotNull(history);
-        assertEquals(1, history.size());
-        assertEquals("Sistema ERP indisponível", history.get(0).getSubject());
+        assertEquals("Cursor inválido", exception.getMessage());
     }
 
     @Test
     void deveResolverVariaveisNoTemplate() {
         when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
-        when(userRepository.existsByEmail("maria@empresa.com")).thenReturn(true);
-        when(emailLogRepository.save(any())).thenAnswer(inv -> {
-            EmailLog log = inv.getArgument(0);
-            log.setStatus(EmailLog.EmailStatus.SENT);
-            return log;
-        });
-        doNothing().when(mailSender).send(any(SimpleMailMessage.class));
+        stubOutbox(new MailBatches.Result(1, List.of(), null));
 
         EmailLogResponse response = emailService.sendEmail(sendEmailRequest, authentication);
 
@@ -200,4 +440,55 @@ class EmailServiceTest {
         assertTrue(response.getBody().contains("Maria"));
         assertTrue(response.getBody().contains("22:00"));
     }
-}
\ No newline at end of file
+
+    /** Simula o relay: a outbox deixa o log com o status final antes de publishNow retornar. */
+    private void stubOutbox(MailBatches.Result result) {
+        when(logWriter.enqueue(any())).thenAnswer(inv -> outboxFor(inv.getArgument(0)));
+        when(emailDispatcher.publishNow(any())).thenAnswer(inv -> {
+            EmailLog log = inv.<OutboxMessage>getArgument(0).getEmailLog();
+            if (result == null) return null;
+            if (result.ok()) {
+                log.setStatus(EmailLog.EmailStatus.SENT);
+            } else if (result.retryable()) {
+                log.setStatus(EmailLog.EmailStatus.QUEUED);
+            } else {
+                log.setStatus(EmailLog.EmailStatus.FAILED);
+            }
+            return result;
+        });
+    }
+
+    private static OutboxMessage outboxFor(EmailLog log) {
+        return OutboxMessage.builder().id(10L).emailLog(log).idempotencyKey("chave").build();
+    }
+
+    private static EmailLogRepository.EmailLogSummary summary(Long id, LocalDateTime sentAt) {
+        return new EmailLogRepository.EmailLogSummary() {
+            public Long getId() { return id; }
+            public String getSubject() { return "Sistema ERP indisponível"; }
+            public EmailLog.EmailStatus getStatus() { return EmailLog.EmailStatus.SENT; }
+            public LocalDateTime getSentAt() { return sentAt; }
+            public LocalDateTime getScheduledAt() { return null; }
+            public String getErrorMessage() { return null; }
+            public String getTemplateName() { return "Aviso de Manutenção"; }
+        };
+    }
+
+    private static EmailRecipientRepository.ReceivedEmail received(Long id) {
+        return new EmailRecipientRepository.ReceivedEmail() {
+            public Long getId() { return id; }
+            public String getSubject() { return "Sistema ERP indisponível"; }
+            public String getSenderName() { return "Maria Silva"; }
+            public String getSenderEmail() { return "maria@empresa.com"; }
+            public String getTemplateName() { return "Aviso de Manutenção"; }
+            public LocalDateTime getSentAt() { return LocalDateTime.of(2024, 5, 10, 12, 0); }
+        };
+    }
+
+    private static EmailLogRepository.RecipientRow recipientRow(Long emailLogId, String email) {
+        return new EmailLogRepository.RecipientRow() {
+            public Long getEmailLogId() { return emailLogId; }
+            public String getEmail() { return email; }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.EmailLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailObservationsTest {
+
+    private MeterRegistry meterRegistry;
+    private MailObservations observations;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        observations = new MailObservations(observationRegistry, meterRegistry);
+    }
+
+    @Test
+    void deveCronometrarCadaEtapaComATagDaEtapa() {
+        String rendered = observations.stage("render", () -> "Olá Maria");
+
+        assertEquals("Olá Maria", rendered);
+        assertEquals(1, meterRegistry.get("mail.send.stage").tag("stage", "render").timer().count());
+    }
+
+    @Test
+    void deveContarMensagensSmtpPorResultado() {
+        MimeMessage ok = new MimeMessage((Session) null);
+        MimeMessage rejected = new MimeMessage((Session) null);
+
+        observations.smtp(List.of(ok, rejected), batch -> Map.of(rejected, new RuntimeException("Caixa cheia")));
+
+        assertEquals(1, meterRegistry.get("mail.smtp.messages").tag("outcome", "sent").counter().count());
+        assertEquals(1, meterRegistry.get("mail.smtp.messages").tag("outcome", "failed").counter().count());
+        assertEquals(1, meterRegistry.get("mail.smtp.send").tag("outcome", "partial").timer().count());
+    }
+
+    @Test
+    void deveContarResultadoFinalEReagendamentos() {
+        observations.outcome(EmailLog.EmailStatus.SENT, false);
+        observations.outcome(EmailLog.EmailStatus.QUEUED, true);
+        observations.outcome(EmailLog.EmailStatus.DEAD_LETTER, false);
+
+        assertEquals(1, meterRegistry.get("mail.send.outcome").tag("status", "sent").counter().count());
+        assertEquals(1, meterRegistry.get("mail.send.outcome").tag("status", "retry").counter().count());
+        assertEquals(1, meterRegistry.get("mail.send.outcome").tag("status", "dead_letter").counter().count());
+    }
+}
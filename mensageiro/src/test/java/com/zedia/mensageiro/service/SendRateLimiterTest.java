@@ -0,0 +1,98 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.Template;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SendRateLimiterTest {
+
+    @Test
+    void deveRecusarUsuarioAcimaDoLimiteComRetryAfter() {
+        SendRateLimiter limiter = new SendRateLimiter(1, 3, 0, 1, 0, 1, new MockEnvironment());
+
+        limiter.checkSend(1L, Template.TemplateCategory.OUTROS, 3);
+        RateLimitExceededException exception = assertThrows(
+                RateLimitExceededException.class,
+                () -> limiter.checkSend(1L, Template.TemplateCategory.OUTROS, 1)
+        );
+        limiter.checkSend(2L, Template.TemplateCategory.OUTROS, 3);
+
+        assertEquals("Limite de envios por usuário excedido", exception.getMessage());
+        assertTrue(exception.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        assertTrue(exception.getRetryAfter().compareTo(Duration.ofSeconds(1)) <= 0);
+        assertEquals(1, limiter.getRejectedByUser());
+    }
+
+    @Test
+    void deveDevolverCotaDoUsuarioQuandoCategoriaRecusa() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.ratelimit.category.AVISO_INCIDENTE.per-second", "0.01")
+                .withProperty("app.ratelimit.category.AVISO_INCIDENTE.burst", "1");
+        SendRateLimiter limiter = new SendRateLimiter(0.01, 2, 0, 1, 0, 1, environment);
+
+        limiter.checkSend(1L, Template.TemplateCategory.AVISO_INCIDENTE, 1);
+        assertThrows(RateLimitExceededException.class,
+                () -> limiter.checkSend(1L, Template.TemplateCategory.AVISO_INCIDENTE, 1));
+        limiter.checkSend(1L, Template.TemplateCategory.OUTROS, 1);
+
+        assertEquals(1, limiter.getRejectedByCategory());
+        assertThrows(RateLimitExceededException.class,
+                () -> limiter.checkSend(1L, Template.TemplateCategory.OUTROS, 1));
+    }
+
+    @Test
+    void deveRecusarEnvioMaiorQueARajadaComoInvalido() {
+        SendRateLimiter limiter = new SendRateLimiter(1, 3, 0, 1, 0, 1, new MockEnvironment());
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> limiter.checkSend(1L, Template.TemplateCategory.OUTROS, 4)
+        );
+
+        assertEquals("O envio pode ter no máximo 3 destinatários; use uma campanha", exception.getMessage());
+        limiter.checkSend(1L, Template.TemplateCategory.OUTROS, 3);
+    }
+
+    @Test
+    void deveAdiarCampanhaEmVezDeRecusarEGastarACotaDoUsuario() {
+        SendRateLimiter limiter = new SendRateLimiter(10, 5, 0, 1, 0, 1, new MockEnvironment());
+
+        assertEquals(Duration.ZERO, limiter.reserveCampaign(1L, Template.TemplateCategory.OUTROS, 5));
+        Duration delay = limiter.reserveCampaign(1L, Template.TemplateCategory.OUTROS, 20);
+
+        assertTrue(delay.compareTo(Duration.ofMillis(1900)) > 0);
+        assertTrue(delay.compareTo(Duration.ofMillis(2000)) <= 0);
+        assertThrows(RateLimitExceededException.class,
+                () -> limiter.checkSend(1L, Template.TemplateCategory.OUTROS, 1));
+    }
+
+    @Test
+    void deveManterBaldeDoUsuarioNoCacheEnquantoACampanhaTemDivida() {
+        long[] now = {0};
+        TokenBucket bucket = new TokenBucket(1, 5, () -> now[0]);
+        SendRateLimiter.UntilBucketRefills expiry = new SendRateLimiter.UntilBucketRefills();
+        long idle = SendRateLimiter.IDLE.toNanos();
+
+        assertEquals(idle, expiry.expireAfterCreate(1L, bucket, 0));
+        bucket.reserve(3600);
+        assertEquals(Duration.ofHours(1).toNanos() + idle, expiry.expireAfterUpdate(1L, bucket, 0, idle));
+
+        now[0] = Duration.ofMinutes(30).toNanos();
+        assertEquals(Duration.ofMinutes(30).toNanos() + idle, expiry.expireAfterRead(1L, bucket, now[0], idle));
+    }
+
+    @Test
+    void deveAdiarEnvioSincronoQuandoRelayEsgotado() {
+        SendRateLimiter limiter = new SendRateLimiter(0, 1, 0, 1, 0.01, 2, new MockEnvironment());
+
+        assertTrue(limiter.tryAcquireRelay(2));
+        assertFalse(limiter.tryAcquireRelay(1));
+        assertFalse(limiter.tryAcquireRelay(3));
+        assertEquals(2, limiter.getDeferredToRelay());
+        assertEquals(2, limiter.relayBurst());
+    }
+}
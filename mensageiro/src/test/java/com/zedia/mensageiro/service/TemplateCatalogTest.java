@@ -0,0 +1,77 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.Template;
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.repository.TemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TemplateCatalogTest {
+
+    @Mock
+    private TemplateRepository templateRepository;
+
+    private TemplateCatalog catalog;
+    private Template template;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new TemplateCatalog(templateRepository, 100, Duration.ofMinutes(5));
+        User owner = User.builder().id(1L).name("João Silva").email("joao@empresa.com").role(User.Role.USER).build();
+        template = Template.builder()
+                .id(1L)
+                .name("Aviso de Manutenção")
+                .category(Template.TemplateCategory.AVISO_MANUTENCAO)
+                .subject("Sistema {{sistema}} indisponível")
+                .body("Olá {{nome}}")
+                .owner(owner)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 10, 0))
+                .updatedAt(LocalDateTime.of(2024, 1, 1, 10, 0))
+                .build();
+    }
+
+    @Test
+    void deveReutilizarVisaoCarregada() {
+        when(templateRepository.findAllByOrderByCreatedAtDesc()).thenReturn(List.of(template));
+
+        TemplateCatalog.View first = catalog.all();
+        TemplateCatalog.View second = catalog.all();
+
+        assertSame(first, second);
+        assertEquals("joao@empresa.com", first.templates().get(0).getOwnerEmail());
+        verify(templateRepository, times(1)).findAllByOrderByCreatedAtDesc();
+    }
+
+    @Test
+    void deveRecarregarEAlterarETagAposInvalidacao() {
+        when(templateRepository.findAllByOrderByCreatedAtDesc()).thenReturn(List.of(template));
+        String etag = catalog.all().etag();
+
+        template.setUpdatedAt(LocalDateTime.of(2024, 1, 2, 10, 0));
+        catalog.invalidate();
+
+        assertNotEquals(etag, catalog.all().etag());
+        verify(templateRepository, times(2)).findAllByOrderByCreatedAtDesc();
+    }
+
+    @Test
+    void deveManterETagParaConteudoIgual() {
+        when(templateRepository.findAllByOrderByCreatedAtDesc()).thenReturn(List.of(template));
+        String etag = catalog.all().etag();
+
+        catalog.invalidate();
+
+        assertEquals(etag, catalog.all().etag());
+    }
+}
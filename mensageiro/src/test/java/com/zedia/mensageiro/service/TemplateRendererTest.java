@@ -0,0 +1,75 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.Template;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateRendererTest {
+
+    private TemplateRenderer templateRenderer;
+    private Template template;
+
+    @BeforeEach
+    void setUp() {
+        templateRenderer = new TemplateRenderer(100);
+        template = Template.builder()
+                .id(1L)
+                .subject("Sistema {{sistema}} indisponível")
+                .body("Olá {{nome}}, o sistema {{sistema}} estará fora às {{hora}}.")
+                .updatedAt(LocalDateTime.of(2024, 1, 1, 10, 0))
+                .build();
+    }
+
+    @Test
+    void deveRenderizarTodasAsVariaveis() {
+        RenderedTemplate rendered = templateRenderer.render(template,
+                Map.of("sistema", "ERP", "nome", "Maria", "hora", "22:00"));
+
+        assertEquals("Sistema ERP indisponível", rendered.getSubject());
+        assertEquals("Olá Maria, o sistema ERP estará fora às 22:00.", rendered.getBody());
+        assertFalse(rendered.hasUnresolved());
+    }
+
+    @Test
+    void deveReportarVariaveisNaoResolvidas() {
+        RenderedTemplate rendered = templateRenderer.render(template, Map.of("nome", "Maria"));
+
+        assertEquals("Sistema {{sistema}} indisponível", rendered.getSubject());
+        assertEquals(Set.of("sistema", "hora"), rendered.getUnresolved());
+    }
+
+    @Test
+    void deveTratarChavesSemFechamentoComoTexto() {
+        template.setBody("{{{nome}}} e {{aberto");
+
+        RenderedTemplate rendered = templateRenderer.render(template, Map.of("nome", "Maria", "sistema", "ERP"));
+
+        assertEquals("{Maria} e {{aberto", rendered.getBody());
+    }
+
+    @Test
+    void deveRecompilarQuandoTemplateForAtualizado() {
+        templateRenderer.render(template, Map.of());
+        template.setSubject("Novo assunto {{sistema}}");
+
+        assertEquals("Sistema ERP indisponível", templateRenderer.render(template, Map.of("sistema", "ERP")).getSubject());
+
+        template.setUpdatedAt(template.getUpdatedAt().plusMinutes(1));
+        assertEquals("Novo assunto ERP", templateRenderer.render(template, Map.of("sistema", "ERP")).getSubject());
+    }
+
+    @Test
+    void deveRecompilarAposEvict() {
+        templateRenderer.render(template, Map.of());
+        template.setSubject("Outro {{sistema}}");
+        templateRenderer.evict(1L);
+
+        assertEquals("Outro ERP", templateRenderer.render(template, Map.of("sistema", "ERP")).getSubject());
+    }
+}
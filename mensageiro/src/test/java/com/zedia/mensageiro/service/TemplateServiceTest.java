@@ -4,7 +4,6 @@ import com.zedia.mensageiro.dto.Dtos.*;
 import com.zedia.mensageiro.entity.Template;
 import com.zedia.mensageiro.entity.User;
 import com.zedia.mensageiro.repository.TemplateRepository;
-import com.zedia.mensageiro.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,7 +26,13 @@ class TemplateServiceTest {
     private TemplateRepository templateRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
+
+    @Mock
+    private TemplateRenderer templateRenderer;
+
+    @Mock
+    private TemplateCatalog templateCatalog;
 
     @Mock
     private Authentication authentication;
@@ -76,8 +81,7 @@ class TemplateServiceTest {
 
     @Test
     void deveCriarTemplateComSucesso() {
-        when(authentication.getName()).thenReturn("joao@empresa.com");
-        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(user));
+        when(currentUserService.get(authentication)).thenReturn(user);
         when(templateRepository.save(any())).thenReturn(template);
 
         TemplateResponse response = templateService.create(templateRequest, authentication);
@@ -86,15 +90,16 @@ class TemplateServiceTest {
         assertEquals("Aviso de Manutenção", response.getName());
         assertEquals("AVISO_MANUTENCAO", response.getCategory());
         verify(templateRepository, times(1)).save(any());
+        verify(templateCatalog, times(1)).invalidate();
     }
 
     @Test
     void deveListarMeusTemplates() {
-        when(authentication.getName()).thenReturn("joao@empresa.com");
-        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(user));
-        when(templateRepository.findByOwnerOrderByCreatedAtDesc(user)).thenReturn(List.of(template));
+        when(currentUserService.get(authentication)).thenReturn(user);
+        when(templateCatalog.byOwner(1L))
+                .thenReturn(new TemplateCatalog.View(List.of(TemplateResponse.from(template)), "\"abc\""));
 
-        List<TemplateResponse> templates = templateService.listMine(authentication);
+        List<TemplateResponse> templates = templateService.listMine(authentication).templates();
 
         assertNotNull(templates);
         assertEquals(1, templates.size());
@@ -103,8 +108,7 @@ class TemplateServiceTest {
 
     @Test
     void deveAtualizarTemplateComSucesso() {
-        when(authentication.getName()).thenReturn("joao@empresa.com");
-        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(user));
+        when(currentUserService.get(authentication)).thenReturn(user);
         when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
         when(templateRepository.save(any())).thenReturn(template);
 
@@ -112,12 +116,13 @@ class TemplateServiceTest {
 
         assertNotNull(response);
         verify(templateRepository, times(1)).save(any());
+        verify(templateRenderer, times(1)).evict(1L);
+        verify(templateCatalog, times(1)).invalidate();
     }
 
     @Test
     void deveLancarExcecaoAoAtualizarTemplateDeOutroUsuario() {
-        when(authentication.getName()).thenReturn("joao@empresa.com");
-        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(user));
+        when(currentUserService.get(authentication)).thenReturn(user);
         template.setOwner(outroUser);
         when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
 
@@ -132,19 +137,19 @@ class TemplateServiceTest {
 
     @Test
     void deveDeletarTemplateComSucesso() {
-        when(authentication.getName()).thenReturn("joao@empresa.com");
-        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(user));
+        when(currentUserService.get(authentication)).thenReturn(user);
         when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
 
         assertDoesNotThrow(() -> templateService.delete(1L, authentication));
 
         verify(templateRepository, times(1)).delete(template);
+        verify(templateRenderer, times(1)).evict(1L);
+        verify(templateCatalog, times(1)).invalidate();
     }
 
     @Test
     void deveLancarExcecaoAoDeletarTemplateDeOutroUsuario() {
-        when(authentication.getName()).thenReturn("joao@empresa.com");
-        when(userRepository.findByEmail("joao@empresa.com")).thenReturn(Optional.of(user));
+        when(currentUserService.get(authentication)).thenReturn(user);
         template.setOwner(outroUser);
         when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
 
@@ -159,7 +164,7 @@ class TemplateServiceTest {
 
     @Test
     void deveLancarExcecaoQuandoTemplateNaoEncontrado() {
-        when(templateRepository.findById(99L)).thenReturn(Optional.empty());
+        when(templateCatalog.byId(99L)).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
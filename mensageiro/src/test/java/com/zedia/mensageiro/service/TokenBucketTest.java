@@ -0,0 +1,88 @@
+package com.zedia.mensageiro.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(42 * SECOND);
+
+    @Test
+    void deveLiberarRajadaAteACapacidadeEDepoisInformarAEspera() {
+        TokenBucket bucket = new TokenBucket(2, 4, clock::get);
+
+        assertEquals(0, bucket.tryAcquire(3));
+        assertEquals(0, bucket.tryAcquire(1));
+        assertEquals(SECOND / 2, bucket.tryAcquire(1));
+
+        clock.addAndGet(SECOND / 2);
+        assertEquals(0, bucket.tryAcquire(1));
+    }
+
+    @Test
+    void deveEspacarReservasNaTaxaDoBalde() {
+        TokenBucket bucket = new TokenBucket(10, 2, clock::get);
+
+        assertEquals(0, bucket.reserve(2));
+        assertEquals(SECOND / 10, bucket.reserve(1));
+        assertEquals(2 * SECOND / 10, bucket.reserve(1));
+        assertEquals(0, bucket.available());
+    }
+
+    @Test
+    void deveRecusarPedidoAcimaDaCapacidadeEReservarCustoInteiro() {
+        TokenBucket bucket = new TokenBucket(2, 4, clock::get);
+
+        assertThrows(IllegalArgumentException.class, () -> bucket.tryAcquire(5));
+        assertEquals(4.0, bucket.available());
+
+        assertEquals(SECOND / 2, bucket.reserve(5));
+        assertEquals(5 * SECOND / 2, bucket.reserve(4));
+    }
+
+    @Test
+    void deveDevolverPermissoesNoRefund() {
+        TokenBucket bucket = new TokenBucket(1, 2, clock::get);
+
+        assertEquals(0, bucket.tryAcquire(2));
+        bucket.refund(1);
+
+        assertEquals(1.0, bucket.available());
+        assertEquals(0, bucket.tryAcquire(1));
+    }
+
+    @Test
+    void naoDeveLiberarMaisQueACapacidadeSobConcorrencia() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 100, clock::get);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    if (bucket.tryAcquire(1) == 0) granted.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+}
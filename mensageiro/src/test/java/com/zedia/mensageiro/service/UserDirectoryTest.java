@@ -0,0 +1,96 @@
+package com.zedia.mensageiro.service;
+
+import com.zedia.mensageiro.entity.User;
+import com.zedia.mensageiro.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDirectoryTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        directory = new UserDirectory(userRepository, 20);
+    }
+
+    @Test
+    void deveBuscarPorPrefixoSemAcentoNoNomeENoEmail() {
+        when(userRepository.findDirectoryAfter(eq(0L), any())).thenReturn(List.of(
+                row(1L, "João Silva", "joao.silva@empresa.com"),
+                row(2L, "Joana Araújo", "jaraujo@empresa.com"),
+                row(3L, "Márcia Conceição", "marcia@empresa.com")));
+
+        directory.refresh();
+
+        assertEquals(List.of(2L, 1L), ids(directory.search("JO", null, 10)));
+        assertEquals(List.of(2L), ids(directory.search("arau", null, 10)));
+        assertEquals(List.of(3L), ids(directory.search("conceicao", null, 10)));
+        assertEquals(List.of(1L), ids(directory.search("joao si", null, 10)));
+        assertEquals(List.of(2L), ids(directory.search("jaraujo@emp", null, 10)));
+        assertTrue(directory.search("   ", null, 10).isEmpty());
+    }
+
+    @Test
+    void deveCarregarEmBlocosEIncluirCadastrosNovosSemDuplicar() {
+        List<UserRepository.DirectoryEntry> firstChunk = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            firstChunk.add(row(id, "Usuário " + id, "usuario" + id + "@empresa.com"));
+        }
+        when(userRepository.findDirectoryAfter(eq(0L), any())).thenReturn(firstChunk);
+        when(userRepository.findDirectoryAfter(eq(1000L), any()))
+                .thenReturn(List.of(row(1001L, "Ana Lima", "ana@empresa.com")));
+        when(userRepository.findDirectoryAfter(eq(1001L), any()))
+                .thenReturn(List.of(row(1002L, "Anabela Costa", "anabela@empresa.com")));
+
+        directory.refresh();
+        directory.add(User.builder().id(1002L).name("Anabela Costa").email("anabela@empresa.com").build());
+        directory.refresh();
+
+        assertEquals(1002, directory.size());
+        assertEquals(List.of(1001L, 1002L), ids(directory.search("ana", null, 10)));
+        verify(userRepository, times(3)).findDirectoryAfter(anyLong(), any());
+    }
+
+    @Test
+    void deveLimitarResultadosEExcluirQuemBusca() {
+        List<UserRepository.DirectoryEntry> rows = new ArrayList<>();
+        for (long id = 1; id <= 30; id++) {
+            rows.add(row(id, "Maria " + id, "maria" + id + "@empresa.com"));
+        }
+        when(userRepository.findDirectoryAfter(eq(0L), any())).thenReturn(rows);
+        directory.refresh();
+
+        assertEquals(5, directory.search("maria", null, 5).size());
+        assertEquals(20, directory.search("maria", null, 500).size());
+        assertFalse(ids(directory.search("maria 1", "MARIA1@empresa.com", 20)).contains(1L));
+    }
+
+    private static List<Long> ids(List<UserDirectory.Entry> entries) {
+        return entries.stream().map(UserDirectory.Entry::id).toList();
+    }
+
+    private static UserRepository.DirectoryEntry row(Long id, String name, String email) {
+        return new UserRepository.DirectoryEntry() {
+            public Long getId() { return id; }
+            public String getName() { return name; }
+            public String getEmail() { return email; }
+        };
+    }
+}